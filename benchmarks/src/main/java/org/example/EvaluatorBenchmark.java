@@ -0,0 +1,83 @@
+/**
+ * Benchmark for the pattern evaluation used by the greedy button and the search.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+    /**
+     * Phase of the game the positions come from.
+     */
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+    /**
+     * Mask of the side to move in each position.
+     */
+    private long[] owns;
+    /**
+     * Mask of the opponent in each position.
+     */
+    private long[] opps;
+    /**
+     * Evaluator being benchmarked.
+     */
+    private Evaluator evaluator;
+
+    /**
+     * Method to build the corpus before the benchmark runs.
+     *
+     * @since 1.0
+     */
+    @Setup
+    public void setup() {
+        Game[] games = Positions.corpus(phase);
+        owns = new long[games.length];
+        opps = new long[games.length];
+        for (int i = 0; i < games.length; i++) {
+            owns[i] = games[i].getBoard().getBitboard(games[i].isBlackTurn());
+            opps[i] = games[i].getBoard().getBitboard(!games[i].isBlackTurn());
+        }
+        evaluator = Evaluator.getDefault();
+    }
+
+    /**
+     * Full pattern evaluation of each position.
+     *
+     * @return Combined result, so the JIT can't remove the work.
+     * @since 1.0
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public int evaluate() {
+        int result = 0;
+        for (int i = 0; i < owns.length; i++) {
+            result += evaluator.evaluate(owns[i], opps[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Benchmarks for applying a move: working out the captured counters and updating the board.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlipBenchmark {
+    /**
+     * Phase of the game the positions come from.
+     */
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+    /**
+     * Positions being benchmarked.
+     */
+    private Game[] games;
+    /**
+     * One legal move for each position, as row * 8 + col.
+     */
+    private int[] moves;
+    /**
+     * Side to move in each position.
+     */
+    private boolean[] sides;
+
+    /**
+     * Method to build the corpus and pick a move in each position before the benchmark runs.
+     *
+     * @since 1.0
+     */
+    @Setup
+    public void setup() {
+        games = Positions.corpus(phase);
+        moves = new int[games.length];
+        sides = new boolean[games.length];
+        for (int i = 0; i < games.length; i++) {
+            sides[i] = games[i].isBlackTurn();
+            // positions can have the side to move stuck, in which case the other side's move is used
+            long legal = games[i].legalMoves();
+            if (legal == 0) {
+                sides[i] = !sides[i];
+                legal = games[i].getBoard().getLegalMoves(sides[i]);
+            }
+            // use the middle legal move, rather than always the lowest square
+            for (int skip = Long.bitCount(legal) / 2; skip > 0; skip--) {
+                legal &= legal - 1;
+            }
+            moves[i] = Long.numberOfTrailingZeros(legal);
+        }
+    }
+
+    /**
+     * Captured counters only, straight from the bitboards.
+     *
+     * @return Combined result, so the JIT can't remove the work.
+     * @since 1.0
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public long flips() {
+        long result = 0;
+        for (int i = 0; i < games.length; i++) {
+            BoardState board = games[i].getBoard();
+            result ^= Bitboard.flips(board.getBitboard(sides[i]), board.getBitboard(!sides[i]), moves[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Full move through the public API: setState then captureCounters, on a copy of the board.
+     *
+     * @return Combined result, so the JIT can't remove the work.
+     * @since 1.0
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public long setStateAndCapture() {
+        long result = 0;
+        for (int i = 0; i < games.length; i++) {
+            BoardState board = new BoardState(games[i].getBoard());
+            int row = moves[i] >> 3;
+            int col = moves[i] & 7;
+            // the API takes the black view upside-down
+            if (sides[i]) {
+                row = 7 - row;
+                col = 7 - col;
+            }
+            board.setState(row, col, sides[i]);
+            board.captureCounters(row, col, sides[i]);
+            result ^= board.getBitboard(true);
+        }
+        return result;
+    }
+}
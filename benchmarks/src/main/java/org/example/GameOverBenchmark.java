@@ -0,0 +1,70 @@
+/**
+ * Benchmark for checking whether the game is over.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameOverBenchmark {
+    /**
+     * Phase of the game the positions come from.
+     */
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+    /**
+     * Positions being benchmarked.
+     */
+    private Game[] games;
+
+    /**
+     * Method to build the corpus before the benchmark runs.
+     *
+     * @since 1.0
+     */
+    @Setup
+    public void setup() {
+        games = Positions.corpus(phase);
+    }
+
+    /**
+     * Game-over check through BoardState, as the GUI does after every move.
+     *
+     * @return Number of finished games, so the JIT can't remove the work.
+     * @since 1.0
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public int isGameOver() {
+        int result = 0;
+        for (Game game : games) {
+            if (game.getBoard().isGameOver()) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Benchmarks for finding legal moves, comparing the bitboard mask against scanning all 64 squares.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenBenchmark {
+    /**
+     * Phase of the game the positions come from.
+     */
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+    /**
+     * Positions being benchmarked.
+     */
+    private Game[] games;
+
+    /**
+     * Method to build the corpus before the benchmark runs.
+     *
+     * @since 1.0
+     */
+    @Setup
+    public void setup() {
+        games = Positions.corpus(phase);
+    }
+
+    /**
+     * Legal moves for the side to move as one mask.
+     *
+     * @return Combined result, so the JIT can't remove the work.
+     * @since 1.0
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public long legalMoves() {
+        long result = 0;
+        for (Game game : games) {
+            result ^= game.getBoard().getLegalMoves(game.isBlackTurn());
+        }
+        return result;
+    }
+
+    /**
+     * Legal moves for the side to move found the way the GUI does, with countCapture on every square.
+     *
+     * @return Combined result, so the JIT can't remove the work.
+     * @since 1.0
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public int countCaptureScan() {
+        int result = 0;
+        for (Game game : games) {
+            BoardState board = game.getBoard();
+            boolean isBlack = game.isBlackTurn();
+            for (int i = 0; i < 8; i++) {
+                for (int j = 0; j < 8; j++) {
+                    result += board.countCapture(i, j, isBlack);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Benchmark counting every line of play to a fixed depth from the starting position.
+ * Exercises move generation and flipping together, the same way a search does.
+ * Counting is done by the Perft tool, so the benchmark measures exactly what Perft --verify checks.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+    /**
+     * Depth to count to, in plies. Passes count as a ply.
+     */
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9"})
+    public int depth;
+    /**
+     * Mask of the side to move in the starting position.
+     */
+    private long own;
+    /**
+     * Mask of the opponent in the starting position.
+     */
+    private long opp;
+
+    /**
+     * Method to set up the starting position from the BoardState constructor. White moves first.
+     *
+     * @since 1.0
+     */
+    @Setup
+    public void setup() {
+        BoardState board = new BoardState();
+        own = board.getBitboard(false);
+        opp = board.getBitboard(true);
+    }
+
+    /**
+     * Leaf count to the chosen depth.
+     *
+     * @return Number of leaves.
+     * @since 1.0
+     */
+    @Benchmark
+    public long perft() {
+        return Perft.count(own, opp, depth);
+    }
+}
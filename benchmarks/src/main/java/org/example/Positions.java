@@ -0,0 +1,73 @@
+/**
+ * Fixed corpus of positions for the benchmarks.
+ * Positions are reached by random play from a fixed seed, so every run benchmarks the same boards.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.SplittableRandom;
+
+final class Positions {
+    /**
+     * Number of positions in each phase of the corpus.
+     */
+    static final int COUNT = 32;
+
+    /**
+     * Private constructor. This class only holds static methods.
+     *
+     * @since 1.0
+     */
+    private Positions() {
+    }
+
+    /**
+     * Method to build the positions for one phase of the game.
+     *
+     * @param phase "opening" (8 moves in), "midgame" (28 moves in) or "endgame" (48 moves in).
+     * @return COUNT positions, none of them finished.
+     * @since 1.0
+     */
+    static Game[] corpus(String phase) {
+        int plies;
+        switch (phase) {
+            case "opening":
+                plies = 8;
+                break;
+            case "midgame":
+                plies = 28;
+                break;
+            case "endgame":
+                plies = 48;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown phase: " + phase);
+        }
+
+        SplittableRandom random = new SplittableRandom(plies);
+        Game[] games = new Game[COUNT];
+        int found = 0;
+        while (found < COUNT) {
+            Game game = new Game();
+            for (int i = 0; i < plies && !game.isTerminal(); i++) {
+                long moves = game.legalMoves();
+                if (moves == 0) {
+                    game.pass();
+                    continue;
+                }
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                game.play(Long.numberOfTrailingZeros(moves));
+            }
+            if (!game.isTerminal()) {
+                games[found++] = game;
+            }
+        }
+        return games;
+    }
+}
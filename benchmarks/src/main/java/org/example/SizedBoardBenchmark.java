@@ -0,0 +1,135 @@
+/**
+ * Benchmarks for each board size SizedBoard supports, so the single-mask path up to 8x8 and the padded array
+ * above it can be compared with each other and with the standard 8x8 board.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SizedBoardBenchmark {
+    /**
+     * Number of rows and columns.
+     */
+    @Param({"6", "8", "10", "12", "14", "16"})
+    public int size;
+    /**
+     * Depth perft counts to. Deep enough that most of the time goes on positions past the opening.
+     */
+    private static final int PERFT_DEPTH = 5;
+    /**
+     * Positions a third of the way through a game, reached by random play.
+     */
+    private SizedBoard[] boards;
+    /**
+     * Side to move in each position, true if black.
+     */
+    private boolean[] sides;
+    /**
+     * Move list, big enough for any size.
+     */
+    private final int[] moves = new int[SizedBoard.MAX_SIZE * SizedBoard.MAX_SIZE];
+
+    /**
+     * Method to build the corpus before the benchmark runs.
+     *
+     * @since 1.0
+     */
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(size);
+        boards = new SizedBoard[Positions.COUNT];
+        sides = new boolean[Positions.COUNT];
+        int plies = size * size / 3;
+        int found = 0;
+        while (found < Positions.COUNT) {
+            SizedBoard board = SizedBoard.create(size);
+            boolean isBlack = false;
+            for (int i = 0; i < plies && !board.isGameOver(); i++) {
+                int count = board.legalMoves(isBlack, moves);
+                if (count > 0) {
+                    int move = moves[random.nextInt(count)];
+                    board.placeCounter(move / size, move % size, isBlack);
+                }
+                isBlack = !isBlack;
+            }
+            if (!board.isGameOver()) {
+                boards[found] = board;
+                sides[found] = isBlack;
+                found++;
+            }
+        }
+    }
+
+    /**
+     * Legal moves for the side to move, written out as a list.
+     *
+     * @return Combined result, so the JIT can't remove the work.
+     * @since 1.0
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public int legalMoves() {
+        int result = 0;
+        for (int i = 0; i < boards.length; i++) {
+            result += boards[i].legalMoves(sides[i], moves);
+        }
+        return result;
+    }
+
+    /**
+     * Capture counts for every square, the way the GUI asks about single spaces.
+     *
+     * @return Combined result, so the JIT can't remove the work.
+     * @since 1.0
+     */
+    @Benchmark
+    @OperationsPerInvocation(Positions.COUNT)
+    public int countCaptureScan() {
+        int result = 0;
+        for (int i = 0; i < boards.length; i++) {
+            SizedBoard board = boards[i];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    result += board.countCapture(row, col, sides[i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Leaf count from the starting position, exercising move generation and flipping together.
+     *
+     * @return Number of leaves.
+     * @since 1.0
+     */
+    @Benchmark
+    public long perft() {
+        return SizedBoard.create(size).perft(false, PERFT_DEPTH);
+    }
+}
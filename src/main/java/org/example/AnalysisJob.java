@@ -0,0 +1,271 @@
+/**
+ * Long-running job that searches every position of every game in an archive to a fixed depth,
+ * and counts how often the move played was the one the search chose. All the searches share one
+ * transposition table, so positions that turn up in many games are only searched in full once.
+ *
+ * Progress is saved to a snapshot every Snapshot.INTERVAL seconds: the game and move the job is on,
+ * the position reached, the totals so far and, if there is one, the whole transposition table.
+ * Running the same command again after a crash carries on from the last snapshot with the table
+ * already warm, so at most one interval's work is repeated.
+ *
+ * Usage: AnalysisJob archive depth [tableMB] [snapshot]
+ *   tableMB is 0 to search without a table, default SearchPlayer.DEFAULT_TABLE_SIZE
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class AnalysisJob {
+    /**
+     * Bytes of state in a snapshot: game, move, position, the three totals, time taken and the table flag.
+     */
+    private static final int SNAPSHOT_BYTES = 8 + 4 + Game.SNAPSHOT_BYTES + 8 * 3 + 8 + 1;
+    /**
+     * Archive of games to analyse.
+     */
+    private final Path archive;
+    /**
+     * Depth every position is searched to.
+     */
+    private final int depth;
+    /**
+     * Table shared by every search, or null to search without one.
+     */
+    private final TranspositionTable table;
+    /**
+     * Player doing the searching.
+     */
+    private final SearchPlayer player;
+    /**
+     * File progress is saved to, or null to not save it.
+     */
+    private Path snapshot;
+    /**
+     * Minimum time between snapshots, in nanoseconds.
+     */
+    private long snapshotInterval;
+    /**
+     * Index of the game being analysed.
+     */
+    private long gameIndex;
+    /**
+     * Index of the next move to analyse within the game.
+     */
+    private int moveIndex;
+    /**
+     * Position before that move.
+     */
+    private Game game = new Game();
+    /**
+     * Number of positions searched so far.
+     */
+    private long positions;
+    /**
+     * Number of those where the search chose the move that was played.
+     */
+    private long matches;
+    /**
+     * Nodes searched so far.
+     */
+    private long nodes;
+    /**
+     * Time taken before the current run, from earlier runs that were snapshotted.
+     */
+    private long savedNanos;
+
+    /**
+     * Constructor method.
+     *
+     * @param archive   Archive of games to analyse.
+     * @param depth     Depth to search every position to.
+     * @param tableSize Size of the shared transposition table in MB, or 0 for none.
+     * @since 1.0
+     */
+    public AnalysisJob(Path archive, int depth, int tableSize) {
+        if (depth <= 0 || tableSize < 0) {
+            throw new IllegalArgumentException("Depth must be positive and table size can't be negative");
+        }
+        this.archive = archive;
+        this.depth = depth;
+        table = tableSize > 0 ? new TranspositionTable(tableSize) : null;
+        player = new SearchPlayer(Long.MAX_VALUE / 2_000_000L, depth, table);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args Command-line arguments, see the class description.
+     * @throws IOException If the archive or snapshot can't be read, or the snapshot can't be written.
+     * @since 1.0
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: AnalysisJob archive depth [tableMB] [snapshot]");
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[1]);
+        int tableSize = args.length > 2 ? Integer.parseInt(args[2]) : SearchPlayer.DEFAULT_TABLE_SIZE;
+        AnalysisJob job = new AnalysisJob(Paths.get(args[0]), depth, tableSize);
+        if (args.length > 3) {
+            job.setSnapshot(Paths.get(args[3]), Snapshot.INTERVAL * 1000);
+        }
+
+        long start = System.nanoTime();
+        if (job.resume()) {
+            System.out.printf("resumed at game %d move %d in %.1f ms%n", job.gameIndex, job.moveIndex,
+                    (System.nanoTime() - start) / 1e6);
+        }
+        job.run();
+
+        double seconds = job.savedNanos / 1e9;
+        System.out.printf("%,d positions at depth %d, search chose the move played in %,d (%.1f%%)%n",
+                job.positions, depth, job.matches, job.positions == 0 ? 0 : 100.0 * job.matches / job.positions);
+        System.out.printf("%,d nodes in %.1f s%n", job.nodes, seconds);
+    }
+
+    /**
+     * Mutator method for where progress is saved.
+     *
+     * @param path           File to save progress to, or null to not save it.
+     * @param intervalMillis Minimum time between snapshots in milliseconds.
+     * @since 1.0
+     */
+    public void setSnapshot(Path path, long intervalMillis) {
+        this.snapshot = path;
+        this.snapshotInterval = intervalMillis * 1_000_000L;
+    }
+
+    /**
+     * Method to pick up where the last snapshot left off, table included.
+     *
+     * @return True if there was a snapshot to resume from.
+     * @throws IOException If the snapshot can't be read or belongs to a different job.
+     * @since 1.0
+     */
+    public boolean resume() throws IOException {
+        if (snapshot == null) {
+            return false;
+        }
+        try (FileChannel channel = Snapshot.open(snapshot, Snapshot.ANALYSIS, params())) {
+            if (channel == null) {
+                return false;
+            }
+            ByteBuffer state = ByteBuffer.allocate(SNAPSHOT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            Snapshot.readFully(channel, state);
+            gameIndex = state.getLong();
+            moveIndex = state.getInt();
+            game = Game.readSnapshot(state);
+            positions = state.getLong();
+            matches = state.getLong();
+            nodes = state.getLong();
+            savedNanos = state.getLong();
+            boolean hasTable = state.get() != 0;
+            if (hasTable != (table != null)) {
+                throw new IOException("Snapshot " + snapshot + " doesn't match the table setting");
+            }
+            if (table != null) {
+                table.readFrom(channel);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method to analyse every game from where the job is up to, saving snapshots along the way
+     * and a final one at the end.
+     *
+     * @throws IOException If the archive can't be read or a snapshot can't be written.
+     * @since 1.0
+     */
+    public void run() throws IOException {
+        long start = System.nanoTime();
+        long lastSave = start;
+        try (GameRecordReader reader = new GameRecordReader(archive)) {
+            if (gameIndex < reader.size()) {
+                reader.seek(gameIndex);
+            }
+            while (gameIndex < reader.size()) {
+                int moveCount = reader.moveCount();
+                while (moveIndex < moveCount) {
+                    int move = reader.move(moveIndex);
+                    if (move == Game.PASS) {
+                        game.pass();
+                    } else {
+                        int chosen = player.chooseMove(game);
+                        positions++;
+                        if (chosen == move) {
+                            matches++;
+                        }
+                        nodes += player.getNodes();
+                        game.play(move);
+                    }
+                    moveIndex++;
+
+                    long now = System.nanoTime();
+                    if (snapshot != null && now - lastSave >= snapshotInterval) {
+                        saveSnapshot(savedNanos + now - start);
+                        lastSave = now;
+                    }
+                }
+
+                gameIndex++;
+                moveIndex = 0;
+                game = new Game();
+                if (!reader.next()) {
+                    break;
+                }
+            }
+        }
+        savedNanos += System.nanoTime() - start;
+        if (snapshot != null) {
+            saveSnapshot(savedNanos);
+        }
+    }
+
+    /**
+     * Method to save progress to the snapshot file, table included.
+     *
+     * @param nanos Time taken so far, in nanoseconds.
+     * @throws IOException If the snapshot can't be written.
+     * @since 1.0
+     */
+    private void saveSnapshot(long nanos) throws IOException {
+        ByteBuffer state = ByteBuffer.allocate(SNAPSHOT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        state.putLong(gameIndex).putInt(moveIndex);
+        game.writeSnapshot(state);
+        state.putLong(positions).putLong(matches).putLong(nodes).putLong(nanos).put((byte) (table != null ? 1 : 0))
+                .flip();
+
+        FileChannel channel = Snapshot.create(snapshot, Snapshot.ANALYSIS, params());
+        try {
+            Snapshot.writeFully(channel, state);
+            if (table != null) {
+                table.writeTo(channel);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        Snapshot.commit(channel, snapshot);
+    }
+
+    /**
+     * Method to describe the job for its snapshot.
+     *
+     * @return Archive, depth and table size.
+     * @since 1.0
+     */
+    private String params() {
+        return archive.toAbsolutePath() + " depth=" + depth + " table=" + (table == null ? 0 : table.getCapacity());
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Runs a player on a background thread, so the GUI stays responsive while the AI thinks.
+ * Progress and the chosen move are handed to a callback executor, e.g. SwingUtilities::invokeLater
+ * to get them back on the Swing event thread. Only the latest request counts: asking for a new move
+ * or cancelling stops the player and throws away anything the old request would still have reported.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+public class AsyncPlayer {
+    /**
+     * Player choosing the moves.
+     */
+    private final Player player;
+    /**
+     * Executor that runs callbacks, e.g. on the Swing event thread.
+     */
+    private final Executor callbacks;
+    /**
+     * Background thread the player runs on.
+     */
+    private final ExecutorService executor;
+    /**
+     * Listener for the request being worked on, or null if nothing is.
+     */
+    private volatile ProgressListener active;
+    /**
+     * Request being worked on, or null if nothing is.
+     */
+    private Future<?> running;
+    /**
+     * Number of the latest request. Callbacks from older requests are dropped.
+     */
+    private long generation;
+
+    /**
+     * Constructor method.
+     *
+     * @param player    Player choosing the moves. Only this object should use it from now on.
+     * @param callbacks Executor that runs the progress and move callbacks.
+     * @since 1.0
+     */
+    public AsyncPlayer(Player player, Executor callbacks) {
+        this.player = player;
+        this.callbacks = callbacks;
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ai");
+            t.setDaemon(true);
+            return t;
+        });
+        player.setProgressListener((depth, move, score) -> {
+            ProgressListener listener = active;
+            if (listener != null) {
+                listener.progress(depth, move, score);
+            }
+        });
+    }
+
+    /**
+     * Method to start choosing a move. Any move still being chosen is cancelled first.
+     *
+     * @param game     Game to choose a move in. A copy is taken, so the caller can carry on using it.
+     * @param progress Told about each finished search iteration, or null for nobody.
+     * @param done     Given the chosen move, or Game.PASS. Not called if the request is cancelled.
+     * @since 1.0
+     */
+    public synchronized void think(Game game, ProgressListener progress, IntConsumer done) {
+        cancel();
+        long ticket = generation;
+        Game copy = game.copy();
+        running = executor.submit(() -> {
+            active = progress == null ? null : (depth, move, score) -> callbacks.execute(() -> {
+                if (isCurrent(ticket)) {
+                    progress.progress(depth, move, score);
+                }
+            });
+            int move;
+            try {
+                move = player.chooseMove(copy);
+            } catch (RuntimeException e) {
+                // the background thread would swallow it, so hand it to the callback thread instead
+                callbacks.execute(() -> {
+                    finish(ticket);
+                    throw e;
+                });
+                return;
+            } finally {
+                active = null;
+            }
+            callbacks.execute(() -> {
+                if (finish(ticket)) {
+                    done.accept(move);
+                }
+            });
+        });
+    }
+
+    /**
+     * Method to cancel the move being chosen, if there is one. Safe to call at any time.
+     *
+     * @since 1.0
+     */
+    public synchronized void cancel() {
+        generation++;
+        if (running != null) {
+            running.cancel(false);
+            player.stop();
+            running = null;
+        }
+    }
+
+    /**
+     * Method for checking if a move is being chosen.
+     *
+     * @return True from think until the move is handed over or cancelled.
+     * @since 1.0
+     */
+    public synchronized boolean isThinking() {
+        return running != null;
+    }
+
+    /**
+     * Method to cancel any move being chosen and stop the background thread. The object can't be used after this.
+     *
+     * @since 1.0
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Method for checking if a request is still the latest one.
+     *
+     * @param ticket Number of the request.
+     * @return True if it hasn't been cancelled or replaced.
+     * @since 1.0
+     */
+    private synchronized boolean isCurrent(long ticket) {
+        return ticket == generation;
+    }
+
+    /**
+     * Method to mark a request as finished, if it is still the latest one.
+     *
+     * @param ticket Number of the request.
+     * @return True if the request was still the latest one, so its move should be used.
+     * @since 1.0
+     */
+    private synchronized boolean finish(long ticket) {
+        if (ticket != generation) {
+            return false;
+        }
+        running = null;
+        return true;
+    }
+}
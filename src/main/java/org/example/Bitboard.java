@@ -0,0 +1,144 @@
+/**
+ * Static helpers for working with the board as a pair of 64-bit masks.
+ * Bit (row * 8 + col) is set if that square holds a counter of the given colour.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public final class Bitboard {
+    /**
+     * Mask of every square except column 0 and column 7.
+     * Used for any direction with a horizontal component, so shifts can't wrap between rows.
+     */
+    private static final long NOT_EDGE_COLS = 0x7E7E7E7E7E7E7E7EL;
+
+    /**
+     * Private constructor. This class only holds static methods.
+     *
+     * @since 1.0
+     */
+    private Bitboard() {
+    }
+
+    // shifts are split into positive (<<) and negative (>>>) so each direction is one instruction
+    // 1 = along a row, 8 = along a column, 7 and 9 = the two diagonals
+
+    /**
+     * Method to calculate every legal move for one side.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Mask of every empty square that would capture at least one opposing counter.
+     * @since 1.0
+     */
+    public static long legalMoves(long own, long opp) {
+        long empty = ~(own | opp);
+        long inner = opp & NOT_EDGE_COLS;
+        long moves = 0;
+
+        moves |= fillLeft(own, inner, 1, empty);
+        moves |= fillRight(own, inner, 1, empty);
+        moves |= fillLeft(own, opp, 8, empty);
+        moves |= fillRight(own, opp, 8, empty);
+        moves |= fillLeft(own, inner, 7, empty);
+        moves |= fillRight(own, inner, 7, empty);
+        moves |= fillLeft(own, inner, 9, empty);
+        moves |= fillRight(own, inner, 9, empty);
+
+        return moves;
+    }
+
+    /**
+     * Method to calculate which counters would be captured by a move.
+     * The square is not checked for being empty, callers are expected to do that.
+     *
+     * @param own    Mask of the side to move.
+     * @param opp    Mask of the opponent.
+     * @param square Square being played, as row * 8 + col.
+     * @return Mask of every opposing counter that would be captured.
+     * @since 1.0
+     */
+    public static long flips(long own, long opp, int square) {
+        long move = 1L << square;
+        long inner = opp & NOT_EDGE_COLS;
+        long flipped = 0;
+
+        flipped |= rayLeft(move, own, inner, 1);
+        flipped |= rayRight(move, own, inner, 1);
+        flipped |= rayLeft(move, own, opp, 8);
+        flipped |= rayRight(move, own, opp, 8);
+        flipped |= rayLeft(move, own, inner, 7);
+        flipped |= rayRight(move, own, inner, 7);
+        flipped |= rayLeft(move, own, inner, 9);
+        flipped |= rayRight(move, own, inner, 9);
+
+        return flipped;
+    }
+
+    // dumb7fill: at most 6 opposing counters can sit between a move and the counter closing the line
+
+    /**
+     * Legal moves in one of the four directions that shift towards higher bits.
+     *
+     * @since 1.0
+     */
+    private static long fillLeft(long own, long mask, int shift, long empty) {
+        long t = mask & (own << shift);
+        t |= mask & (t << shift);
+        t |= mask & (t << shift);
+        t |= mask & (t << shift);
+        t |= mask & (t << shift);
+        t |= mask & (t << shift);
+        return empty & (t << shift);
+    }
+
+    /**
+     * Legal moves in one of the four directions that shift towards lower bits.
+     *
+     * @since 1.0
+     */
+    private static long fillRight(long own, long mask, int shift, long empty) {
+        long t = mask & (own >>> shift);
+        t |= mask & (t >>> shift);
+        t |= mask & (t >>> shift);
+        t |= mask & (t >>> shift);
+        t |= mask & (t >>> shift);
+        t |= mask & (t >>> shift);
+        return empty & (t >>> shift);
+    }
+
+    /**
+     * Captured counters along one ray towards higher bits.
+     *
+     * @since 1.0
+     */
+    private static long rayLeft(long move, long own, long mask, int shift) {
+        long line = 0;
+        long t = (move << shift) & mask;
+        while (t != 0) {
+            line |= t;
+            t = (t << shift) & mask;
+        }
+        // the line only counts if it is closed off by one of our own counters
+        return ((line << shift) & own) != 0 ? line : 0;
+    }
+
+    /**
+     * Captured counters along one ray towards lower bits.
+     *
+     * @since 1.0
+     */
+    private static long rayRight(long move, long own, long mask, int shift) {
+        long line = 0;
+        long t = (move >>> shift) & mask;
+        while (t != 0) {
+            line |= t;
+            t = (t >>> shift) & mask;
+        }
+        return ((line >>> shift) & own) != 0 ? line : 0;
+    }
+}
@@ -8,34 +8,129 @@
  */
 package org.example;
 
+import java.nio.ByteBuffer;
+
 public class BoardState {
     /**
-     * 2D array representing each square of the board.
-     * This is an array of fixed size, so that the board size doesn't change at runtime.
+     * Number of rows, which is also the number of columns.
+     * The board is stored as two 64-bit masks, so the size is fixed. Other sizes are played
+     * on SizedBoard, through SizedGame.
+     */
+    public static final int SIZE = 8;
+    /**
+     * Bytes written by writeSnapshot: both masks, then white's and black's scores.
+     */
+    public static final int SNAPSHOT_BYTES = 18;
+    /**
+     * Mask of every square holding a black counter, bit (row * 8 + col).
+     */
+    private long blackBoard = 0;
+    /**
+     * Mask of every square holding a white counter, bit (row * 8 + col).
+     */
+    private long whiteBoard = 0;
+    /**
+     * Zobrist hash of the board, kept up to date as counters are placed and captured.
+     * Does not include the side to move.
      */
-    private int[][] boardArray = new int[8][8];
+    private long hash;
     /**
      * Integer to keep track of black player's score.
+     * Updated as counters are placed and captured, so it is valid at any point in the game.
      */
     private int blackScore = 0;
     /**
      * Integer to keep track of white player's score.
      */
     private int whiteScore = 0;
+    /**
+     * Mask of every playable space for black, updated after every change to the board.
+     */
+    private long blackMoves;
+    /**
+     * Mask of every playable space for white, updated after every change to the board.
+     */
+    private long whiteMoves;
+    /**
+     * Most moves that can be made before any are unmade. Every move fills an empty square, so 64 is enough.
+     */
+    private static final int UNDO_CAPACITY = 64;
+    /**
+     * Square and colour of each move on the undo stack, square | 64 if black.
+     * Created by the first makeMove, so boards that never use it don't pay for it.
+     */
+    private int[] undoMoves;
+    /**
+     * Counters captured by each move on the undo stack.
+     */
+    private long[] undoFlips;
+    /**
+     * Black's playable spaces before each move on the undo stack, so unmaking doesn't have to work them out again.
+     */
+    private long[] undoBlackMoves;
+    /**
+     * White's playable spaces before each move on the undo stack.
+     */
+    private long[] undoWhiteMoves;
+    /**
+     * Number of moves on the undo stack.
+     */
+    private int undoCount;
 
     // 1 represents black, 2 represents white, 0 represents empty
-    // no need to instantiate any values since 0 (empty) by default
+    // a square is empty when its bit is clear in both masks
 
     /**
      * Constructor method to place initial counters on the board.
      */
     public BoardState() {
         // hardcode the counters that start on the board
-        boardArray[3][3] = 2;
-        boardArray[3][4] = 1;
-        boardArray[4][3] = 1;
-        boardArray[4][4] = 2;
-        // access array as [row][col]
+        whiteBoard |= bit(3, 3);
+        blackBoard |= bit(3, 4);
+        blackBoard |= bit(4, 3);
+        whiteBoard |= bit(4, 4);
+        // bits are laid out as row * 8 + col
+
+        hash = Zobrist.hash(blackBoard, whiteBoard);
+        blackScore = 2;
+        whiteScore = 2;
+        refreshMoves();
+    }
+
+    /**
+     * Constructor method to set up any position.
+     *
+     * @param black Mask of black counters, bit (row * 8 + col).
+     * @param white Mask of white counters, bit (row * 8 + col).
+     * @throws IllegalArgumentException If a square holds both colours.
+     * @since 1.0
+     */
+    public BoardState(long black, long white) {
+        if ((black & white) != 0) {
+            throw new IllegalArgumentException("A square can't be both black and white");
+        }
+        blackBoard = black;
+        whiteBoard = white;
+        hash = Zobrist.hash(blackBoard, whiteBoard);
+        blackScore = Long.bitCount(black);
+        whiteScore = Long.bitCount(white);
+        refreshMoves();
+    }
+
+    /**
+     * Copy constructor. The new board shares nothing with the original, and starts with nothing to unmake.
+     *
+     * @param other Board to copy.
+     * @since 1.0
+     */
+    public BoardState(BoardState other) {
+        blackBoard = other.blackBoard;
+        whiteBoard = other.whiteBoard;
+        hash = other.hash;
+        blackScore = other.blackScore;
+        whiteScore = other.whiteScore;
+        blackMoves = other.blackMoves;
+        whiteMoves = other.whiteMoves;
     }
 
     // method for capturing counters
@@ -51,47 +146,145 @@ public class BoardState {
      * @since 1.0
      */
     public void captureCounters(int row, int col, boolean isBlack) {
+        Metrics.captureCall();
         // access spaces in reverse if black view, since upside-down
         if (isBlack) {
-            row = 7 - row;
-            col = 7 - col;
+            row = SIZE - 1 - row;
+            col = SIZE - 1 - col;
         }
 
-        // loops through all possible offsets from input space
-        // i.e. the 8 adjacent spaces
-        for (int rowoffset = -1; rowoffset <= 1; rowoffset++) {
-            for (int coloffset = -1; coloffset <= 1; coloffset++) {
-                if (rowoffset == 0 && coloffset == 0) {
-                    continue;
-                }
-
-                int count = 1;
-                int rowpos = row + rowoffset;
-                int colpos = col + coloffset;
-
-                int curr = getState(rowpos, colpos);
-                if (curr == -1 || curr == 0 || curr == boardArray[row][col]) { // invalid, empty, or the same colour
-                    continue;
-                }
-
-                while (curr != 0 && curr != boardArray[row][col]) {
-                    curr = getState(rowpos += rowoffset, colpos += coloffset);
-
-                    if (curr == -1) {
-                        break;
-                    }
+        // the placed counter decides who is capturing, empty squares capture nothing
+        int square = row * 8 + col;
+        long placed = 1L << square;
+        if ((blackBoard & placed) != 0) {
+            long flipped = Bitboard.flips(blackBoard, whiteBoard, square);
+            blackBoard |= flipped;
+            whiteBoard &= ~flipped;
+            hash ^= Zobrist.flips(flipped);
+            int count = Long.bitCount(flipped);
+            blackScore += count;
+            whiteScore -= count;
+        } else if ((whiteBoard & placed) != 0) {
+            long flipped = Bitboard.flips(whiteBoard, blackBoard, square);
+            whiteBoard |= flipped;
+            blackBoard &= ~flipped;
+            hash ^= Zobrist.flips(flipped);
+            int count = Long.bitCount(flipped);
+            whiteScore += count;
+            blackScore -= count;
+        } else {
+            return;
+        }
+        refreshMoves();
+    }
 
-                    count++;
-                }
+    /**
+     * Method to place a counter and capture everything it closes off, in one step.
+     * Unlike setState and captureCounters, the square is in board coordinates for both sides.
+     * The move is not checked for legality.
+     *
+     * @param square  Square to play, as row * 8 + col.
+     * @param isBlack Boolean representing the colour of the placed piece - true if black, false if white.
+     * @return Mask of the counters that were captured.
+     * @since 1.0
+     */
+    public long placeCounter(int square, boolean isBlack) {
+        long placed = 1L << square;
+        long flipped;
+        if (isBlack) {
+            flipped = Bitboard.flips(blackBoard, whiteBoard, square);
+            blackBoard |= placed | flipped;
+            whiteBoard &= ~flipped;
+            int count = Long.bitCount(flipped);
+            blackScore += count + 1;
+            whiteScore -= count;
+        } else {
+            flipped = Bitboard.flips(whiteBoard, blackBoard, square);
+            whiteBoard |= placed | flipped;
+            blackBoard &= ~flipped;
+            int count = Long.bitCount(flipped);
+            whiteScore += count + 1;
+            blackScore -= count;
+        }
+        hash ^= Zobrist.place(square, isBlack) ^ Zobrist.flips(flipped);
+        refreshMoves();
+        return flipped;
+    }
 
-                if (curr == boardArray[row][col]) { // same colour found, capture everything inbetween
-                    for (int i = 0; i < count; i++) {
-                        boardArray[row + (i * rowoffset)][col + (i * coloffset)] = boardArray[row][col];
-                    }
-                }
+    /**
+     * Method to play a move so that unmakeMove can take it back exactly.
+     * The square is in board coordinates for both sides, and the move is not checked for legality.
+     * Nothing is allocated after the first call, so searches can make and unmake millions of moves.
+     * Changes made with any other mutator are not recorded, so only unmake moves made since the last one.
+     *
+     * @param square  Square to play, as row * 8 + col.
+     * @param isBlack Boolean representing the colour of the placed piece - true if black, false if white.
+     * @return Mask of the counters that were captured.
+     * @throws IllegalStateException If 64 moves have been made without being unmade.
+     * @since 1.0
+     */
+    public long makeMove(int square, boolean isBlack) {
+        if (undoMoves == null) {
+            undoMoves = new int[UNDO_CAPACITY];
+            undoFlips = new long[UNDO_CAPACITY];
+            undoBlackMoves = new long[UNDO_CAPACITY];
+            undoWhiteMoves = new long[UNDO_CAPACITY];
+        } else if (undoCount == UNDO_CAPACITY) {
+            throw new IllegalStateException("More than " + UNDO_CAPACITY + " moves made without unmaking");
+        }
+        undoBlackMoves[undoCount] = blackMoves;
+        undoWhiteMoves[undoCount] = whiteMoves;
+        long flipped = placeCounter(square, isBlack);
+        undoMoves[undoCount] = isBlack ? square | 64 : square;
+        undoFlips[undoCount] = flipped;
+        undoCount++;
+        return flipped;
+    }
 
-            }
+    /**
+     * Method to take back the last move made with makeMove, restoring the board, scores, hash and
+     * playable spaces exactly as they were.
+     *
+     * @return Square of the move taken back, as row * 8 + col.
+     * @throws IllegalStateException If there is no move to unmake.
+     * @since 1.0
+     */
+    public int unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        undoCount--;
+        int square = undoMoves[undoCount] & 63;
+        boolean isBlack = (undoMoves[undoCount] & 64) != 0;
+        long flipped = undoFlips[undoCount];
+        long placed = 1L << square;
+        int count = Long.bitCount(flipped);
+        if (isBlack) {
+            blackBoard &= ~(placed | flipped);
+            whiteBoard |= flipped;
+            blackScore -= count + 1;
+            whiteScore += count;
+        } else {
+            whiteBoard &= ~(placed | flipped);
+            blackBoard |= flipped;
+            whiteScore -= count + 1;
+            blackScore += count;
         }
+        // xor undoes itself, so the same keys take the move back out of the hash
+        hash ^= Zobrist.place(square, isBlack) ^ Zobrist.flips(flipped);
+        blackMoves = undoBlackMoves[undoCount];
+        whiteMoves = undoWhiteMoves[undoCount];
+        return square;
+    }
+
+    /**
+     * Accessor method for how many moves unmakeMove can take back.
+     *
+     * @return Number of moves made with makeMove and not yet unmade.
+     * @since 1.0
+     */
+    public int getUndoCount() {
+        return undoCount;
     }
 
     // method to count how many pieces a space can capture if played
@@ -106,69 +299,52 @@ public class BoardState {
      * @since 1.0
      */
     public int countCapture(int row, int col, final boolean isBlack) {
+        Metrics.captureCall();
         // this avoids having to put differing inputs in for different views
         // black view's inputs are reversed since the view is upside-down
-        int counter;
         if (isBlack) {
-            row = 7 - row;
-            col = 7 - col;
-            counter = 1;
-        } else {
-            counter = 2;
+            row = SIZE - 1 - row;
+            col = SIZE - 1 - col;
         }
 
-        // return null for spaces that aren't empty or out of bounds
-        if (getState(row, col) > 0 || getState(row, col) == -1) {
+        // return 0 for spaces that aren't empty or out of bounds
+        if (getState(row, col) != 0) {
             return 0;
         }
 
-        // this block loops through the possible offsets from the input space
-        // i.e., check the 8 spaces around it
-        int finalCount = 0; // variable to keep track of how many pieces will be captured if played
-        for (int rowoffset = -1; rowoffset <= 1; rowoffset++) {
-            for (int coloffset = -1; coloffset <= 1; coloffset++) {
-                // double zero offset is no offset
-                // it is just the input space, hence ignore
-                if (rowoffset == 0 && coloffset == 0) {
-                    continue;
-                }
-
-                int rowpos = row + rowoffset;
-                int colpos = col + coloffset;
-
-                // if out of bounds, skip over it
-                if (getState(rowpos, colpos) == -1) {
-                    continue;
-                }
-
-                int curr = boardArray[rowpos][colpos]; // variable to keep track of the counter that's being examined
-                int count = 0; // variable to keep track of how many have been checked
-
-                // if the current counter is empty or the same colour, skip to the next
-                // cases for empty adjacent space and adjacent space of the same colour
-                if (curr <= 0 || curr == counter) {
-                    continue;
-                }
-
-                // keep going in the same direction if the curr is of the opposite colour
-                // i.e. not empty, not the same colour
-                while (curr > 0 && curr != counter) {
-                    curr = getState(rowpos += rowoffset, colpos += coloffset);
-                    if (curr == -1) {
-                        break;
-                    }
-                    count++;
-                }
-
-                // if the new curr is of the same colour, add the current count to the final
-                // count
-                if (curr == counter) {
-                    finalCount += count;
-                }
-            }
+        // spaces that aren't playable capture nothing, no need to look at them
+        int square = row * 8 + col;
+        if ((getLegalMoves(isBlack) & (1L << square)) == 0) {
+            return 0;
         }
+        if (isBlack) {
+            return Long.bitCount(Bitboard.flips(blackBoard, whiteBoard, square));
+        }
+        return Long.bitCount(Bitboard.flips(whiteBoard, blackBoard, square));
+    }
+
+    /**
+     * Method to get every playable space for one side at once.
+     * Unlike the other methods, the mask is in board coordinates (row * 8 + col) for both sides,
+     * it is not reversed for the black view.
+     *
+     * @param isBlack Boolean representing which side is playing - true if black, false if white.
+     * @return Mask with one bit set for every space that would capture at least one piece.
+     * @since 1.0
+     */
+    public long getLegalMoves(boolean isBlack) {
+        return isBlack ? blackMoves : whiteMoves;
+    }
 
-        return finalCount;
+    /**
+     * Accessor method for how many spaces one side can play.
+     *
+     * @param isBlack Boolean representing which side is playing - true if black, false if white.
+     * @return Number of playable spaces.
+     * @since 1.0
+     */
+    public int getMobility(boolean isBlack) {
+        return Long.bitCount(getLegalMoves(isBlack));
     }
 
     // method for checking if the game is over (returns true if it is)
@@ -180,36 +356,8 @@ public class BoardState {
      * @since 1.0
      */
     public boolean isGameOver() {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                int curr = 0;
-
-                // need to check both views for playable spaces
-                curr += countCapture(i, j, false);
-                curr += countCapture(i, j, true);
-
-                // only makes sense to count pieces when the game is over, so do that here too
-                if (boardArray[i][j] == 1) {
-                    blackScore++;
-                } else if (boardArray[i][j] == 2) {
-                    whiteScore++;
-                }
-
-                // if either of the current spaces are playable, the game is not over
-                // return false since there is no need to check the others
-                if (curr != 0) {
-                    // game is not over, reset scores so they don't carry over
-                    whiteScore = 0;
-                    blackScore = 0;
-
-                    return false;
-                }
-            }
-        }
-
-        // at this point all places will have been checked
-        // none are playable, so the game must be over - return true
-        return true;
+        // if either side has a playable space, the game is not over
+        return (blackMoves | whiteMoves) == 0;
     }
 
     /**
@@ -221,16 +369,43 @@ public class BoardState {
      * @since 1.0
      */
     public int getState(int row, int col) {
-        if (row > 7 || col > 7 || row < 0 || col < 0) {
+        if (row >= SIZE || col >= SIZE || row < 0 || col < 0) {
             return -1;
         }
-        return boardArray[row][col];
+        long square = bit(row, col);
+        if ((blackBoard & square) != 0) {
+            return 1;
+        } else if ((whiteBoard & square) != 0) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Accessor method for the mask of one side's counters.
+     *
+     * @param isBlack Boolean representing which side to get - true if black, false if white.
+     * @return Mask of that side's counters, bit (row * 8 + col).
+     * @since 1.0
+     */
+    public long getBitboard(boolean isBlack) {
+        return isBlack ? blackBoard : whiteBoard;
+    }
+
+    /**
+     * Accessor method for the Zobrist hash of the board.
+     *
+     * @return Hash of the board, without the side to move.
+     * @since 1.0
+     */
+    public long getHash() {
+        return hash;
     }
 
     // getter method for scores
 
     /**
-     * Accessor method for scores.
+     * Accessor method for scores. Valid at any point in the game, not only once it is over.
      *
      * @return An array of integers containing white score and black score.
      * @since 1.0
@@ -255,10 +430,87 @@ public class BoardState {
     public void setState(int row, int col, boolean isBlack) {
         // access black in reverse since upside-down
         if (isBlack) {
-            boardArray[7 - row][7 - col] = 1;
+            row = SIZE - 1 - row;
+            col = SIZE - 1 - col;
+        }
+
+        // take whatever was on the square out of the hash before putting the new counter in
+        int square = row * 8 + col;
+        long placed = 1L << square;
+        if ((blackBoard & placed) != 0) {
+            hash ^= Zobrist.BLACK[square];
+            blackScore--;
+        } else if ((whiteBoard & placed) != 0) {
+            hash ^= Zobrist.WHITE[square];
+            whiteScore--;
+        }
+        hash ^= Zobrist.place(square, isBlack);
+
+        if (isBlack) {
+            blackBoard |= placed;
+            whiteBoard &= ~placed;
+            blackScore++;
         } else {
-            boardArray[row][col] = 2;
+            whiteBoard |= placed;
+            blackBoard &= ~placed;
+            whiteScore++;
         }
 
+        refreshMoves();
+    }
+
+    /**
+     * Method to write the board in a compact binary form, e.g. for a job snapshot.
+     * The undo stack is not written.
+     *
+     * @param buffer Buffer to write SNAPSHOT_BYTES to, at its position.
+     * @since 1.0
+     */
+    public void writeSnapshot(ByteBuffer buffer) {
+        buffer.putLong(blackBoard).putLong(whiteBoard).put((byte) whiteScore).put((byte) blackScore);
+    }
+
+    /**
+     * Method to read a board written by writeSnapshot.
+     * The scores are stored as a check: they have to match the counters on the board.
+     *
+     * @param buffer Buffer to read SNAPSHOT_BYTES from, at its position.
+     * @return Board as it was written.
+     * @throws IllegalArgumentException If the bytes aren't a valid board.
+     * @since 1.0
+     */
+    public static BoardState readSnapshot(ByteBuffer buffer) {
+        long black = buffer.getLong();
+        long white = buffer.getLong();
+        int savedWhite = buffer.get();
+        int savedBlack = buffer.get();
+        BoardState board = new BoardState(black, white);
+        if (board.whiteScore != savedWhite || board.blackScore != savedBlack) {
+            throw new IllegalArgumentException("Board snapshot scores don't match its counters");
+        }
+        return board;
+    }
+
+    /**
+     * Method to bring both sides' playable spaces up to date after the board changes.
+     * This is a fixed number of shifts and masks, it doesn't depend on how full the board is.
+     *
+     * @since 1.0
+     */
+    private void refreshMoves() {
+        blackMoves = Bitboard.legalMoves(blackBoard, whiteBoard);
+        whiteMoves = Bitboard.legalMoves(whiteBoard, blackBoard);
+    }
+
+    /**
+     * Helper method to get the mask for a single space.
+     *
+     * @param row Row of the space.
+     * @param col Column of the space.
+     * @return Mask with only that space's bit set.
+     * @since 1.0
+     */
+    private static long bit(int row, int col) {
+        return 1L << (row * 8 + col);
     }
 }
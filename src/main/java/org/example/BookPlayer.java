@@ -0,0 +1,73 @@
+/**
+ * AI that plays from an opening book while it can, then hands over to another player.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public class BookPlayer implements Player {
+    /**
+     * Book to play from.
+     */
+    private final OpeningBook book;
+    /**
+     * Player used once the game leaves the book.
+     */
+    private final Player fallback;
+
+    /**
+     * Constructor method.
+     *
+     * @param book     Book to play from.
+     * @param fallback Player used for positions that aren't in the book.
+     * @since 1.0
+     */
+    public BookPlayer(OpeningBook book, Player fallback) {
+        this.book = book;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Method to choose the book move, or the fallback player's move if there isn't one.
+     *
+     * @param game Game to choose a move in.
+     * @return Square to play as row * 8 + col, or Game.PASS if there is no legal move.
+     * @since 1.0
+     */
+    @Override
+    public int chooseMove(Game game) {
+        boolean isBlack = game.isBlackTurn();
+        long own = game.getBoard().getBitboard(isBlack);
+        long opp = game.getBoard().getBitboard(!isBlack);
+        int move = book.lookup(own, opp);
+        // a book built from bad records could hold an illegal move, so check it first
+        if (move != Game.PASS && (game.legalMoves() & (1L << move)) != 0) {
+            return move;
+        }
+        return fallback.chooseMove(game);
+    }
+
+    /**
+     * Method to end the fallback player's move early from another thread.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void stop() {
+        fallback.stop();
+    }
+
+    /**
+     * Mutator method for who hears how the fallback player's search is getting on.
+     *
+     * @param listener Listener, or null for none.
+     * @since 1.0
+     */
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+        fallback.setProgressListener(listener);
+    }
+}
@@ -0,0 +1,488 @@
+/**
+ * Exact solver for the end of the game.
+ * Searches every line to the end and returns the exact final disc difference,
+ * for positions with at most MAX_EMPTIES empty squares.
+ * Boards are passed by value as bitboards, so making and unmaking a move is just a function call,
+ * and move lists live in arrays allocated once per solver, so solving never allocates.
+ * A solve can be given a deadline, and can be stopped from another thread; either way it gives up
+ * and isAborted() says so.
+ * An instance should only be used by one thread at a time.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public class EndgameSolver {
+    /**
+     * Most empty squares the solver will take on.
+     */
+    public static final int MAX_EMPTIES = 20;
+    /**
+     * Above this many empties moves are sorted by opponent mobility, below it parity ordering alone is used
+     * since sorting costs more than it saves near the leaves.
+     */
+    private static final int MOBILITY_ORDER_EMPTIES = 7;
+    /**
+     * Below this many empties stable discs aren't worth counting.
+     */
+    private static final int STABILITY_EMPTIES = 5;
+    /**
+     * How many nodes to search between checks of the clock and the stop flag.
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+    /**
+     * Most plies a solve can go below the root. Plies count passes, and a pass can come before every move
+     * but never twice in a row, so a line can be twice as long as the empties plus the pass that ends it.
+     */
+    private static final int MAX_PLY = 2 * MAX_EMPTIES + 1;
+    /**
+     * The four 4x4 quadrants, used for parity. Playing last in a region is an advantage,
+     * so squares in regions with an odd number of empties are tried first.
+     */
+    private static final long[] QUADRANTS = {
+            0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+    };
+    /**
+     * Masks of every row, column and diagonal with at least 3 squares, used to find full lines.
+     */
+    private static final long[] LINES;
+    /**
+     * Masks of each diagonal running down-right, by line.
+     */
+    private static final long[] DIAGONALS;
+    /**
+     * Masks of each diagonal running down-left, by line.
+     */
+    private static final long[] ANTI_DIAGONALS;
+    /**
+     * Squares on the outer ring of the board.
+     */
+    private static final long EDGE = 0xFF818181818181FFL;
+
+    static {
+        DIAGONALS = new long[15];
+        ANTI_DIAGONALS = new long[15];
+        for (int square = 0; square < 64; square++) {
+            int row = square >> 3;
+            int col = square & 7;
+            DIAGONALS[row - col + 7] |= 1L << square;
+            ANTI_DIAGONALS[row + col] |= 1L << square;
+        }
+        LINES = new long[8 + 8];
+        for (int i = 0; i < 8; i++) {
+            LINES[i] = 0xFFL << (i * 8);
+            LINES[8 + i] = 0x0101010101010101L << i;
+        }
+    }
+
+    /**
+     * Move list buffer for each ply, filled by the ordering code. A list can't be longer than the empties.
+     */
+    private final int[][] moveBuffer = new int[MAX_PLY + 1][MAX_EMPTIES];
+    /**
+     * Sort keys matching moveBuffer.
+     */
+    private final int[][] keyBuffer = new int[MAX_PLY + 1][MAX_EMPTIES];
+    /**
+     * Number of nodes visited by the last solve.
+     */
+    private long nodes;
+    /**
+     * Time in System.nanoTime() at which the current solve has to give up.
+     */
+    private long deadline;
+    /**
+     * Boolean set to true once the current solve has given up. Its result is meaningless.
+     */
+    private boolean aborted;
+    /**
+     * Boolean set by another thread to make the current solve give up.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Method to solve a game exactly.
+     *
+     * @param game Game to solve, with at most MAX_EMPTIES empty squares.
+     * @return Side to move's discs minus the opponent's at the end, with perfect play.
+     * @since 1.0
+     */
+    public int solve(Game game) {
+        boolean isBlack = game.isBlackTurn();
+        return solve(game.getBoard().getBitboard(isBlack), game.getBoard().getBitboard(!isBlack));
+    }
+
+    /**
+     * Method to solve a position exactly.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Final disc difference with perfect play, from the side to move's point of view.
+     * @throws IllegalArgumentException If there are more than MAX_EMPTIES empty squares.
+     * @since 1.0
+     */
+    public int solve(long own, long opp) {
+        checkEmpties(own, opp);
+        start(System.nanoTime() + Long.MAX_VALUE / 2);
+        return search(own, opp, -64, 64, 0);
+    }
+
+    /**
+     * Method to find the best move in a position, with its exact score.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Best move as row * 8 + col in the low 8 bits (Game.PASS & 0xFF if there are no moves),
+     * and the final disc difference for the side to move in the high bits. See move() and score().
+     * @throws IllegalArgumentException If there are more than MAX_EMPTIES empty squares.
+     * @since 1.0
+     */
+    public int solveMove(long own, long opp) {
+        return solveMove(own, opp, System.nanoTime() + Long.MAX_VALUE / 2);
+    }
+
+    /**
+     * Method to find the best move in a position, with its exact score, giving up at a deadline.
+     *
+     * @param own      Mask of the side to move.
+     * @param opp      Mask of the opponent.
+     * @param deadline Time in System.nanoTime() at which to give up.
+     * @return As for solveMove(own, opp), but meaningless if isAborted() is true afterwards.
+     * @throws IllegalArgumentException If there are more than MAX_EMPTIES empty squares.
+     * @since 1.0
+     */
+    public int solveMove(long own, long opp, long deadline) {
+        checkEmpties(own, opp);
+        start(deadline);
+        long moves = Bitboard.legalMoves(own, opp);
+        if (moves == 0) {
+            return (search(own, opp, -64, 64, 0) << 8) | (Game.PASS & 0xFF);
+        }
+
+        int count = orderMoves(own, opp, moves, 0);
+        int alpha = -65;
+        int best = moveBuffer[0][0];
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[0][i];
+            long flipped = Bitboard.flips(own, opp, move);
+            int score = -search(opp & ~flipped, own | flipped | (1L << move), -64, -alpha, 1);
+            if (aborted) {
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+                best = move;
+            }
+        }
+        return (alpha << 8) | best;
+    }
+
+    /**
+     * Decoder for the move returned by solveMove.
+     *
+     * @param result Value returned by solveMove.
+     * @return Move as row * 8 + col, or Game.PASS.
+     * @since 1.0
+     */
+    public static int move(int result) {
+        int move = result & 0xFF;
+        return move == (Game.PASS & 0xFF) ? Game.PASS : move;
+    }
+
+    /**
+     * Decoder for the score returned by solveMove.
+     *
+     * @param result Value returned by solveMove.
+     * @return Final disc difference for the side to move.
+     * @since 1.0
+     */
+    public static int score(int result) {
+        return result >> 8;
+    }
+
+    /**
+     * Accessor method for whether the last solve gave up before finishing.
+     *
+     * @return True if it hit its deadline or was stopped, in which case its result is meaningless.
+     * @since 1.0
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Method to make the current solve give up, from another thread.
+     * Every solve after it gives up at once too, until clearStop is called.
+     *
+     * @since 1.0
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Method to clear a stop request, before starting a new solve.
+     *
+     * @since 1.0
+     */
+    public void clearStop() {
+        stopped = false;
+    }
+
+    /**
+     * Accessor method for the number of nodes visited by the last solve.
+     *
+     * @return Node count.
+     * @since 1.0
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Method to reset the counters before a solve.
+     *
+     * @param deadline Time in System.nanoTime() at which to give up.
+     * @since 1.0
+     */
+    private void start(long deadline) {
+        this.deadline = deadline;
+        nodes = 0;
+        aborted = false;
+    }
+
+    /**
+     * Method to make sure a position is small enough to solve.
+     *
+     * @since 1.0
+     */
+    private static void checkEmpties(long own, long opp) {
+        int empties = 64 - Long.bitCount(own | opp);
+        if (empties > MAX_EMPTIES) {
+            throw new IllegalArgumentException("Too many empty squares to solve: " + empties);
+        }
+    }
+
+    /**
+     * Alpha-beta search to the end of the game.
+     *
+     * @param own   Mask of the side to move.
+     * @param opp   Mask of the opponent.
+     * @param alpha Lower bound of the search window.
+     * @param beta  Upper bound of the search window.
+     * @param ply   Distance from the root, used to pick a move buffer.
+     * @return Final disc difference from the side to move's point of view, or 0 if the solve gave up.
+     * @since 1.0
+     */
+    private int search(long own, long opp, int alpha, int beta, int ply) {
+        nodes++;
+        if ((nodes & (CLOCK_CHECK_INTERVAL - 1)) == 0 && (stopped || System.nanoTime() - deadline >= 0)) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        long empty = ~(own | opp);
+        int empties = Long.bitCount(empty);
+        if (empties == 0) {
+            return Long.bitCount(own) - Long.bitCount(opp);
+        }
+        if (empties == 1) {
+            return lastMove(own, opp, Long.numberOfTrailingZeros(empty));
+        }
+
+        long moves = Bitboard.legalMoves(own, opp);
+        if (moves == 0) {
+            if (Bitboard.legalMoves(opp, own) == 0) {
+                return Long.bitCount(own) - Long.bitCount(opp);
+            }
+            return -search(opp, own, -beta, -alpha, ply + 1);
+        }
+
+        // the opponent keeps at least its stable discs, which caps how well we can do
+        if (empties >= STABILITY_EMPTIES && 64 - 2 * Long.bitCount(opp) <= alpha) {
+            int bound = 64 - 2 * Long.bitCount(stableDiscs(opp, own));
+            if (bound <= alpha) {
+                return bound;
+            }
+        }
+
+        int best = -65;
+        if (empties > MOBILITY_ORDER_EMPTIES) {
+            int count = orderMoves(own, opp, moves, ply);
+            int[] list = moveBuffer[ply];
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                long flipped = Bitboard.flips(own, opp, move);
+                int score = -search(opp & ~flipped, own | flipped | (1L << move), -beta, -alpha, ply + 1);
+                if (score > best) {
+                    best = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        // near the leaves just try odd regions first, then even ones
+        long odd = 0;
+        for (long quadrant : QUADRANTS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) {
+                odd |= quadrant;
+            }
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            long group = moves & (pass == 0 ? odd : ~odd);
+            while (group != 0) {
+                int move = Long.numberOfTrailingZeros(group);
+                group &= group - 1;
+                long flipped = Bitboard.flips(own, opp, move);
+                int score = -search(opp & ~flipped, own | flipped | (1L << move), -beta, -alpha, ply + 1);
+                if (score > best) {
+                    best = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            return best;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Method to score the position with a single empty square, without generating move lists.
+     *
+     * @param own    Mask of the side to move.
+     * @param opp    Mask of the opponent.
+     * @param square The last empty square.
+     * @return Final disc difference from the side to move's point of view.
+     * @since 1.0
+     */
+    private int lastMove(long own, long opp, int square) {
+        int diff = Long.bitCount(own) - Long.bitCount(opp);
+        int flipped = Long.bitCount(Bitboard.flips(own, opp, square));
+        if (flipped != 0) {
+            return diff + 2 * flipped + 1;
+        }
+        // side to move passes, the opponent may still take it
+        flipped = Long.bitCount(Bitboard.flips(opp, own, square));
+        if (flipped != 0) {
+            return diff - 2 * flipped - 1;
+        }
+        return diff;
+    }
+
+    /**
+     * Method to fill the move buffer for a ply, best-looking first.
+     * Moves that leave the opponent fewest replies come first, with a bonus for odd parity regions.
+     *
+     * @param own   Mask of the side to move.
+     * @param opp   Mask of the opponent.
+     * @param moves Mask of legal moves.
+     * @param ply   Which buffer to fill.
+     * @return Number of moves in the buffer.
+     * @since 1.0
+     */
+    private int orderMoves(long own, long opp, long moves, int ply) {
+        int[] list = moveBuffer[ply];
+        int[] keys = keyBuffer[ply];
+        long empty = ~(own | opp);
+        int count = 0;
+        while (moves != 0) {
+            int move = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+
+            long flipped = Bitboard.flips(own, opp, move);
+            long newOwn = own | flipped | (1L << move);
+            long newOpp = opp & ~flipped;
+            int key = Long.bitCount(Bitboard.legalMoves(newOpp, newOwn)) * 4;
+            if ((Long.bitCount(empty & QUADRANTS[quadrant(move)]) & 1) == 0) {
+                key += 2;
+            }
+
+            // insertion sort, lists are short
+            int i = count++;
+            while (i > 0 && keys[i - 1] > key) {
+                keys[i] = keys[i - 1];
+                list[i] = list[i - 1];
+                i--;
+            }
+            keys[i] = key;
+            list[i] = move;
+        }
+        return count;
+    }
+
+    /**
+     * Method to find which quadrant a square is in.
+     *
+     * @since 1.0
+     */
+    private static int quadrant(int square) {
+        return ((square >> 5) << 1) | ((square >> 2) & 1);
+    }
+
+    /**
+     * Method to find discs that can never be captured, as a lower bound.
+     * A disc is stable if, along each of the four lines through it, the line is full
+     * or it is next to the edge or another stable disc of the same colour.
+     *
+     * @param own Mask of the side whose stable discs are wanted.
+     * @param opp Mask of the other side.
+     * @return Mask of stable discs belonging to own.
+     * @since 1.0
+     */
+    static long stableDiscs(long own, long opp) {
+        long filled = own | opp;
+
+        long fullRows = 0;
+        long fullCols = 0;
+        for (int i = 0; i < 8; i++) {
+            if ((filled & LINES[i]) == LINES[i]) {
+                fullRows |= LINES[i];
+            }
+            if ((filled & LINES[8 + i]) == LINES[8 + i]) {
+                fullCols |= LINES[8 + i];
+            }
+        }
+        long fullDiagonals = 0;
+        long fullAntiDiagonals = 0;
+        for (int i = 0; i < 15; i++) {
+            if ((filled & DIAGONALS[i]) == DIAGONALS[i]) {
+                fullDiagonals |= DIAGONALS[i];
+            }
+            if ((filled & ANTI_DIAGONALS[i]) == ANTI_DIAGONALS[i]) {
+                fullAntiDiagonals |= ANTI_DIAGONALS[i];
+            }
+        }
+
+        // the edge counts as a stable neighbour along every line
+        final long leftRight = 0x8181818181818181L;
+        final long topBottom = 0xFF000000000000FFL;
+        long stable = 0;
+        long previous;
+        do {
+            previous = stable;
+            long horizontal = fullRows | leftRight
+                    | ((stable << 1) & 0xFEFEFEFEFEFEFEFEL) | ((stable >>> 1) & 0x7F7F7F7F7F7F7F7FL);
+            long vertical = fullCols | topBottom | (stable << 8) | (stable >>> 8);
+            long diagonal = fullDiagonals | EDGE
+                    | ((stable << 9) & 0xFEFEFEFEFEFEFEFEL) | ((stable >>> 9) & 0x7F7F7F7F7F7F7F7FL);
+            long antiDiagonal = fullAntiDiagonals | EDGE
+                    | ((stable << 7) & 0x7F7F7F7F7F7F7F7FL) | ((stable >>> 7) & 0xFEFEFEFEFEFEFEFEL);
+            stable = own & horizontal & vertical & diagonal & antiDiagonal;
+        } while (stable != previous);
+
+        return stable;
+    }
+}
@@ -0,0 +1,436 @@
+/**
+ * Pattern-based evaluation of a position, in hundredths of a disc from the side to move's point of view.
+ * The score is a sum of weights looked up by feature:
+ *   edge patterns (a whole edge plus its two X-squares), 3x3 corner patterns,
+ *   the two long diagonals and the four diagonals next to them,
+ *   mobility, potential mobility (empty squares next to the opponent) and stable discs.
+ * A pattern's weight is found by reading its squares as a base-3 number (0 empty, 1 own, 2 opponent).
+ * Every copy of a pattern is read from a rotated or reflected board, so the copies share one weight table.
+ * Weights are kept separately for each game phase, since what matters changes as the board fills up.
+ *
+ * Evaluating allocates nothing, and an instance never changes after it is made,
+ * so one instance can be shared by any number of threads.
+ *
+ * Weights are fitted offline by Trainer and saved to a weights file: the magic "URWT", a 2 byte version,
+ * 2 reserved bytes, the number of phases and of weights per phase, then every weight as a 4 byte int.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class Evaluator {
+    /**
+     * Number of game phases, each with its own weights. The phase goes up by one every 4 discs.
+     */
+    public static final int PHASES = 16;
+    /**
+     * Squares of the edge pattern: the top row plus b2 and g2.
+     */
+    static final long EDGE_MASK = 0x42FFL;
+    /**
+     * Squares of the corner pattern: the 3x3 block at a1.
+     */
+    static final long CORNER_MASK = 0x070707L;
+    /**
+     * Squares of the long diagonal pattern: a1 to h8.
+     */
+    static final long DIAGONAL_MASK = 0x8040201008040201L;
+    /**
+     * Squares of the short diagonal pattern: b1 to h7.
+     */
+    static final long SHORT_DIAGONAL_MASK = 0x0080402010080402L;
+    /**
+     * Start of the edge pattern's 3^10 weights within a phase.
+     */
+    static final int EDGE = 0;
+    /**
+     * Start of the corner pattern's 3^9 weights.
+     */
+    static final int CORNER = EDGE + 59049;
+    /**
+     * Start of the long diagonal pattern's 3^8 weights.
+     */
+    static final int DIAGONAL = CORNER + 19683;
+    /**
+     * Start of the short diagonal pattern's 3^7 weights.
+     */
+    static final int SHORT_DIAGONAL = DIAGONAL + 6561;
+    /**
+     * Weight per move of mobility difference.
+     */
+    static final int MOBILITY = SHORT_DIAGONAL + 2187;
+    /**
+     * Weight per square of potential mobility difference.
+     */
+    static final int POTENTIAL_MOBILITY = MOBILITY + 1;
+    /**
+     * Weight per stable disc difference.
+     */
+    static final int STABLE = POTENTIAL_MOBILITY + 1;
+    /**
+     * Number of weights in each phase.
+     */
+    public static final int FEATURES = STABLE + 1;
+    /**
+     * Number of values written by features: one weight index per pattern copy, then the three counted features.
+     */
+    static final int SLOTS = 17;
+    /**
+     * Weights file the default evaluator is loaded from, if it is in the working directory.
+     */
+    public static final String WEIGHTS_FILE = "weights.bin";
+    /**
+     * Magic number at the start of every weights file, "URWT" in ASCII.
+     */
+    static final int MAGIC = 0x55525754;
+    /**
+     * Format version written to the header.
+     */
+    static final short VERSION = 1;
+    /**
+     * Largest score evaluate returns, so it always stays below SearchPlayer.WIN_SCORE.
+     */
+    public static final int MAX_SCORE = 6400;
+    /**
+     * Base-3 value of each up-to-10-bit binary number, e.g. 0b101 is 3^2 + 3^0 = 10.
+     */
+    private static final int[] TERNARY = new int[1024];
+    /**
+     * Classic square values in hundredths of a disc, used to make the default weights.
+     */
+    private static final int[] SQUARE_VALUES = {
+            500, -100, 50, 25, 25, 50, -100, 500,
+            -100, -250, -10, -10, -10, -10, -250, -100,
+            50, -10, -5, -5, -5, -5, -10, 50,
+            25, -10, -5, 0, 0, -5, -10, 25,
+            25, -10, -5, 0, 0, -5, -10, 25,
+            50, -10, -5, -5, -5, -5, -10, 50,
+            -100, -250, -10, -10, -10, -10, -250, -100,
+            500, -100, 50, 25, 25, 50, -100, 500
+    };
+    /**
+     * Default evaluator, made on first use.
+     */
+    private static Evaluator defaultEvaluator;
+
+    static {
+        for (int i = 0; i < TERNARY.length; i++) {
+            int value = 0;
+            for (int bit = 9; bit >= 0; bit--) {
+                value = value * 3 + ((i >>> bit) & 1);
+            }
+            TERNARY[i] = value;
+        }
+    }
+
+    /**
+     * Weights indexed by [phase][feature].
+     */
+    private final int[][] weights;
+
+    /**
+     * Constructor method. Uses the given weights, without copying them.
+     *
+     * @param weights Weights indexed by [phase][feature], PHASES by FEATURES.
+     * @since 1.0
+     */
+    public Evaluator(int[][] weights) {
+        if (weights.length != PHASES) {
+            throw new IllegalArgumentException("Expected " + PHASES + " phases, got " + weights.length);
+        }
+        for (int[] phase : weights) {
+            if (phase.length != FEATURES) {
+                throw new IllegalArgumentException("Expected " + FEATURES + " weights per phase, got " + phase.length);
+            }
+        }
+        this.weights = weights;
+    }
+
+    /**
+     * Accessor method for the evaluator used when no other is given.
+     * On first use this loads WEIGHTS_FILE from the working directory,
+     * or falls back to hand-made weights if there is no such file or it can't be read.
+     *
+     * @return Default evaluator.
+     * @since 1.0
+     */
+    public static synchronized Evaluator getDefault() {
+        if (defaultEvaluator == null) {
+            Path path = Paths.get(WEIGHTS_FILE);
+            if (Files.exists(path)) {
+                try {
+                    defaultEvaluator = load(path);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Could not load evaluation weights, using defaults: " + e.getMessage());
+                }
+            }
+            if (defaultEvaluator == null) {
+                defaultEvaluator = new Evaluator(defaultWeights());
+            }
+        }
+        return defaultEvaluator;
+    }
+
+    /**
+     * Method to read a weights file written by save.
+     *
+     * @param path Path of the weights file.
+     * @return Evaluator using those weights.
+     * @throws IOException If the file can't be read or isn't a weights file.
+     * @since 1.0
+     */
+    public static Evaluator load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a weights file: " + path);
+            }
+            in.readShort();
+            in.readShort();
+            int phases = in.readInt();
+            int features = in.readInt();
+            if (phases != PHASES || features != FEATURES) {
+                throw new IOException("Weights file is for a different set of features: " + path);
+            }
+            int[][] weights = new int[PHASES][FEATURES];
+            for (int[] phase : weights) {
+                for (int i = 0; i < FEATURES; i++) {
+                    phase[i] = in.readInt();
+                }
+            }
+            return new Evaluator(weights);
+        }
+    }
+
+    /**
+     * Method to write the weights to a file.
+     *
+     * @param path Path to write to. An existing file is replaced.
+     * @throws IOException If writing fails.
+     * @since 1.0
+     */
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeInt(PHASES);
+            out.writeInt(FEATURES);
+            for (int[] phase : weights) {
+                for (int weight : phase) {
+                    out.writeInt(weight);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accessor method for one weight.
+     *
+     * @param phase   Game phase.
+     * @param feature Feature index, e.g. from features.
+     * @return Weight.
+     * @since 1.0
+     */
+    public int getWeight(int phase, int feature) {
+        return weights[phase][feature];
+    }
+
+    /**
+     * Method to estimate how good a position is for the side to move.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Estimated final disc difference in hundredths of a disc, between -MAX_SCORE and MAX_SCORE.
+     * @since 1.0
+     */
+    public int evaluate(long own, long opp) {
+        int[] w = weights[phase(own, opp)];
+
+        // each pattern copy is read from the board turned so the copy lands on the pattern's squares
+        long ownH = Symmetry.mirror(own);
+        long oppH = Symmetry.mirror(opp);
+        long ownV = Symmetry.flip(own);
+        long oppV = Symmetry.flip(opp);
+        long ownT = Symmetry.transpose(own);
+        long oppT = Symmetry.transpose(opp);
+
+        int score = w[EDGE + index(own, opp, EDGE_MASK)]
+                + w[EDGE + index(ownV, oppV, EDGE_MASK)]
+                + w[EDGE + index(ownT, oppT, EDGE_MASK)]
+                + w[EDGE + index(Symmetry.flip(ownT), Symmetry.flip(oppT), EDGE_MASK)]
+                + w[CORNER + index(own, opp, CORNER_MASK)]
+                + w[CORNER + index(ownH, oppH, CORNER_MASK)]
+                + w[CORNER + index(ownV, oppV, CORNER_MASK)]
+                + w[CORNER + index(Symmetry.flip(ownH), Symmetry.flip(oppH), CORNER_MASK)]
+                + w[DIAGONAL + index(own, opp, DIAGONAL_MASK)]
+                + w[DIAGONAL + index(ownH, oppH, DIAGONAL_MASK)]
+                + w[SHORT_DIAGONAL + index(own, opp, SHORT_DIAGONAL_MASK)]
+                + w[SHORT_DIAGONAL + index(ownT, oppT, SHORT_DIAGONAL_MASK)]
+                + w[SHORT_DIAGONAL + index(ownH, oppH, SHORT_DIAGONAL_MASK)]
+                + w[SHORT_DIAGONAL + index(ownV, oppV, SHORT_DIAGONAL_MASK)];
+
+        long empty = ~(own | opp);
+        score += w[MOBILITY] * (Long.bitCount(Bitboard.legalMoves(own, opp))
+                - Long.bitCount(Bitboard.legalMoves(opp, own)));
+        score += w[POTENTIAL_MOBILITY] * (Long.bitCount(empty & neighbours(opp))
+                - Long.bitCount(empty & neighbours(own)));
+        score += w[STABLE] * (Long.bitCount(EndgameSolver.stableDiscs(own, opp))
+                - Long.bitCount(EndgameSolver.stableDiscs(opp, own)));
+
+        return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    /**
+     * Method to list the features of a position, for training.
+     * The first 14 slots hold the weight index of each pattern copy, added in by evaluate with a value of 1.
+     * The last 3 hold the mobility, potential mobility and stable disc differences,
+     * which evaluate multiplies by the MOBILITY, POTENTIAL_MOBILITY and STABLE weights.
+     *
+     * @param own    Mask of the side to move.
+     * @param opp    Mask of the opponent.
+     * @param out    Array to write SLOTS values to.
+     * @param offset Position in the array to start writing at.
+     * @since 1.0
+     */
+    static void features(long own, long opp, int[] out, int offset) {
+        long ownH = Symmetry.mirror(own);
+        long oppH = Symmetry.mirror(opp);
+        long ownV = Symmetry.flip(own);
+        long oppV = Symmetry.flip(opp);
+        long ownT = Symmetry.transpose(own);
+        long oppT = Symmetry.transpose(opp);
+
+        out[offset] = EDGE + index(own, opp, EDGE_MASK);
+        out[offset + 1] = EDGE + index(ownV, oppV, EDGE_MASK);
+        out[offset + 2] = EDGE + index(ownT, oppT, EDGE_MASK);
+        out[offset + 3] = EDGE + index(Symmetry.flip(ownT), Symmetry.flip(oppT), EDGE_MASK);
+        out[offset + 4] = CORNER + index(own, opp, CORNER_MASK);
+        out[offset + 5] = CORNER + index(ownH, oppH, CORNER_MASK);
+        out[offset + 6] = CORNER + index(ownV, oppV, CORNER_MASK);
+        out[offset + 7] = CORNER + index(Symmetry.flip(ownH), Symmetry.flip(oppH), CORNER_MASK);
+        out[offset + 8] = DIAGONAL + index(own, opp, DIAGONAL_MASK);
+        out[offset + 9] = DIAGONAL + index(ownH, oppH, DIAGONAL_MASK);
+        out[offset + 10] = SHORT_DIAGONAL + index(own, opp, SHORT_DIAGONAL_MASK);
+        out[offset + 11] = SHORT_DIAGONAL + index(ownT, oppT, SHORT_DIAGONAL_MASK);
+        out[offset + 12] = SHORT_DIAGONAL + index(ownH, oppH, SHORT_DIAGONAL_MASK);
+        out[offset + 13] = SHORT_DIAGONAL + index(ownV, oppV, SHORT_DIAGONAL_MASK);
+
+        long empty = ~(own | opp);
+        out[offset + 14] = Long.bitCount(Bitboard.legalMoves(own, opp)) - Long.bitCount(Bitboard.legalMoves(opp, own));
+        out[offset + 15] = Long.bitCount(empty & neighbours(opp)) - Long.bitCount(empty & neighbours(own));
+        out[offset + 16] = Long.bitCount(EndgameSolver.stableDiscs(own, opp))
+                - Long.bitCount(EndgameSolver.stableDiscs(opp, own));
+    }
+
+    /**
+     * Method to find the game phase of a position.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Phase, from 0 to PHASES - 1.
+     * @since 1.0
+     */
+    static int phase(long own, long opp) {
+        return Math.min(PHASES - 1, (Long.bitCount(own | opp) - 4) >> 2);
+    }
+
+    /**
+     * Method to read the squares of a pattern as a base-3 number.
+     *
+     * @param own  Mask of the side to move.
+     * @param opp  Mask of the opponent.
+     * @param mask Squares of the pattern, at most 10.
+     * @return Index into the pattern's weights.
+     * @since 1.0
+     */
+    static int index(long own, long opp, long mask) {
+        return TERNARY[(int) Long.compress(own, mask)] + 2 * TERNARY[(int) Long.compress(opp, mask)];
+    }
+
+    /**
+     * Method to find every square next to a disc in a mask.
+     *
+     * @since 1.0
+     */
+    private static long neighbours(long discs) {
+        long left = (discs >>> 1) & 0x7F7F7F7F7F7F7F7FL;
+        long right = (discs << 1) & 0xFEFEFEFEFEFEFEFEL;
+        long row = discs | left | right;
+        return left | right | (row << 8) | (row >>> 8);
+    }
+
+    /**
+     * Method to make the hand-made default weights.
+     * Each pattern is given the sum of the classic square values it covers, split evenly between the
+     * pattern copies covering each square, so the patterns add up to the square values over the whole board.
+     *
+     * @return Weights indexed by [phase][feature].
+     * @since 1.0
+     */
+    static int[][] defaultWeights() {
+        // how many pattern copies cover each square, found by evaluating one-disc boards through the patterns
+        int[] coverage = new int[64];
+        long[] masks = {EDGE_MASK, CORNER_MASK, DIAGONAL_MASK, SHORT_DIAGONAL_MASK};
+        for (int square = 0; square < 64; square++) {
+            long disc = 1L << square;
+            long[] copies = {
+                    disc, Symmetry.flip(disc), Symmetry.transpose(disc), Symmetry.flip(Symmetry.transpose(disc)),
+                    disc, Symmetry.mirror(disc), Symmetry.flip(disc), Symmetry.flip(Symmetry.mirror(disc)),
+                    disc, Symmetry.mirror(disc),
+                    disc, Symmetry.transpose(disc), Symmetry.mirror(disc), Symmetry.flip(disc)
+            };
+            for (int i = 0; i < copies.length; i++) {
+                int pattern = i < 4 ? 0 : i < 8 ? 1 : i < 10 ? 2 : 3;
+                if ((copies[i] & masks[pattern]) != 0) {
+                    coverage[square]++;
+                }
+            }
+        }
+
+        int[] phase = new int[FEATURES];
+        int[] offsets = {EDGE, CORNER, DIAGONAL, SHORT_DIAGONAL};
+        for (int pattern = 0; pattern < masks.length; pattern++) {
+            int size = Long.bitCount(masks[pattern]);
+            int[] squares = new int[size];
+            long bits = masks[pattern];
+            for (int i = 0; i < size; i++) {
+                squares[i] = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+            for (int own = 0; own < 1 << size; own++) {
+                for (int opp = 0; opp < 1 << size; opp++) {
+                    if ((own & opp) != 0) {
+                        continue;
+                    }
+                    int value = 0;
+                    for (int i = 0; i < size; i++) {
+                        int sign = ((own >>> i) & 1) - ((opp >>> i) & 1);
+                        value += sign * SQUARE_VALUES[squares[i]] / coverage[squares[i]];
+                    }
+                    phase[offsets[pattern] + TERNARY[own] + 2 * TERNARY[opp]] = value;
+                }
+            }
+        }
+        phase[MOBILITY] = 30;
+        phase[POTENTIAL_MOBILITY] = 10;
+        phase[STABLE] = 100;
+
+        int[][] weights = new int[PHASES][];
+        for (int i = 0; i < PHASES; i++) {
+            weights[i] = phase.clone();
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,326 @@
+/**
+ * Class to run a single game without any GUI.
+ * Keeps track of the board, whose turn it is, and passing.
+ * Every game owns its own board, so separate games can be played on separate threads.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class Game {
+    /**
+     * Move value used by players to say they have nothing to play.
+     */
+    public static final int PASS = -1;
+    /**
+     * Bytes written by writeSnapshot: the board, then the side to move.
+     */
+    public static final int SNAPSHOT_BYTES = BoardState.SNAPSHOT_BYTES + 1;
+    /**
+     * BoardState object for this game.
+     */
+    private final BoardState board;
+    /**
+     * Boolean set to true if it is black's turn.
+     * The requirements state white must go first.
+     */
+    private boolean isBlackTurn;
+    /**
+     * Every move played, PASS included, followed by any moves that have been undone and can be redone.
+     */
+    private int[] history = new int[128];
+    /**
+     * Number of moves played and not undone.
+     */
+    private int played;
+    /**
+     * Number of moves in the history, the ones that can be redone included.
+     */
+    private int recorded;
+
+    /**
+     * Constructor method. Starts a new game from the usual starting position.
+     *
+     * @since 1.0
+     */
+    public Game() {
+        board = new BoardState();
+        isBlackTurn = false;
+    }
+
+    /**
+     * Constructor method to continue from any position.
+     *
+     * @param board       Board to play on. The game takes ownership of it.
+     * @param isBlackTurn Boolean set to true if black is to move.
+     * @since 1.0
+     */
+    public Game(BoardState board, boolean isBlackTurn) {
+        this.board = board;
+        this.isBlackTurn = isBlackTurn;
+    }
+
+    /**
+     * Private constructor used by copy. The copy starts with nothing to undo or redo.
+     *
+     * @param other Game to copy.
+     * @since 1.0
+     */
+    private Game(Game other) {
+        board = new BoardState(other.board);
+        isBlackTurn = other.isBlackTurn;
+    }
+
+    /**
+     * Method to get every legal move for the side to move.
+     *
+     * @return Mask of legal squares, bit (row * 8 + col). Zero if the side to move has to pass.
+     * @since 1.0
+     */
+    public long legalMoves() {
+        return board.getLegalMoves(isBlackTurn);
+    }
+
+    /**
+     * Method to play a move for the side to move, then hand the turn over.
+     *
+     * @param move Square to play, as row * 8 + col.
+     * @throws IllegalArgumentException If the move is not legal.
+     * @since 1.0
+     */
+    public void play(int move) {
+        if (move < 0 || move > 63 || (legalMoves() & (1L << move)) == 0) {
+            throw new IllegalArgumentException("Illegal move: " + move);
+        }
+        board.makeMove(move, isBlackTurn);
+        isBlackTurn = !isBlackTurn;
+        record(move);
+    }
+
+    /**
+     * Method to pass the turn. Only allowed when the side to move has no legal moves.
+     *
+     * @throws IllegalStateException If the side to move could still play.
+     * @since 1.0
+     */
+    public void pass() {
+        if (legalMoves() != 0) {
+            throw new IllegalStateException("Cannot pass while a move is available");
+        }
+        isBlackTurn = !isBlackTurn;
+        record(PASS);
+    }
+
+    /**
+     * Method for checking if there is a move to undo.
+     *
+     * @return True if a move has been played and not undone.
+     * @since 1.0
+     */
+    public boolean canUndo() {
+        return played > 0;
+    }
+
+    /**
+     * Method for checking if there is a move to redo.
+     *
+     * @return True if a move has been undone and nothing new played since.
+     * @since 1.0
+     */
+    public boolean canRedo() {
+        return played < recorded;
+    }
+
+    /**
+     * Method to take back the last move or pass. The board is restored from its undo stack, not replayed.
+     *
+     * @return Move taken back, or PASS.
+     * @throws IllegalStateException If there is nothing to undo.
+     * @since 1.0
+     */
+    public int undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int move = history[--played];
+        if (move != PASS) {
+            board.unmakeMove();
+        }
+        isBlackTurn = !isBlackTurn;
+        return move;
+    }
+
+    /**
+     * Method to play the last move undone again.
+     *
+     * @return Move played again, or PASS.
+     * @throws IllegalStateException If there is nothing to redo.
+     * @since 1.0
+     */
+    public int redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int move = history[played++];
+        if (move != PASS) {
+            board.makeMove(move, isBlackTurn);
+        }
+        isBlackTurn = !isBlackTurn;
+        return move;
+    }
+
+    /**
+     * Method to add a move to the history. Playing anything new throws away the moves that could be redone.
+     *
+     * @param move Move played, or PASS.
+     * @since 1.0
+     */
+    private void record(int move) {
+        // a game has at most 60 moves and a pass between each, so this only grows for games set up oddly
+        if (played == history.length) {
+            history = Arrays.copyOf(history, history.length * 2);
+        }
+        history[played++] = move;
+        recorded = played;
+    }
+
+    /**
+     * Method for checking if the game is over, i.e. neither side can move.
+     *
+     * @return True if the game is over, false if not.
+     * @since 1.0
+     */
+    public boolean isTerminal() {
+        return board.isGameOver();
+    }
+
+    /**
+     * Accessor method for the current disc counts. Valid at any point in the game.
+     *
+     * @return An array of integers containing white score and black score.
+     * @since 1.0
+     */
+    public int[] score() {
+        return board.getScore();
+    }
+
+    /**
+     * Method to copy this game, e.g. to try out moves without changing the original.
+     *
+     * @return Independent copy of this game.
+     * @since 1.0
+     */
+    public Game copy() {
+        return new Game(this);
+    }
+
+    /**
+     * Method to read a position written by toString.
+     * The format is 64 characters, row by row, using X for black, O for white and - for empty,
+     * then a space and X or O for the side to move.
+     *
+     * @param text Position to read.
+     * @return Game starting from that position.
+     * @throws IllegalArgumentException If the text is not in the right format.
+     * @since 1.0
+     */
+    public static Game fromString(String text) {
+        text = text.trim();
+        if (text.length() != 66 || text.charAt(64) != ' ') {
+            throw new IllegalArgumentException("Expected 64 squares, a space and the side to move: " + text);
+        }
+
+        long black = 0;
+        long white = 0;
+        for (int square = 0; square < 64; square++) {
+            char c = text.charAt(square);
+            if (c == 'X') {
+                black |= 1L << square;
+            } else if (c == 'O') {
+                white |= 1L << square;
+            } else if (c != '-') {
+                throw new IllegalArgumentException("Unknown square '" + c + "' in: " + text);
+            }
+        }
+
+        char side = text.charAt(65);
+        if (side != 'X' && side != 'O') {
+            throw new IllegalArgumentException("Side to move must be X or O: " + text);
+        }
+        return new Game(new BoardState(black, white), side == 'X');
+    }
+
+    /**
+     * Method to write the position in the format read by fromString.
+     *
+     * @return Position as text.
+     * @since 1.0
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(66);
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                int state = board.getState(row, col);
+                sb.append(state == 1 ? 'X' : state == 2 ? 'O' : '-');
+            }
+        }
+        sb.append(' ').append(isBlackTurn ? 'X' : 'O');
+        return sb.toString();
+    }
+
+    /**
+     * Method to write the position in a compact binary form, e.g. for a job snapshot.
+     * The move history is not written, so a restored game starts with nothing to undo.
+     *
+     * @param buffer Buffer to write SNAPSHOT_BYTES to, at its position.
+     * @since 1.0
+     */
+    public void writeSnapshot(ByteBuffer buffer) {
+        board.writeSnapshot(buffer);
+        buffer.put((byte) (isBlackTurn ? 1 : 0));
+    }
+
+    /**
+     * Method to read a position written by writeSnapshot.
+     *
+     * @param buffer Buffer to read SNAPSHOT_BYTES from, at its position.
+     * @return Game continuing from that position.
+     * @throws IllegalArgumentException If the bytes aren't a valid position.
+     * @since 1.0
+     */
+    public static Game readSnapshot(ByteBuffer buffer) {
+        BoardState board = BoardState.readSnapshot(buffer);
+        byte side = buffer.get();
+        if (side != 0 && side != 1) {
+            throw new IllegalArgumentException("Unknown side to move in snapshot: " + side);
+        }
+        return new Game(board, side == 1);
+    }
+
+    /**
+     * Accessor method for the side to move.
+     *
+     * @return True if it is black's turn, false if it is white's.
+     * @since 1.0
+     */
+    public boolean isBlackTurn() {
+        return isBlackTurn;
+    }
+
+    /**
+     * Accessor method for the board. Callers should not change it directly.
+     *
+     * @return BoardState of this game.
+     * @since 1.0
+     */
+    public BoardState getBoard() {
+        return board;
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Class for reading a game archive written by GameRecordWriter.
+ * The archive and its index are memory-mapped, and moves are read straight out of the mapping,
+ * so streaming through an archive copies nothing and allocates nothing per game.
+ * The reader works like a cursor: call next() or seek() to move to a game, then read that game's moves.
+ * A single archive file is limited to 2 GB, so large collections should be split over several files.
+ * An instance should only be used by one thread at a time.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class GameRecordReader implements Closeable {
+    /**
+     * Mapping of the whole archive.
+     */
+    private final MappedByteBuffer data;
+    /**
+     * Mapping of the index, or null if there is no index file.
+     */
+    private final MappedByteBuffer index;
+    /**
+     * Number of games in the archive.
+     */
+    private final long count;
+    /**
+     * Offset of the current record, or -1 before the first call to next() or seek().
+     */
+    private int current = -1;
+
+    /**
+     * Constructor method. Maps the archive and its index, if there is one.
+     * Without an index, next() still works, but seek() has to scan from the start.
+     *
+     * @param path Path of the archive.
+     * @throws IOException If the archive can't be read, is too big to map, or isn't a game archive.
+     * @since 1.0
+     */
+    public GameRecordReader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive is over 2 GB, split it into several files: " + path);
+            }
+            // a mapping stays valid after its channel is closed
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.limit() < GameRecordWriter.FILE_HEADER || data.getInt(0) != GameRecordWriter.MAGIC) {
+            throw new IOException("Not a game archive: " + path);
+        }
+
+        Path indexPath = GameRecordWriter.indexPath(path);
+        if (Files.exists(indexPath)) {
+            try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+                // a partly written last entry is ignored
+                index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size() & ~7L);
+            }
+            index.order(ByteOrder.LITTLE_ENDIAN);
+            count = index.limit() / 8;
+        } else {
+            index = null;
+            long games = 0;
+            while (next()) {
+                games++;
+            }
+            count = games;
+            current = -1;
+        }
+    }
+
+    /**
+     * Accessor method for the number of games in the archive.
+     *
+     * @return Number of games.
+     * @since 1.0
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Method to move to the next game.
+     *
+     * @return True if there was another complete game, false at the end of the archive.
+     * @since 1.0
+     */
+    public boolean next() {
+        int next = current < 0 ? GameRecordWriter.FILE_HEADER : current + GameRecordWriter.RECORD_HEADER + moveCount();
+        // a record cut off by a crash while writing counts as the end
+        if (next + GameRecordWriter.RECORD_HEADER > data.limit()
+                || next + GameRecordWriter.RECORD_HEADER + (data.get(next) & 0xFF) > data.limit()) {
+            return false;
+        }
+        current = next;
+        return true;
+    }
+
+    /**
+     * Method to move to the Nth game.
+     *
+     * @param n Index of the game, starting from 0.
+     * @throws IndexOutOfBoundsException If there is no such game.
+     * @since 1.0
+     */
+    public void seek(long n) {
+        if (n < 0 || n >= count) {
+            throw new IndexOutOfBoundsException("No game " + n + " in an archive of " + count);
+        }
+        if (index != null) {
+            current = (int) index.getLong((int) (n * 8));
+            return;
+        }
+        current = -1;
+        for (long i = 0; i <= n; i++) {
+            next();
+        }
+    }
+
+    /**
+     * Accessor method for the number of moves in the current game, passes included.
+     *
+     * @return Number of moves.
+     * @since 1.0
+     */
+    public int moveCount() {
+        return data.get(current) & 0xFF;
+    }
+
+    /**
+     * Accessor method for the result of the current game.
+     *
+     * @return Final black discs minus white discs.
+     * @since 1.0
+     */
+    public int result() {
+        return data.get(current + 1);
+    }
+
+    /**
+     * Accessor method for one move of the current game.
+     *
+     * @param i Index of the move, starting from 0.
+     * @return Move as row * 8 + col, or Game.PASS.
+     * @since 1.0
+     */
+    public int move(int i) {
+        int move = data.get(current + GameRecordWriter.RECORD_HEADER + i);
+        return move == GameRecordWriter.PASS_BYTE ? Game.PASS : move;
+    }
+
+    /**
+     * Method to play the current game through from the start.
+     *
+     * @param moves Number of moves to play, e.g. moveCount() for the final position.
+     * @return Game after that many moves.
+     * @throws IllegalArgumentException If the record contains an illegal move.
+     * @throws IllegalStateException    If the record passes when a move was available.
+     * @since 1.0
+     */
+    public Game replay(int moves) {
+        Game game = new Game();
+        for (int i = 0; i < moves; i++) {
+            int move = move(i);
+            if (move == Game.PASS) {
+                game.pass();
+            } else {
+                game.play(move);
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Method to close the reader. The mappings are released once they are garbage collected.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void close() {
+        current = -1;
+    }
+}
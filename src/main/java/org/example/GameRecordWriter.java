@@ -0,0 +1,296 @@
+/**
+ * Class for appending finished games to a compact binary archive.
+ *
+ * The archive file starts with an 8 byte header: the magic "URGR", a 2 byte version and 2 reserved bytes.
+ * Each game is then a 4 byte record header followed by one byte per move:
+ *   byte 0 - number of moves, passes included
+ *   byte 1 - final black discs minus white discs, signed
+ *   bytes 2 and 3 - reserved, 0
+ *   then each move as row * 8 + col, or PASS_BYTE for a pass.
+ * Games always start from the usual starting position with white to move.
+ *
+ * Alongside the archive, an index file (archive name + ".idx") holds the 8 byte offset of every record,
+ * so the reader can jump straight to the Nth game. Both files are only ever appended to.
+ * If a crash leaves a torn record or index entry at the end, it is repaired when the archive is next opened.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class GameRecordWriter implements Closeable {
+    /**
+     * Magic number at the start of every archive, "URGR" in ASCII.
+     */
+    static final int MAGIC = 0x55524752;
+    /**
+     * Format version written to the file header.
+     */
+    static final short VERSION = 1;
+    /**
+     * Size of the file header in bytes.
+     */
+    static final int FILE_HEADER = 8;
+    /**
+     * Size of each record header in bytes.
+     */
+    static final int RECORD_HEADER = 4;
+    /**
+     * Byte used for a pass in the move list.
+     */
+    public static final byte PASS_BYTE = 64;
+    /**
+     * Most moves a record can hold. 60 squares plus passes never gets near this.
+     */
+    public static final int MAX_MOVES = 255;
+    /**
+     * Channel for the archive.
+     */
+    private final FileChannel records;
+    /**
+     * Channel for the index.
+     */
+    private final FileChannel index;
+    /**
+     * Reusable buffer for one record. Appends are synchronized, so one buffer is enough.
+     */
+    private final ByteBuffer recordBuffer = ByteBuffer.allocateDirect(RECORD_HEADER + MAX_MOVES);
+    /**
+     * Reusable buffer for one index entry.
+     */
+    private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(8).order(ByteOrder.LITTLE_ENDIAN);
+    /**
+     * Offset the next record will be written at.
+     */
+    private long offset;
+
+    /**
+     * Constructor method. Opens an archive for appending, creating it if needed.
+     *
+     * @param path Path of the archive. The index goes next to it.
+     * @throws IOException If the files can't be opened, or the archive isn't a game archive.
+     * @since 1.0
+     */
+    public GameRecordWriter(Path path) throws IOException {
+        records = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        index = FileChannel.open(indexPath(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+
+        if (records.size() < FILE_HEADER) {
+            // new, or a header torn by a crash while it was being created
+            records.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += records.write(header, position);
+            }
+            index.truncate(0);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            records.read(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                records.close();
+                index.close();
+                throw new IOException("Not a game archive: " + path);
+            }
+        }
+        try {
+            recover();
+        } catch (IOException e) {
+            records.close();
+            index.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Method to repair the end of an archive left by a crash, so appends carry on after the last whole game.
+     * A torn index entry is dropped, whole records the index missed are indexed, and a torn record is cut off.
+     *
+     * @throws IOException If the files can't be read, written or truncated.
+     * @since 1.0
+     */
+    private void recover() throws IOException {
+        long size = records.size();
+        long games = index.size() / 8;
+        index.truncate(games * 8);
+
+        // the end of the last indexed record, dropping entries that point past the end of the archive
+        long end = FILE_HEADER;
+        while (games > 0) {
+            long last = readIndex(games - 1);
+            int count = moveCount(last, size);
+            if (last >= FILE_HEADER && count >= 0 && last + RECORD_HEADER + count <= size) {
+                end = last + RECORD_HEADER + count;
+                break;
+            }
+            games--;
+        }
+        index.truncate(games * 8);
+        index.position(games * 8);
+
+        // whole records written after the last index entry
+        int count;
+        while ((count = moveCount(end, size)) >= 0 && end + RECORD_HEADER + count <= size) {
+            indexBuffer.clear();
+            indexBuffer.putLong(end).flip();
+            while (indexBuffer.hasRemaining()) {
+                index.write(indexBuffer);
+            }
+            end += RECORD_HEADER + count;
+        }
+        records.truncate(end);
+        offset = end;
+    }
+
+    /**
+     * Method to read the number of moves in the record at an offset.
+     *
+     * @param recordOffset Offset of the record.
+     * @param size         Size of the archive.
+     * @return Number of moves, or -1 if the record header doesn't fit before the end of the archive.
+     * @throws IOException If the archive can't be read.
+     * @since 1.0
+     */
+    private int moveCount(long recordOffset, long size) throws IOException {
+        if (recordOffset < 0 || recordOffset + RECORD_HEADER > size) {
+            return -1;
+        }
+        recordBuffer.clear().limit(1);
+        if (records.read(recordBuffer, recordOffset) < 1) {
+            return -1;
+        }
+        return recordBuffer.get(0) & 0xFF;
+    }
+
+    /**
+     * Method to read one entry of the index.
+     *
+     * @param game Index of the game.
+     * @return Offset of its record.
+     * @throws IOException If the index can't be read or ends early.
+     * @since 1.0
+     */
+    private long readIndex(long game) throws IOException {
+        indexBuffer.clear();
+        while (indexBuffer.hasRemaining()) {
+            if (index.read(indexBuffer, game * 8 + indexBuffer.position()) < 0) {
+                throw new IOException("Index ends early");
+            }
+        }
+        return indexBuffer.getLong(0);
+    }
+
+    /**
+     * Method to get the index file that goes with an archive.
+     *
+     * @param path Path of the archive.
+     * @return Path of its index.
+     * @since 1.0
+     */
+    public static Path indexPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".idx");
+    }
+
+    /**
+     * Method to add a game to the end of the archive. Safe to call from several threads.
+     *
+     * @param moves  Moves in the order played, as row * 8 + col or Game.PASS.
+     * @param count  Number of moves to use from the array.
+     * @param result Final black discs minus white discs.
+     * @throws IOException If writing fails.
+     * @since 1.0
+     */
+    public synchronized void append(int[] moves, int count, int result) throws IOException {
+        if (count > MAX_MOVES) {
+            throw new IllegalArgumentException("Too many moves for one record: " + count);
+        }
+        recordBuffer.clear();
+        recordBuffer.put((byte) count).put((byte) result).put((byte) 0).put((byte) 0);
+        for (int i = 0; i < count; i++) {
+            recordBuffer.put(moves[i] == Game.PASS ? PASS_BYTE : (byte) moves[i]);
+        }
+        recordBuffer.flip();
+        long recordOffset = offset;
+        while (recordBuffer.hasRemaining()) {
+            offset += records.write(recordBuffer, offset);
+        }
+
+        // the index is written after the record, so an index entry always points at a whole record
+        indexBuffer.clear();
+        indexBuffer.putLong(recordOffset).flip();
+        while (indexBuffer.hasRemaining()) {
+            index.write(indexBuffer);
+        }
+    }
+
+    /**
+     * Accessor method for the number of games in the archive.
+     *
+     * @return Number of games, counted from the index.
+     * @throws IOException If the index size can't be read.
+     * @since 1.0
+     */
+    public synchronized long size() throws IOException {
+        return index.size() / 8;
+    }
+
+    /**
+     * Method to cut the archive back to its first games, e.g. to drop games played after a job's last snapshot
+     * so resuming the job doesn't record them twice.
+     *
+     * @param games Number of games to keep. Nothing happens if the archive has no more than this.
+     * @throws IOException If the files can't be read or truncated.
+     * @since 1.0
+     */
+    public synchronized void truncate(long games) throws IOException {
+        if (games < 0) {
+            throw new IllegalArgumentException("Games to keep can't be negative: " + games);
+        }
+        if (games >= size()) {
+            return;
+        }
+        offset = readIndex(games);
+        records.truncate(offset);
+        index.truncate(games * 8);
+        index.position(games * 8);
+    }
+
+    /**
+     * Method to make sure everything appended so far is on disk.
+     *
+     * @throws IOException If flushing fails.
+     * @since 1.0
+     */
+    public synchronized void flush() throws IOException {
+        records.force(false);
+        index.force(false);
+    }
+
+    /**
+     * Method to close the archive.
+     *
+     * @throws IOException If closing fails.
+     * @since 1.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            records.close();
+        } finally {
+            index.close();
+        }
+    }
+}
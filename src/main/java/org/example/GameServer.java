@@ -0,0 +1,550 @@
+/**
+ * TCP server hosting many games at once, one per connection.
+ * A single selector thread reads and writes every connection, so thousands of idle sessions cost
+ * a few buffers each rather than a thread each. AI moves run on a fixed pool of worker threads with a bounded queue,
+ * and requests that don't fit in the queue are turned away instead of piling up.
+ *
+ * The protocol is one ASCII command per line, and one reply line per command:
+ * <pre>
+ * NEW          start a new game                 OK position
+ * MOVE square  play a square, row * 8 + col     OK position
+ * PASS         pass, if there is nothing to play OK position
+ * AI           let the server move              OK position move
+ * BOARD        show the position                OK position
+ * QUIT         close the connection
+ * </pre>
+ * Positions are in the format of Game.toString. Anything wrong gets "ERR reason" and leaves the game as it was.
+ *
+ * Usage: GameServer [port] [threads] [queue] [player]
+ * The player is any Tournament player name, "greedy" by default. Each worker thread gets its own.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class GameServer implements Runnable, Closeable {
+    /**
+     * Port the server listens on by default.
+     */
+    public static final int DEFAULT_PORT = 7878;
+    /**
+     * Longest command accepted, in bytes. Longer lines close the connection.
+     */
+    private static final int MAX_LINE = 256;
+
+    /**
+     * Selector watching the listening socket and every session.
+     */
+    private final Selector selector;
+    /**
+     * Listening socket.
+     */
+    private final ServerSocketChannel server;
+    /**
+     * Worker threads for AI moves.
+     */
+    private final ThreadPoolExecutor pool;
+    /**
+     * AI player for each worker thread, since players keep state between moves.
+     */
+    private final ThreadLocal<Player> players;
+    /**
+     * Work handed back to the selector thread by the workers, e.g. finished AI moves.
+     */
+    private final ConcurrentLinkedQueue<Runnable> completed = new ConcurrentLinkedQueue<>();
+    /**
+     * Number of sessions currently open.
+     */
+    private int sessions;
+    /**
+     * Boolean set to true once the server has been asked to stop.
+     */
+    private volatile boolean closed;
+    /**
+     * Boolean set to true while run is serving connections, when only the selector thread may close them.
+     */
+    private volatile boolean running;
+
+    /**
+     * Constructor method. Binds the listening socket straight away, so connections can be made before run is called.
+     *
+     * @param address Address to listen on. Port 0 picks any free port.
+     * @param threads Number of AI worker threads.
+     * @param queue   Number of AI moves that can wait for a worker before more are turned away.
+     * @param player  Makes the AI player for each worker thread.
+     * @throws IOException If the socket can't be opened.
+     * @since 1.0
+     */
+    public GameServer(InetSocketAddress address, int threads, int queue, Supplier<Player> player) throws IOException {
+        if (threads <= 0 || queue <= 0) {
+            throw new IllegalArgumentException("Threads and queue must be positive");
+        }
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue), r -> {
+            Thread t = new Thread(r, "server-ai");
+            t.setDaemon(true);
+            return t;
+        });
+        players = ThreadLocal.withInitial(player);
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args Command-line arguments, see the class description.
+     * @since 1.0
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queue = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        String player = args.length > 3 ? args[3] : "greedy";
+
+        try (GameServer server = new GameServer(new InetSocketAddress(port), threads, queue,
+                Tournament.strategy(player, System.nanoTime()))) {
+            System.out.printf("Listening on port %d with %d AI threads (%s)%n", server.getPort(), threads, player);
+            server.run();
+        }
+    }
+
+    /**
+     * Method to serve connections until the server is closed.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void run() {
+        running = true;
+        try {
+            while (!closed) {
+                selector.select();
+                Runnable task;
+                while ((task = completed.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Session session = (Session) key.attachment();
+                            if (key.isReadable()) {
+                                session.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                session.write();
+                            }
+                        }
+                    } catch (IOException e) {
+                        // a broken connection only ends its own session
+                        if (key.attachment() instanceof Session session) {
+                            session.close();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Selector failed", e);
+        } finally {
+            running = false;
+            release();
+        }
+    }
+
+    /**
+     * Method to stop the server and close every session.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pool.shutdownNow();
+        if (running) {
+            // the selector thread closes everything on its way out
+            selector.wakeup();
+        } else {
+            release();
+        }
+    }
+
+    /**
+     * Method to close the listening socket, every session and the selector.
+     *
+     * @since 1.0
+     */
+    private synchronized void release() {
+        if (!selector.isOpen()) {
+            return;
+        }
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // keep closing the rest
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // nothing more to do with a selector that won't close
+        }
+    }
+
+    /**
+     * Accessor method for the port the server is listening on.
+     *
+     * @return Port number.
+     * @since 1.0
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Accessor method for the number of sessions open. Only accurate on the selector thread.
+     *
+     * @return Number of sessions.
+     * @since 1.0
+     */
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Method to accept a new connection and give it a session.
+     *
+     * @throws IOException If the connection can't be set up.
+     * @since 1.0
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Session(channel, key));
+        sessions++;
+    }
+
+    /**
+     * Class holding one connection and the game played over it.
+     * Only the selector thread touches a session, workers get a copy of the game and hand their move back.
+     */
+    private final class Session {
+        /**
+         * Connection to the client.
+         */
+        private final SocketChannel channel;
+        /**
+         * Selection key of the connection.
+         */
+        private final SelectionKey key;
+        /**
+         * Bytes read but not yet split into lines.
+         */
+        private final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        /**
+         * Replies waiting to be written.
+         */
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        /**
+         * Game played in this session.
+         */
+        private Game game = new Game();
+        /**
+         * Boolean set to true while an AI move is being worked out, when the game must not change.
+         */
+        private boolean thinking;
+        /**
+         * Boolean set to true once the session has been closed.
+         */
+        private boolean closed;
+
+        /**
+         * Constructor method.
+         *
+         * @param channel Connection to the client.
+         * @param key     Selection key of the connection.
+         * @since 1.0
+         */
+        Session(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        /**
+         * Method to read whatever has arrived and run every complete command.
+         *
+         * @throws IOException If the connection is broken.
+         * @since 1.0
+         */
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            int start = 0;
+            for (int i = in.position(); i < in.limit(); i++) {
+                if (in.get(i) == '\n') {
+                    String line = new String(in.array(), start, i - start, StandardCharsets.US_ASCII).trim();
+                    start = i + 1;
+                    handle(line);
+                    if (closed) {
+                        return;
+                    }
+                }
+            }
+            in.position(start);
+            in.compact();
+            if (!in.hasRemaining()) {
+                close();
+            }
+        }
+
+        /**
+         * Method to write as many waiting replies as the connection will take.
+         *
+         * @throws IOException If the connection is broken.
+         * @since 1.0
+         */
+        void write() throws IOException {
+            while (!out.isEmpty()) {
+                ByteBuffer buffer = out.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                out.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Method to queue a reply line, writing it straight away if nothing is waiting ahead of it.
+         *
+         * @param line Reply, without the line ending.
+         * @since 1.0
+         */
+        void send(String line) {
+            if (closed) {
+                return;
+            }
+            out.add(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII)));
+            if (out.size() == 1) {
+                try {
+                    write();
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        /**
+         * Method to close the connection. Any AI move still being worked out is thrown away when it arrives.
+         *
+         * @since 1.0
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            sessions--;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing more to do with a connection that won't close
+            }
+        }
+
+        /**
+         * Method to run one command.
+         *
+         * @param line Command, without the line ending.
+         * @since 1.0
+         */
+        void handle(String line) {
+            String[] parts = line.split("\\s+");
+            String command = parts[0].toUpperCase();
+            if (command.equals("QUIT")) {
+                close();
+                return;
+            }
+            if (thinking && !command.equals("BOARD")) {
+                send("ERR busy, waiting for the AI move");
+                return;
+            }
+            switch (command) {
+                case "NEW":
+                    game = new Game();
+                    send("OK " + game);
+                    break;
+                case "BOARD":
+                    send("OK " + game);
+                    break;
+                case "MOVE":
+                    if (parts.length != 2) {
+                        send("ERR usage: MOVE square");
+                    } else {
+                        move(parts[1]);
+                    }
+                    break;
+                case "PASS":
+                    if (game.legalMoves() != 0) {
+                        send("ERR cannot pass while a move is available");
+                    } else if (game.isTerminal()) {
+                        send("ERR game over");
+                    } else {
+                        game.pass();
+                        send("OK " + game);
+                    }
+                    break;
+                case "AI":
+                    think();
+                    break;
+                default:
+                    send("ERR unknown command: " + parts[0]);
+            }
+        }
+
+        /**
+         * Method to check and play a move sent by the client.
+         *
+         * @param text Square as row * 8 + col.
+         * @since 1.0
+         */
+        void move(String text) {
+            int square;
+            try {
+                square = Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                send("ERR not a square: " + text);
+                return;
+            }
+            if (square < 0 || square > 63) {
+                send("ERR not a square: " + text);
+                return;
+            }
+
+            // countCapture works in view coordinates, so the black side's square is turned round first
+            boolean isBlack = game.isBlackTurn();
+            int viewSquare = isBlack ? Symmetry.square(square, Symmetry.ROTATE_180) : square;
+            if (game.getBoard().countCapture(viewSquare >> 3, viewSquare & 7, isBlack) == 0) {
+                send("ERR illegal move: " + square);
+                return;
+            }
+            game.play(square);
+            send("OK " + game);
+        }
+
+        /**
+         * Method to hand the position to a worker thread for an AI move.
+         * The reply is sent from the selector thread once the move comes back.
+         *
+         * @since 1.0
+         */
+        void think() {
+            if (game.isTerminal()) {
+                send("ERR game over");
+                return;
+            }
+            Game copy = game.copy();
+            thinking = true;
+            try {
+                pool.execute(() -> {
+                    long start = Metrics.ENABLED ? System.nanoTime() : 0;
+                    try {
+                        int move = players.get().chooseMove(copy);
+                        if (Metrics.ENABLED) {
+                            Metrics.think(System.nanoTime() - start);
+                        }
+                        completed.add(() -> played(move));
+                    } catch (RuntimeException e) {
+                        // the client is still waiting, so it has to hear something
+                        completed.add(() -> failed(e));
+                    }
+                    selector.wakeup();
+                });
+            } catch (RejectedExecutionException e) {
+                thinking = false;
+                send("ERR busy, too many AI moves waiting");
+            }
+        }
+
+        /**
+         * Method to play an AI move once a worker has chosen it. Runs on the selector thread.
+         *
+         * @param move Square chosen, or Game.PASS.
+         * @since 1.0
+         */
+        void played(int move) {
+            thinking = false;
+            if (closed) {
+                return;
+            }
+            if (move == Game.PASS) {
+                game.pass();
+            } else {
+                game.play(move);
+            }
+            if (game.isTerminal()) {
+                Metrics.game();
+            }
+            send("OK " + game + " " + move);
+        }
+
+        /**
+         * Method to report an AI move that failed, leaving the game as it was. Runs on the selector thread.
+         *
+         * @param e What the player threw.
+         * @since 1.0
+         */
+        void failed(RuntimeException e) {
+            thinking = false;
+            if (closed) {
+                return;
+            }
+            // just the type, a message could hold a line break and split the reply
+            send("ERR AI move failed: " + e.getClass().getSimpleName());
+        }
+    }
+}
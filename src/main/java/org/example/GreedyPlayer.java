@@ -0,0 +1,102 @@
+/**
+ * Greedy AI. Only looks one move ahead.
+ * By default it plays whichever move captures the most counters right now.
+ * Given an Evaluator, it instead plays the move that leaves the best-looking position.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public class GreedyPlayer implements Player {
+    /**
+     * Evaluation of the position after each move, or null to count captures instead.
+     */
+    private final Evaluator evaluator;
+
+    /**
+     * Constructor method. Plays the move that captures the most counters.
+     *
+     * @since 1.0
+     */
+    public GreedyPlayer() {
+        this(null);
+    }
+
+    /**
+     * Constructor method.
+     *
+     * @param evaluator Evaluation of the position after each move, or null to count captures instead.
+     * @since 1.0
+     */
+    public GreedyPlayer(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Method to choose the best move by a one-move look-ahead.
+     * Spaces are checked in the order the side to move sees them,
+     * and subsequent spaces of equal value are ignored,
+     * hence the first occurrence of the highest value will always be played.
+     *
+     * @param game Game to choose a move in.
+     * @return Square to play as row * 8 + col, or Game.PASS if there is no legal move.
+     * @since 1.0
+     */
+    @Override
+    public int chooseMove(Game game) {
+        if (evaluator != null) {
+            return chooseEvaluated(game);
+        }
+        boolean isBlack = game.isBlackTurn();
+        BoardState board = game.getBoard();
+
+        int highest = 0;
+        int best = Game.PASS;
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                // countCapture handles the black view being upside-down for us
+                int curr = board.countCapture(i, j, isBlack);
+                if (curr > highest) {
+                    highest = curr;
+                    best = isBlack ? Symmetry.square(i * 8 + j, Symmetry.ROTATE_180) : i * 8 + j;
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Method to choose the move after which the evaluation is best for the side to move.
+     *
+     * @param game Game to choose a move in.
+     * @return Square to play as row * 8 + col, or Game.PASS if there is no legal move.
+     * @since 1.0
+     */
+    private int chooseEvaluated(Game game) {
+        boolean isBlack = game.isBlackTurn();
+        long own = game.getBoard().getBitboard(isBlack);
+        long opp = game.getBoard().getBitboard(!isBlack);
+
+        int highest = Integer.MIN_VALUE;
+        int best = Game.PASS;
+        for (int i = 0; i < 64; i++) {
+            // same scan order as the capture count, as the side to move sees the board
+            int move = isBlack ? 63 - i : i;
+            if ((game.legalMoves() & (1L << move)) == 0) {
+                continue;
+            }
+            long flipped = Bitboard.flips(own, opp, move);
+            // the evaluation is from the opponent's point of view once the move is made
+            int curr = -evaluator.evaluate(opp & ~flipped, own | flipped | (1L << move));
+            if (curr > highest) {
+                highest = curr;
+                best = move;
+            }
+        }
+        return best;
+    }
+}
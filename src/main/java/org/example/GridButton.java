@@ -123,7 +123,11 @@ public class GridButton extends JButton {
      * @since 1.0
      */
     public void setState(int inState) {
-        state = inState;
+        // only this space needs redrawing, and only if it changed
+        if (state != inState) {
+            state = inState;
+            repaint();
+        }
     }
 
 }
\ No newline at end of file
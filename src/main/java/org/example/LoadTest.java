@@ -0,0 +1,330 @@
+/**
+ * Load test for GameServer. Opens many sessions at once from a single selector thread, and in each one
+ * plays white with random moves while the server's AI plays black, starting a new game whenever one ends.
+ * Every request is timed from sending the command to reading the reply, and the report gives the
+ * median and 99th percentile for the client's own moves and for AI moves separately.
+ *
+ * Usage: LoadTest [host] [port] [sessions] [seconds]
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+public class LoadTest {
+    /**
+     * Longest reply expected, in bytes.
+     */
+    private static final int MAX_LINE = 256;
+
+    /**
+     * Server address.
+     */
+    private final InetSocketAddress address;
+    /**
+     * Number of sessions to open.
+     */
+    private final int sessions;
+    /**
+     * How long to keep sending requests for, in milliseconds.
+     */
+    private final long duration;
+    /**
+     * Time taken by each MOVE or PASS request, in nanoseconds.
+     */
+    private final Latencies moveLatencies = new Latencies();
+    /**
+     * Time taken by each AI request, in nanoseconds.
+     */
+    private final Latencies aiLatencies = new Latencies();
+    /**
+     * Random moves for the client side.
+     */
+    private final SplittableRandom random = new SplittableRandom(1);
+    /**
+     * Number of games finished.
+     */
+    private long games;
+    /**
+     * Number of requests the server turned away or refused.
+     */
+    private long errors;
+
+    /**
+     * Constructor method.
+     *
+     * @param address  Server address.
+     * @param sessions Number of sessions to open.
+     * @param duration How long to keep sending requests for, in milliseconds.
+     * @since 1.0
+     */
+    public LoadTest(InetSocketAddress address, int sessions, long duration) {
+        if (sessions <= 0 || duration <= 0) {
+            throw new IllegalArgumentException("Sessions and duration must be positive");
+        }
+        this.address = address;
+        this.sessions = sessions;
+        this.duration = duration;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args Command-line arguments, see the class description.
+     * @since 1.0
+     */
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        LoadTest test = new LoadTest(new InetSocketAddress(host, port), sessions, seconds * 1000L);
+        test.run();
+        System.out.println(test.report());
+    }
+
+    /**
+     * Method to open every session and play until the time is up.
+     * Requests already sent when time runs out are waited for, so every latency is complete.
+     *
+     * @throws IOException If a connection can't be made.
+     * @since 1.0
+     */
+    public void run() throws IOException {
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < sessions; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, new Client(channel));
+            }
+
+            long deadline = System.nanoTime() + duration * 1_000_000L;
+            int open = sessions;
+            while (open > 0) {
+                selector.select(100);
+                boolean sending = System.nanoTime() - deadline < 0;
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Client client = (Client) key.attachment();
+                    if (key.isConnectable()) {
+                        client.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                        client.send("NEW", null);
+                    } else if (key.isReadable() && !client.read(sending)) {
+                        key.cancel();
+                        client.channel.close();
+                        open--;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Method to describe the results.
+     *
+     * @return Requests answered OK, games, errors and latency percentiles of the requests answered OK.
+     * @since 1.0
+     */
+    public String report() {
+        double seconds = duration / 1000.0;
+        long requests = moveLatencies.size + aiLatencies.size;
+        return String.format("%d sessions, %d requests (%.0f/s), %d games (%.1f/s), %d errors%n"
+                        + "move  %s%n"
+                        + "ai    %s",
+                sessions, requests, requests / seconds, games, games / seconds, errors,
+                moveLatencies, aiLatencies);
+    }
+
+    /**
+     * Class holding one connection to the server and the request waiting on it.
+     */
+    private final class Client {
+        /**
+         * Connection to the server.
+         */
+        private final SocketChannel channel;
+        /**
+         * Bytes read but not yet split into lines.
+         */
+        private final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        /**
+         * Last command sent, so a turned away request can be sent again.
+         */
+        private String command;
+        /**
+         * Where the latency of the request waiting for a reply goes, or null to not time it.
+         */
+        private Latencies latencies;
+        /**
+         * System.nanoTime when the request waiting for a reply was sent.
+         */
+        private long sent;
+
+        /**
+         * Constructor method.
+         *
+         * @param channel Connection to the server.
+         * @since 1.0
+         */
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Method to send a command.
+         * Commands are a few bytes, so a fresh socket always takes the whole command at once.
+         *
+         * @param command   Command, without the line ending.
+         * @param latencies Where to record how long the reply takes, or null to not time it.
+         * @throws IOException If the connection is broken.
+         * @since 1.0
+         */
+        void send(String command, Latencies latencies) throws IOException {
+            this.command = command;
+            this.latencies = latencies;
+            sent = System.nanoTime();
+            ByteBuffer buffer = ByteBuffer.wrap((command + "\n").getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        /**
+         * Method to read a reply and send the next request.
+         *
+         * @param sending Boolean set to true if there is still time to send another request.
+         * @return False once the session is finished with.
+         * @throws IOException If the connection is broken.
+         * @since 1.0
+         */
+        boolean read(boolean sending) throws IOException {
+            if (channel.read(in) < 0) {
+                return false;
+            }
+            int end = -1;
+            for (int i = 0; i < in.position(); i++) {
+                if (in.get(i) == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                return in.hasRemaining();
+            }
+            long now = System.nanoTime();
+            String line = new String(in.array(), 0, end, StandardCharsets.US_ASCII);
+            in.flip();
+            in.position(end + 1);
+            in.compact();
+
+            // an error reply comes back without doing the work, so it would flatter the latencies
+            boolean ok = line.startsWith("OK ");
+            if (!ok) {
+                errors++;
+            } else if (latencies != null) {
+                latencies.add(now - sent);
+            }
+            if (!sending) {
+                return false;
+            }
+            if (!ok) {
+                // a full server is asked again, anything else means the game went wrong, so start over
+                if (line.startsWith("ERR busy")) {
+                    send(command, latencies);
+                } else {
+                    send("NEW", null);
+                }
+                return true;
+            }
+
+            Game game = Game.fromString(line.substring(3, 69));
+            if (game.isTerminal()) {
+                games++;
+                send("NEW", null);
+            } else if (game.isBlackTurn()) {
+                send("AI", aiLatencies);
+            } else {
+                int move = RandomPlayer.pick(game.legalMoves(), random);
+                send(move == Game.PASS ? "PASS" : "MOVE " + move, moveLatencies);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Class collecting latencies to find percentiles at the end.
+     */
+    private static final class Latencies {
+        /**
+         * Latencies recorded so far, in nanoseconds.
+         */
+        private long[] values = new long[1024];
+        /**
+         * Number of latencies recorded.
+         */
+        private int size;
+
+        /**
+         * Method to record a latency.
+         *
+         * @param nanos Latency in nanoseconds.
+         * @since 1.0
+         */
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        /**
+         * Method to find a percentile.
+         *
+         * @param sorted   Latencies in ascending order.
+         * @param fraction Fraction of latencies that fall at or below the result, e.g. 0.99.
+         * @return Percentile in milliseconds.
+         * @since 1.0
+         */
+        private double percentile(long[] sorted, double fraction) {
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * fraction) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        /**
+         * Method to describe the latencies.
+         *
+         * @return Count, median, 99th percentile and maximum.
+         * @since 1.0
+         */
+        @Override
+        public String toString() {
+            if (size == 0) {
+                return "n 0";
+            }
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return String.format("n %d  p50 %.3f ms  p99 %.3f ms  max %.3f ms",
+                    size, percentile(sorted, 0.5), percentile(sorted, 0.99), sorted[size - 1] / 1e6);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 /**
  * Main class.
  *
+ * Usage: Main [size]
+ *   size is the number of rows and columns, even and from 6 to 16, default 8
+ *
  * @Project Ultimate reversi
  * @Author Medusa Dempsey
  * @Version 1.0
@@ -9,15 +12,53 @@
 
 package org.example;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.swing.SwingUtilities;
+
 public class Main {
+    /**
+     * Opening book loaded at startup if it exists, see OpeningBook.
+     */
+    private static final String BOOK_FILE = "book.bin";
+
     /**
      * Main method.
-     * Instantiates two views, one black and one white.
+     * Instantiates one game with two views, one black and one white.
      *
+     * @param args Optional board size, see the class description.
      * @since 1.0
      */
     public static void main(String[] args) {
-        new View(false).createGUI();
-        new View(true).createGUI();
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : BoardState.SIZE;
+        if (size != BoardState.SIZE) {
+            // the book and the search AIs only know the standard board
+            Model model = new SizedModel(size);
+            SwingUtilities.invokeLater(() -> {
+                new View(model, false).createGUI();
+                new View(model, true).createGUI();
+            });
+            return;
+        }
+
+        OpeningBook book = null;
+        Path bookPath = Paths.get(BOOK_FILE);
+        if (Files.exists(bookPath)) {
+            try {
+                book = OpeningBook.load(bookPath);
+            } catch (IOException e) {
+                System.err.println("Could not load opening book, playing without it: " + e.getMessage());
+            }
+        }
+
+        // swing components belong to the event thread, as do the AI moves played back on it
+        Model model = new Model(book);
+        SwingUtilities.invokeLater(() -> {
+            new View(model, false).createGUI();
+            new View(model, true).createGUI();
+        });
     }
 }
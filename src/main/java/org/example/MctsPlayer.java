@@ -0,0 +1,571 @@
+/**
+ * Monte Carlo tree search AI. Grows a tree of positions with UCT selection
+ * and scores new leaves by playing random games to the end.
+ *
+ * Nodes live in a pool of preallocated primitive arrays, indexed by node number, so growing the tree
+ * never creates objects and the pool is reused for every move. Rollouts run on bitboards with an
+ * xorshift random source and allocate nothing either.
+ *
+ * Several threads can search one tree at once (tree parallelism). Visit and win counts are updated
+ * atomically, and a thread walking down the tree adds a virtual loss to every node on its path,
+ * so the other threads are steered towards different lines until its rollout is counted.
+ *
+ * Usage: MctsPlayer [threads] [timeLimit] [nodes]
+ * Reports rollouts per second and memory per node on a fixed set of positions.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class MctsPlayer implements Player {
+    /**
+     * Default number of nodes in the pool.
+     */
+    public static final int DEFAULT_NODES = 1 << 20;
+    /**
+     * Smallest pool allowed: the root and a child for every square, so the root can always be expanded.
+     */
+    public static final int MIN_NODES = 1 + 64;
+    /**
+     * Bytes of pool used by each node, across all of the arrays.
+     */
+    public static final int BYTES_PER_NODE = 8 + 8 + 4 + 1 + 4 + 1 + 4 + 4 + 4;
+    /**
+     * Move value stored in a node reached by passing.
+     */
+    private static final byte PASS_MOVE = 64;
+    /**
+     * Visits added to each node on a thread's path while its rollout is running.
+     */
+    private static final int VIRTUAL_LOSS = 3;
+    /**
+     * Visits a leaf needs before it is expanded, so the pool isn't used up on nodes seen only once.
+     */
+    private static final int EXPAND_VISITS = 4;
+    /**
+     * Weight of the exploration term in UCT.
+     */
+    private static final double EXPLORATION = 1.0;
+    /**
+     * How many rollouts each thread does between checks of the clock.
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+    /**
+     * State of a node with no children yet.
+     */
+    private static final int UNEXPANDED = 0;
+    /**
+     * State of a node whose children are being added by some thread.
+     */
+    private static final int EXPANDING = 1;
+    /**
+     * State of a node whose children are ready.
+     */
+    private static final int EXPANDED = 2;
+    /**
+     * Mask of the side to move at each node.
+     */
+    private final long[] owns;
+    /**
+     * Mask of the opponent at each node.
+     */
+    private final long[] opps;
+    /**
+     * Parent of each node, -1 for the root.
+     */
+    private final int[] parents;
+    /**
+     * Move that led to each node, as row * 8 + col or PASS_MOVE.
+     */
+    private final byte[] moves;
+    /**
+     * First child of each node. A node's children are next to each other in the pool.
+     */
+    private final int[] firstChild;
+    /**
+     * Number of children of each node.
+     */
+    private final byte[] childCount;
+    /**
+     * Visits of each node, virtual losses included.
+     */
+    private final AtomicIntegerArray visits;
+    /**
+     * Points won by the side that moved into each node, 2 for a win and 1 for a draw.
+     */
+    private final AtomicIntegerArray wins;
+    /**
+     * UNEXPANDED, EXPANDING or EXPANDED for each node.
+     */
+    private final AtomicIntegerArray states;
+    /**
+     * Number of nodes in use.
+     */
+    private final AtomicInteger used = new AtomicInteger();
+    /**
+     * Time allowed per move in milliseconds.
+     */
+    private final long timeLimit;
+    /**
+     * Threads searching the tree, including the calling thread.
+     */
+    private final int threads;
+    /**
+     * Pool running the other threads, or null if there is only one.
+     */
+    private final ExecutorService pool;
+    /**
+     * Random state of each thread, carried over between moves.
+     */
+    private final long[] seeds;
+    /**
+     * Rollouts done by each thread in the last search.
+     */
+    private final long[] rollouts;
+    /**
+     * Time in System.nanoTime() at which the current search has to stop.
+     */
+    private long deadline;
+    /**
+     * Boolean set to true when the search should stop, once the deadline has passed or the pool is full.
+     */
+    private volatile boolean stopped;
+    /**
+     * Time taken by the last search, in nanoseconds.
+     */
+    private long lastNanos;
+    /**
+     * Share of points won by the chosen move in the last search.
+     */
+    private double lastWinRate;
+
+    /**
+     * Constructor method. Searches on the calling thread with the default pool size.
+     *
+     * @param timeLimit Time allowed per move in milliseconds.
+     * @since 1.0
+     */
+    public MctsPlayer(long timeLimit) {
+        this(timeLimit, 1, DEFAULT_NODES, 1);
+    }
+
+    /**
+     * Constructor method.
+     *
+     * @param timeLimit Time allowed per move in milliseconds.
+     * @param threads   Number of threads to search with, including the calling thread.
+     * @param nodes     Number of nodes in the pool, at least MIN_NODES. The search stops early if the pool
+     *                  fills up.
+     * @param seed      Seed for the rollouts.
+     * @throws IllegalArgumentException If the time limit or threads aren't positive, or the pool is too small.
+     * @since 1.0
+     */
+    public MctsPlayer(long timeLimit, int threads, int nodes, long seed) {
+        if (timeLimit <= 0 || threads <= 0 || nodes < MIN_NODES) {
+            throw new IllegalArgumentException("Time limit and threads must be positive, and the pool needs "
+                    + MIN_NODES + " nodes");
+        }
+        this.timeLimit = timeLimit;
+        this.threads = threads;
+        owns = new long[nodes];
+        opps = new long[nodes];
+        parents = new int[nodes];
+        moves = new byte[nodes];
+        firstChild = new int[nodes];
+        childCount = new byte[nodes];
+        visits = new AtomicIntegerArray(nodes);
+        wins = new AtomicIntegerArray(nodes);
+        states = new AtomicIntegerArray(nodes);
+
+        seeds = new long[threads];
+        rollouts = new long[threads];
+        for (int i = 0; i < threads; i++) {
+            // xorshift state must never be 0
+            seeds[i] = (seed + i) * 0x9E3779B97F4A7C15L | 1;
+        }
+        if (threads > 1) {
+            pool = Executors.newFixedThreadPool(threads - 1, r -> {
+                Thread t = new Thread(r, "mcts-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    /**
+     * Main method. Prints search speed and memory use on a fixed set of positions.
+     *
+     * @param args Optional thread count, time limit per position in milliseconds and pool size.
+     * @since 1.0
+     */
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long timeLimit = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        int nodes = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_NODES;
+
+        MctsPlayer player = new MctsPlayer(timeLimit, threads, nodes, 1);
+        List<Game> positions = SpeedupReport.positions();
+        System.out.printf("%d threads, %d ms per position, %,d node pool (%.1f MB, %d bytes per node)%n",
+                threads, timeLimit, nodes, (double) nodes * BYTES_PER_NODE / (1024 * 1024), BYTES_PER_NODE);
+        System.out.printf("%10s %14s %12s %10s%n", "move", "rollouts/s", "nodes", "win rate");
+        long totalRollouts = 0;
+        long totalNanos = 0;
+        try {
+            for (Game position : positions) {
+                int move = player.chooseMove(position);
+                totalRollouts += player.getRollouts();
+                totalNanos += player.lastNanos;
+                System.out.printf("%10s %,14d %,12d %10.3f%n", move == Game.PASS ? "pass" : Perft.squareName(move),
+                        player.getRolloutsPerSecond(), player.getNodes(), player.getWinRate());
+            }
+        } finally {
+            player.shutdown();
+        }
+        System.out.printf("average %,d rollouts/s%n", totalRollouts * 1_000_000_000L / Math.max(1, totalNanos));
+    }
+
+    /**
+     * Method to choose the most visited move after searching until the time limit.
+     *
+     * @param game Game to choose a move in.
+     * @return Square to play as row * 8 + col, or Game.PASS if there is no legal move.
+     * @since 1.0
+     */
+    @Override
+    public int chooseMove(Game game) {
+        long start = System.nanoTime();
+        deadline = start + timeLimit * 1_000_000L;
+        stopped = false;
+        Arrays.fill(rollouts, 0);
+
+        long legal = game.legalMoves();
+        if (Long.bitCount(legal) <= 1) {
+            lastNanos = System.nanoTime() - start;
+            lastWinRate = 0.5;
+            return legal == 0 ? Game.PASS : Long.numberOfTrailingZeros(legal);
+        }
+
+        // the pool is reused from the last move, only the slots that get reused need clearing
+        boolean isBlack = game.isBlackTurn();
+        used.set(0);
+        int root = newNodes(1);
+        initNode(root, -1, PASS_MOVE, game.getBoard().getBitboard(isBlack), game.getBoard().getBitboard(!isBlack));
+        expand(root);
+
+        Future<?>[] running = new Future<?>[threads];
+        for (int i = 1; i < threads; i++) {
+            int thread = i;
+            running[i] = pool.submit(() -> work(thread));
+        }
+        try {
+            work(0);
+        } finally {
+            stopped = true;
+            for (int i = 1; i < threads; i++) {
+                waitFor(running[i]);
+            }
+        }
+        lastNanos = System.nanoTime() - start;
+
+        int best = -1;
+        for (int i = 0; i < childCount[root]; i++) {
+            int child = firstChild[root] + i;
+            if (best < 0 || visits.get(child) > visits.get(best)) {
+                best = child;
+            }
+        }
+        if (best < 0) {
+            // the root couldn't be expanded, so there is nothing to go on
+            lastWinRate = 0.5;
+            return Long.numberOfTrailingZeros(legal);
+        }
+        lastWinRate = visits.get(best) == 0 ? 0.5 : wins.get(best) / (2.0 * visits.get(best));
+        return moves[best];
+    }
+
+    /**
+     * Method run by each thread: walk down the tree, expand, roll out and back up, until told to stop.
+     *
+     * @param thread Index of the thread, for its random state and rollout count.
+     * @since 1.0
+     */
+    private void work(int thread) {
+        long seed = seeds[thread];
+        long count = 0;
+        while (!stopped) {
+            // selection, with a virtual loss on every node on the way down
+            int node = 0;
+            visits.addAndGet(node, VIRTUAL_LOSS);
+            while (states.get(node) == EXPANDED && childCount[node] > 0) {
+                node = select(node);
+                visits.addAndGet(node, VIRTUAL_LOSS);
+            }
+
+            // expansion, once a leaf has been visited often enough, not counting this thread's virtual loss
+            if (states.get(node) == UNEXPANDED && visits.get(node) - VIRTUAL_LOSS >= EXPAND_VISITS && expand(node)
+                    && childCount[node] > 0) {
+                node = select(node);
+                visits.addAndGet(node, VIRTUAL_LOSS);
+            }
+
+            // rollout, scored from the point of view of the side to move at the leaf
+            long own = owns[node];
+            long opp = opps[node];
+            int sign = 1;
+            while (true) {
+                long legal = Bitboard.legalMoves(own, opp);
+                if (legal == 0) {
+                    if (Bitboard.legalMoves(opp, own) == 0) {
+                        break;
+                    }
+                    long swap = own;
+                    own = opp;
+                    opp = swap;
+                    sign = -sign;
+                    continue;
+                }
+                seed ^= seed << 13;
+                seed ^= seed >>> 7;
+                seed ^= seed << 17;
+                // pick the nth legal move by depositing a single bit into the nth set bit of the mask
+                int n = (int) (((seed >>> 32) * Long.bitCount(legal)) >>> 32);
+                int move = Long.numberOfTrailingZeros(Long.expand(1L << n, legal));
+                long flipped = Bitboard.flips(own, opp, move);
+                long next = opp & ~flipped;
+                opp = own | flipped | (1L << move);
+                own = next;
+                sign = -sign;
+            }
+            int points = 1 + sign * Integer.signum(Long.bitCount(own) - Long.bitCount(opp));
+
+            // backpropagation, swapping the virtual loss for the real result
+            // each node's wins belong to the side that moved into it, the opponent of its side to move
+            for (int n = node; n >= 0; n = parents[n]) {
+                wins.addAndGet(n, 2 - points);
+                visits.addAndGet(n, 1 - VIRTUAL_LOSS);
+                points = 2 - points;
+            }
+
+            if ((++count & (CLOCK_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() - deadline >= 0) {
+                stopped = true;
+            }
+        }
+        seeds[thread] = seed;
+        rollouts[thread] = count;
+    }
+
+    /**
+     * Method to pick the child with the best UCT value. Unvisited children come first.
+     *
+     * @param node Expanded node with at least one child.
+     * @return Chosen child.
+     * @since 1.0
+     */
+    private int select(int node) {
+        int first = firstChild[node];
+        int count = childCount[node];
+        double logVisits = Math.log(Math.max(1, visits.get(node)));
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + count; child++) {
+            int childVisits = visits.get(child);
+            if (childVisits == 0) {
+                return child;
+            }
+            double value = wins.get(child) / (2.0 * childVisits) + EXPLORATION * Math.sqrt(logVisits / childVisits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Method to add a node's children, unless another thread is already doing it.
+     * A node whose side to move has to pass gets a single pass child, and a finished game gets none.
+     *
+     * @param node Node to expand.
+     * @return True if this thread expanded the node.
+     * @since 1.0
+     */
+    private boolean expand(int node) {
+        if (!states.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+            return false;
+        }
+        long own = owns[node];
+        long opp = opps[node];
+        long legal = Bitboard.legalMoves(own, opp);
+        int count = legal != 0 ? Long.bitCount(legal) : Bitboard.legalMoves(opp, own) != 0 ? 1 : 0;
+
+        int first = count == 0 ? 0 : newNodes(count);
+        if (first < 0) {
+            // out of nodes, so the tree can't grow any more
+            stopped = true;
+            states.set(node, UNEXPANDED);
+            return false;
+        }
+        if (legal == 0 && count == 1) {
+            initNode(first, node, PASS_MOVE, opp, own);
+        }
+        for (int child = first; legal != 0; child++) {
+            int move = Long.numberOfTrailingZeros(legal);
+            legal &= legal - 1;
+            long flipped = Bitboard.flips(own, opp, move);
+            initNode(child, node, (byte) move, opp & ~flipped, own | flipped | (1L << move));
+        }
+        firstChild[node] = first;
+        childCount[node] = (byte) count;
+        // the volatile write publishes the children to threads that see the node as expanded
+        states.set(node, EXPANDED);
+        return true;
+    }
+
+    /**
+     * Method to take nodes from the pool.
+     *
+     * @param count Number of nodes, which will be next to each other.
+     * @return Index of the first node, or -1 if the pool is full.
+     * @since 1.0
+     */
+    private int newNodes(int count) {
+        int first = used.getAndAdd(count);
+        if (first + count > owns.length) {
+            used.addAndGet(-count);
+            return -1;
+        }
+        return first;
+    }
+
+    /**
+     * Method to set up a node taken from the pool.
+     *
+     * @since 1.0
+     */
+    private void initNode(int node, int parent, byte move, long own, long opp) {
+        owns[node] = own;
+        opps[node] = opp;
+        parents[node] = parent;
+        moves[node] = move;
+        childCount[node] = 0;
+        visits.set(node, 0);
+        wins.set(node, 0);
+        states.set(node, UNEXPANDED);
+    }
+
+    /**
+     * Method to wait for a worker to finish. Errors from workers are passed on to the caller.
+     *
+     * @param future Future of the worker.
+     * @since 1.0
+     */
+    private static void waitFor(Future<?> future) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("MCTS worker failed", e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method to end the current search early from another thread.
+     * The search plays the most visited move so far, as if the deadline had passed.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Method to stop the worker threads. The player can't be used after this.
+     *
+     * @since 1.0
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Accessor method for the number of rollouts played by every thread in the last search.
+     *
+     * @return Rollout count.
+     * @since 1.0
+     */
+    public long getRollouts() {
+        long total = 0;
+        for (long count : rollouts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Accessor method for the combined speed of every thread in the last search.
+     *
+     * @return Rollouts per second.
+     * @since 1.0
+     */
+    public long getRolloutsPerSecond() {
+        if (lastNanos == 0) {
+            return 0;
+        }
+        return getRollouts() * 1_000_000_000L / lastNanos;
+    }
+
+    /**
+     * Accessor method for the size of the tree built by the last search.
+     *
+     * @return Number of nodes used.
+     * @since 1.0
+     */
+    public int getNodes() {
+        return used.get();
+    }
+
+    /**
+     * Accessor method for the memory the node pool takes up.
+     *
+     * @return Size of the pool in bytes.
+     * @since 1.0
+     */
+    public long getPoolBytes() {
+        return (long) owns.length * BYTES_PER_NODE;
+    }
+
+    /**
+     * Accessor method for how well the chosen move did in the last search.
+     *
+     * @return Share of rollout points won by the chosen move, between 0 and 1.
+     * @since 1.0
+     */
+    public double getWinRate() {
+        return lastWinRate;
+    }
+}
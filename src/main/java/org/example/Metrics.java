@@ -0,0 +1,408 @@
+/**
+ * Opt-in counters and histograms for the engine's hot paths.
+ * Turned on with -Dreversi.metrics=true. When off, ENABLED is a constant false,
+ * so the JIT removes every recording call and the hot paths cost exactly what they did before.
+ *
+ * When on, counters are LongAdders, so threads searching in parallel each bump their own cell
+ * rather than fighting over one cache line. The metrics are registered with JMX as
+ * "org.example:type=Metrics", and a text snapshot is printed to standard error every
+ * reversi.metrics.interval seconds (default 10, 0 to turn printing off).
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public final class Metrics {
+    /**
+     * Whether metrics are recorded, read once from the reversi.metrics system property.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("reversi.metrics");
+    /**
+     * Name the metrics are registered under with JMX.
+     */
+    public static final String OBJECT_NAME = "org.example:type=Metrics";
+    /**
+     * Seconds between printed snapshots, from the reversi.metrics.interval system property.
+     */
+    private static final long INTERVAL = Long.getLong("reversi.metrics.interval", 10);
+
+    /**
+     * Calls to countCapture and captureCounters.
+     */
+    private static final LongAdder CAPTURE_CALLS = new LongAdder();
+    /**
+     * Nodes searched.
+     */
+    private static final LongAdder NODES = new LongAdder();
+    /**
+     * Transposition table probes.
+     */
+    private static final LongAdder TABLE_PROBES = new LongAdder();
+    /**
+     * Transposition table probes that found an entry.
+     */
+    private static final LongAdder TABLE_HITS = new LongAdder();
+    /**
+     * Games finished.
+     */
+    private static final LongAdder GAMES = new LongAdder();
+    /**
+     * Time taken to choose each move.
+     */
+    private static final Histogram THINK_TIME = new Histogram();
+    /**
+     * Time taken by each view update.
+     */
+    private static final Histogram VIEW_UPDATE = new Histogram();
+    /**
+     * System.nanoTime when the metrics were last reset, for rates.
+     */
+    private static volatile long resetTime = System.nanoTime();
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                System.err.println("Could not register metrics with JMX: " + e.getMessage());
+            }
+            if (INTERVAL > 0) {
+                ScheduledExecutorService printer = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "metrics");
+                    t.setDaemon(true);
+                    return t;
+                });
+                printer.scheduleAtFixedRate(() -> System.err.println(snapshot()), INTERVAL, INTERVAL, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Private constructor. This class only holds static methods.
+     *
+     * @since 1.0
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Method to count a call to countCapture or captureCounters.
+     *
+     * @since 1.0
+     */
+    public static void captureCall() {
+        if (ENABLED) {
+            CAPTURE_CALLS.increment();
+        }
+    }
+
+    /**
+     * Method to record a finished search.
+     * Searches count their own nodes and add them here once, so the search loop itself is untouched.
+     *
+     * @param nodes  Nodes searched.
+     * @param probes Transposition table probes made.
+     * @param hits   Probes that found an entry.
+     * @since 1.0
+     */
+    public static void search(long nodes, long probes, long hits) {
+        if (ENABLED) {
+            NODES.add(nodes);
+            TABLE_PROBES.add(probes);
+            TABLE_HITS.add(hits);
+        }
+    }
+
+    /**
+     * Method to record the time taken to choose a move.
+     *
+     * @param nanos Think time in nanoseconds.
+     * @since 1.0
+     */
+    public static void think(long nanos) {
+        if (ENABLED) {
+            THINK_TIME.record(nanos);
+        }
+    }
+
+    /**
+     * Method to record the time taken by a view update.
+     *
+     * @param nanos Update time in nanoseconds.
+     * @since 1.0
+     */
+    public static void viewUpdate(long nanos) {
+        if (ENABLED) {
+            VIEW_UPDATE.record(nanos);
+        }
+    }
+
+    /**
+     * Method to count a finished game.
+     *
+     * @since 1.0
+     */
+    public static void game() {
+        if (ENABLED) {
+            GAMES.increment();
+        }
+    }
+
+    /**
+     * Method to set every metric back to zero.
+     *
+     * @since 1.0
+     */
+    public static void reset() {
+        CAPTURE_CALLS.reset();
+        NODES.reset();
+        TABLE_PROBES.reset();
+        TABLE_HITS.reset();
+        GAMES.reset();
+        THINK_TIME.reset();
+        VIEW_UPDATE.reset();
+        resetTime = System.nanoTime();
+    }
+
+    /**
+     * Method to describe every metric as text.
+     *
+     * @return Snapshot, one line for the counters and one for each histogram.
+     * @since 1.0
+     */
+    public static String snapshot() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - resetTime) / 1e9);
+        long nodes = NODES.sum();
+        long probes = TABLE_PROBES.sum();
+        long games = GAMES.sum();
+        return String.format("metrics: captures %d  nodes %d (%.0f/s)  tt hits %.1f%% of %d  games %d (%.1f/s)%n"
+                        + "  think        %s%n"
+                        + "  view update  %s",
+                CAPTURE_CALLS.sum(), nodes, nodes / seconds,
+                probes == 0 ? 0.0 : 100.0 * TABLE_HITS.sum() / probes, probes, games, games / seconds,
+                THINK_TIME, VIEW_UPDATE);
+    }
+
+    /**
+     * Class counting nanosecond timings in power of two buckets, so recording is one add to a striped counter
+     * and percentiles are right to within a factor of 2.
+     */
+    private static final class Histogram {
+        /**
+         * Number of timings in each bucket. Bucket b holds timings below 2^b nanoseconds and at least half that.
+         */
+        private final LongAdder[] buckets = new LongAdder[64];
+        /**
+         * Sum of every timing, for the mean.
+         */
+        private final LongAdder total = new LongAdder();
+        /**
+         * Longest timing.
+         */
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Constructor method.
+         *
+         * @since 1.0
+         */
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Method to record a timing.
+         *
+         * @param nanos Timing in nanoseconds.
+         * @since 1.0
+         */
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets[Math.min(63, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        /**
+         * Accessor method for the number of timings recorded.
+         *
+         * @return Number of timings.
+         * @since 1.0
+         */
+        long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * Accessor method for the mean timing.
+         *
+         * @return Mean in milliseconds, or 0 if nothing has been recorded.
+         * @since 1.0
+         */
+        double meanMillis() {
+            long count = count();
+            return count == 0 ? 0 : total.sum() / 1e6 / count;
+        }
+
+        /**
+         * Accessor method for a percentile.
+         *
+         * @param fraction Fraction of timings that fall at or below the result, e.g. 0.99.
+         * @return Upper bound of the bucket holding the percentile, in milliseconds, or 0 if nothing has been recorded.
+         * @since 1.0
+         */
+        double percentileMillis(double fraction) {
+            long count = count();
+            if (count == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(count * fraction);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= target) {
+                    return Math.min((1L << i) - 1, max.get()) / 1e6;
+                }
+            }
+            return max.get() / 1e6;
+        }
+
+        /**
+         * Accessor method for the longest timing.
+         *
+         * @return Longest timing in milliseconds.
+         * @since 1.0
+         */
+        double maxMillis() {
+            return max.get() / 1e6;
+        }
+
+        /**
+         * Method to set the histogram back to empty.
+         *
+         * @since 1.0
+         */
+        void reset() {
+            for (LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+            total.reset();
+            max.reset();
+        }
+
+        /**
+         * Method to describe the histogram as text.
+         *
+         * @return Count, mean, percentiles and maximum.
+         * @since 1.0
+         */
+        @Override
+        public String toString() {
+            return String.format("n %d  mean %.3f ms  p50 %.3f ms  p99 %.3f ms  max %.3f ms",
+                    count(), meanMillis(), percentileMillis(0.5), percentileMillis(0.99), maxMillis());
+        }
+    }
+
+    /**
+     * Class exposing the metrics to JMX.
+     */
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public long getCaptureCalls() {
+            return CAPTURE_CALLS.sum();
+        }
+
+        @Override
+        public long getNodes() {
+            return NODES.sum();
+        }
+
+        @Override
+        public long getTableProbes() {
+            return TABLE_PROBES.sum();
+        }
+
+        @Override
+        public long getTableHits() {
+            return TABLE_HITS.sum();
+        }
+
+        @Override
+        public long getGames() {
+            return GAMES.sum();
+        }
+
+        @Override
+        public double getGamesPerSecond() {
+            return GAMES.sum() / Math.max(1e-9, (System.nanoTime() - resetTime) / 1e9);
+        }
+
+        @Override
+        public long getThinkCount() {
+            return THINK_TIME.count();
+        }
+
+        @Override
+        public double getThinkMeanMillis() {
+            return THINK_TIME.meanMillis();
+        }
+
+        @Override
+        public double getThinkP50Millis() {
+            return THINK_TIME.percentileMillis(0.5);
+        }
+
+        @Override
+        public double getThinkP99Millis() {
+            return THINK_TIME.percentileMillis(0.99);
+        }
+
+        @Override
+        public double getThinkMaxMillis() {
+            return THINK_TIME.maxMillis();
+        }
+
+        @Override
+        public long getViewUpdateCount() {
+            return VIEW_UPDATE.count();
+        }
+
+        @Override
+        public double getViewUpdateMeanMillis() {
+            return VIEW_UPDATE.meanMillis();
+        }
+
+        @Override
+        public double getViewUpdateP99Millis() {
+            return VIEW_UPDATE.percentileMillis(0.99);
+        }
+
+        @Override
+        public String getSnapshot() {
+            return snapshot();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Management interface for the engine metrics, so they can be read with JConsole or any other JMX client.
+ * Registered as "org.example:type=Metrics" when metrics are turned on.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public interface MetricsMXBean {
+    /**
+     * Accessor method for the number of calls to countCapture and captureCounters.
+     *
+     * @return Number of calls.
+     * @since 1.0
+     */
+    long getCaptureCalls();
+
+    /**
+     * Accessor method for the number of nodes searched.
+     *
+     * @return Number of nodes.
+     * @since 1.0
+     */
+    long getNodes();
+
+    /**
+     * Accessor method for the number of transposition table probes.
+     *
+     * @return Number of probes.
+     * @since 1.0
+     */
+    long getTableProbes();
+
+    /**
+     * Accessor method for the number of transposition table probes that found an entry.
+     *
+     * @return Number of hits.
+     * @since 1.0
+     */
+    long getTableHits();
+
+    /**
+     * Accessor method for the number of games finished.
+     *
+     * @return Number of games.
+     * @since 1.0
+     */
+    long getGames();
+
+    /**
+     * Accessor method for the games finished per second since the metrics were last reset.
+     *
+     * @return Games per second.
+     * @since 1.0
+     */
+    double getGamesPerSecond();
+
+    /**
+     * Accessor method for the number of moves timed.
+     *
+     * @return Number of moves.
+     * @since 1.0
+     */
+    long getThinkCount();
+
+    /**
+     * Accessor method for the mean think time per move.
+     *
+     * @return Mean think time in milliseconds.
+     * @since 1.0
+     */
+    double getThinkMeanMillis();
+
+    /**
+     * Accessor method for the median think time per move.
+     *
+     * @return Median think time in milliseconds, to within a factor of 2.
+     * @since 1.0
+     */
+    double getThinkP50Millis();
+
+    /**
+     * Accessor method for the 99th percentile think time per move.
+     *
+     * @return 99th percentile think time in milliseconds, to within a factor of 2.
+     * @since 1.0
+     */
+    double getThinkP99Millis();
+
+    /**
+     * Accessor method for the longest think time per move.
+     *
+     * @return Longest think time in milliseconds.
+     * @since 1.0
+     */
+    double getThinkMaxMillis();
+
+    /**
+     * Accessor method for the number of view updates timed.
+     *
+     * @return Number of view updates.
+     * @since 1.0
+     */
+    long getViewUpdateCount();
+
+    /**
+     * Accessor method for the mean time taken by a view update.
+     *
+     * @return Mean view update time in milliseconds.
+     * @since 1.0
+     */
+    double getViewUpdateMeanMillis();
+
+    /**
+     * Accessor method for the 99th percentile time taken by a view update.
+     *
+     * @return 99th percentile view update time in milliseconds, to within a factor of 2.
+     * @since 1.0
+     */
+    double getViewUpdateP99Millis();
+
+    /**
+     * Accessor method for a text snapshot of every metric.
+     *
+     * @return Snapshot, as printed periodically.
+     * @since 1.0
+     */
+    String getSnapshot();
+
+    /**
+     * Method to set every metric back to zero.
+     *
+     * @since 1.0
+     */
+    void reset();
+}
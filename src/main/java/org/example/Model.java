@@ -1,6 +1,10 @@
 /**
- * Class for the many variables relating to the board.
- * Also, this class is a singleton.
+ * Class connecting a game to the views that display it.
+ * All game logic lives in Game, this class only translates view input and keeps views in sync.
+ * One Model is created per game, so several games can be open at once.
+ * AI moves are chosen on a background thread and played back on the Swing event thread,
+ * so every method here is meant to be called on the event thread.
+ * Views only ask about the board through the accessors here, so SizedModel can stand in for other sizes.
  *
  * @Project Ultimate Reversi
  * @Author Medusa Dempsey
@@ -11,38 +15,280 @@ package org.example;
 
 import java.util.ArrayList;
 
+import javax.swing.SwingUtilities;
+
 public class Model {
     /**
      * ArrayList of all views to update.
      */
     private final ArrayList<View> listOfViews = new ArrayList<View>();
     /**
-     * Static instance.
+     * Game object being displayed.
+     */
+    private final Game game = new Game();
+    /**
+     * Runs the player used for the greedy AI button in the background.
+     */
+    private final AsyncPlayer ai;
+    /**
+     * Boolean set to true once the game is over. Worked out once per move rather than by every view.
+     */
+    private boolean gameOver;
+    /**
+     * Deepest search iteration the AI has finished for the move it is thinking about, 0 if none yet.
+     */
+    private int progressDepth;
+
+    /**
+     * Constructor method. Starts a new game without an opening book.
+     *
+     * @since 1.0
+     */
+    public Model() {
+        this(null);
+    }
+
+    /**
+     * Constructor method. Starts a new game.
+     *
+     * @param book Opening book the AI button plays from before it falls back to evaluated greedy moves,
+     *             or null for none.
+     * @since 1.0
+     */
+    public Model(OpeningBook book) {
+        Player evaluated = new GreedyPlayer(Evaluator.getDefault());
+        Player greedy = book == null ? evaluated : new BookPlayer(book, evaluated);
+        ai = new AsyncPlayer(greedy, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Accessor method for the game.
+     *
+     * @return Game being displayed.
+     * @since 1.0
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Accessor method for the board size.
+     *
+     * @return Number of rows, which is also the number of columns.
+     * @since 1.0
+     */
+    public int getSize() {
+        return BoardState.SIZE;
+    }
+
+    /**
+     * Accessor method for the state of a given space.
+     *
+     * @param row Row of the space, in board coordinates.
+     * @param col Column of the space, in board coordinates.
+     * @return 1 for black, 2 for white, 0 for empty.
+     * @since 1.0
+     */
+    public int getState(int row, int col) {
+        return game.getBoard().getState(row, col);
+    }
+
+    /**
+     * Method for checking if a space is a legal move for the side to move.
+     *
+     * @param row Row of the space, in board coordinates.
+     * @param col Column of the space, in board coordinates.
+     * @return True if playing there captures at least one counter.
+     * @since 1.0
+     */
+    public boolean isPlayable(int row, int col) {
+        return (game.legalMoves() & (1L << (row * BoardState.SIZE + col))) != 0;
+    }
+
+    /**
+     * Accessor method for whose turn it is.
+     *
+     * @return True if black is to move.
+     * @since 1.0
      */
-    private static final Model model = new Model();
+    public boolean isBlackTurn() {
+        return game.isBlackTurn();
+    }
+
     /**
-     * BoardState object.
+     * Method for checking if there is a move to undo.
+     *
+     * @return True if a move has been played and not undone.
+     * @since 1.0
      */
-    BoardState bState = new BoardState();
+    public boolean canUndo() {
+        return game.canUndo();
+    }
 
-    // private constructor
+    /**
+     * Method for checking if there is a move to redo.
+     *
+     * @return True if a move has been undone and nothing new played since.
+     * @since 1.0
+     */
+    public boolean canRedo() {
+        return game.canRedo();
+    }
 
     /**
-     * Private constructor. Prevents external methods instantiating this class.
+     * Accessor method for the current disc counts.
      *
+     * @return An array of integers containing white score and black score.
      * @since 1.0
      */
-    private Model() {
+    public int[] score() {
+        return game.score();
     }
 
     /**
-     * Accessor method for static instance.
+     * Method for playing a space clicked in a view.
      *
-     * @return Static instance.
+     * @param row     Row of the space, as drawn in the view.
+     * @param col     Column of the space, as drawn in the view.
+     * @param isBlack Boolean representing the colour of the view - true if black, false if white.
      * @since 1.0
      */
-    public static Model get() {
-        return model;
+    public void playSpace(int row, int col, boolean isBlack) {
+        // a move played by hand replaces any AI move still being thought about
+        ai.cancel();
+        // black view is upside-down, the game uses board coordinates
+        if (isBlack) {
+            row = BoardState.SIZE - 1 - row;
+            col = BoardState.SIZE - 1 - col;
+        }
+        play(row * BoardState.SIZE + col);
+    }
+
+    /**
+     * Method for starting the greedy AI move for the side to move, or cancelling it if it has already started.
+     * The move is played once the AI has chosen it, and the views show its progress in the meantime.
+     *
+     * @since 1.0
+     */
+    public void playGreedy() {
+        if (ai.isThinking()) {
+            ai.cancel();
+            updateAllTitles();
+            return;
+        }
+        if (gameOver) {
+            return;
+        }
+
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        progressDepth = 0;
+        ai.think(game, (depth, move, score) -> {
+            progressDepth = depth;
+            updateAllTitles();
+        }, move -> {
+            if (Metrics.ENABLED) {
+                Metrics.think(System.nanoTime() - start);
+            }
+            if (move != Game.PASS) {
+                play(move);
+            } else {
+                updateAllTitles();
+            }
+        });
+        updateAllTitles();
+    }
+
+    /**
+     * Method to take back the last move, along with the pass it forced if the next player was stuck.
+     * Cancels any AI move being thought about.
+     *
+     * @since 1.0
+     */
+    public void undo() {
+        ai.cancel();
+        if (!game.canUndo()) {
+            updateAllTitles();
+            return;
+        }
+        // passes are played for the user, so they are taken back along with the move before them
+        int move;
+        do {
+            move = game.undo();
+        } while (move == Game.PASS && game.canUndo());
+        gameOver = game.isTerminal();
+        updateAllViews();
+    }
+
+    /**
+     * Method to play the last move undone again, along with the pass it forced if the next player was stuck.
+     * Cancels any AI move being thought about.
+     *
+     * @since 1.0
+     */
+    public void redo() {
+        ai.cancel();
+        if (!game.canRedo()) {
+            updateAllTitles();
+            return;
+        }
+        game.redo();
+        gameOver = game.isTerminal();
+        if (game.legalMoves() == 0 && !gameOver && game.canRedo()) {
+            game.redo();
+        }
+        updateAllViews();
+    }
+
+    /**
+     * Method for checking if the AI is thinking about a move.
+     *
+     * @return True if an AI move has been started and not yet played or cancelled.
+     * @since 1.0
+     */
+    public boolean isThinking() {
+        return ai.isThinking();
+    }
+
+    /**
+     * Accessor method for how far the AI has got with the move it is thinking about.
+     *
+     * @return Deepest search iteration finished, or 0 if none has finished or the AI doesn't search.
+     * @since 1.0
+     */
+    public int getProgressDepth() {
+        return progressDepth;
+    }
+
+    /**
+     * Method for checking if the game is over.
+     *
+     * @return True if neither side can move.
+     * @since 1.0
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Method to play a move, skip the next player if they are stuck, and update the views.
+     *
+     * @param move Square to play, as row * 8 + col.
+     * @since 1.0
+     */
+    private void play(int move) {
+        game.play(move);
+
+        // a player with no playable spaces passes, unless nobody can move at all
+        gameOver = game.isTerminal();
+        if (game.legalMoves() == 0 && !gameOver) {
+            game.pass();
+        }
+        if (gameOver) {
+            Metrics.game();
+        }
+
+        // update both views so they're kept consistent
+        updateAllViews();
     }
 
     /**
@@ -65,4 +311,15 @@ public class Model {
             listOfView.update();
         }
     }
+
+    /**
+     * Method to update the titles of all views, e.g. to show the AI's progress, without redrawing the boards.
+     *
+     * @since 1.0
+     */
+    public void updateAllTitles() {
+        for (View listOfView : listOfViews) {
+            listOfView.updateTitle();
+        }
+    }
 }
@@ -0,0 +1,330 @@
+/**
+ * Move ordering for alpha-beta search. The sooner the best move is tried, the more of the others are cut off,
+ * so a search reaches the same depth in far fewer nodes. Moves are sorted by a key made of, best first:
+ *   the transposition table move, then this ply's two killer moves (the last moves to cause a cutoff here),
+ *   then the sum of a static square priority (corners first, the X- and C-squares next to an empty corner last),
+ *   the history score (how often and how deep the move has caused cutoffs anywhere in the search)
+ *   and, far enough from the leaves, fastest-first (fewest replies left for the opponent).
+ * Each part can be switched off, so their effect on nodes-to-depth can be measured.
+ *
+ * Everything is kept in primitive arrays made once, so ordering allocates nothing.
+ * An instance belongs to one search and should only be used by one thread at a time.
+ *
+ * Usage: MoveOrdering [depth]
+ *   searches a fixed set of positions to the given depth with each part added in turn,
+ *   and prints the nodes each needed
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class MoveOrdering {
+    /**
+     * No ordering beyond the transposition table move, the rest in square order.
+     */
+    public static final int NONE = 0;
+    /**
+     * Order by static square priority.
+     */
+    public static final int STATIC = 1;
+    /**
+     * Try this ply's killer moves early.
+     */
+    public static final int KILLERS = 2;
+    /**
+     * Order by history score.
+     */
+    public static final int HISTORY = 4;
+    /**
+     * Order by the opponent's mobility after the move, far enough from the leaves.
+     */
+    public static final int FASTEST_FIRST = 8;
+    /**
+     * Every part switched on.
+     */
+    public static final int ALL = STATIC | KILLERS | HISTORY | FASTEST_FIRST;
+    /**
+     * Parts SearchPlayer uses unless told otherwise. Fastest-first saves nodes too, but at the depths a move
+     * is searched to in play, working out every reply costs more time than the saved nodes give back.
+     */
+    public static final int DEFAULT = STATIC | KILLERS | HISTORY;
+    /**
+     * Deepest ply a search can reach: 60 moves, each of which could follow a pass.
+     */
+    static final int MAX_PLY = 128;
+    /**
+     * Remaining depth from which fastest-first is used. Nearer the leaves it costs more than it saves.
+     */
+    static final int FASTEST_FIRST_DEPTH = 3;
+    /**
+     * Key given to the transposition table move, above anything else.
+     */
+    private static final int TT_KEY = 1 << 30;
+    /**
+     * Key given to the first killer move. The second gets half.
+     */
+    private static final int KILLER_KEY = 1 << 28;
+    /**
+     * Key lost per reply the opponent is left with, under fastest-first.
+     */
+    private static final int MOBILITY_KEY = 1 << 12;
+    /**
+     * History scores are halved once any reaches this, so old cutoffs fade and the sum can't overflow.
+     */
+    private static final int HISTORY_LIMIT = 1 << 16;
+    /**
+     * Static priority of each square, before the X- and C-square penalties.
+     * Corners are worth most, then the A- and B-squares on the edges, then the middle.
+     */
+    private static final int[] SQUARE_PRIORITY = {
+            8, 1, 5, 4, 4, 5, 1, 8,
+            1, 0, 2, 2, 2, 2, 0, 1,
+            5, 2, 3, 3, 3, 3, 2, 5,
+            4, 2, 3, 3, 3, 3, 2, 4,
+            4, 2, 3, 3, 3, 3, 2, 4,
+            5, 2, 3, 3, 3, 3, 2, 5,
+            1, 0, 2, 2, 2, 2, 0, 1,
+            8, 1, 5, 4, 4, 5, 1, 8
+    };
+    /**
+     * Key per point of static priority. Large enough that priority decides between moves with little history.
+     */
+    private static final int PRIORITY_KEY = 1 << 10;
+    /**
+     * Corner next to each square, or -1. Used to penalize X- and C-squares only while their corner is empty,
+     * since once it is taken they give nothing away.
+     */
+    private static final int[] CORNER_OF = new int[64];
+
+    static {
+        Arrays.fill(CORNER_OF, -1);
+        int[] corners = {0, 7, 56, 63};
+        for (int corner : corners) {
+            int row = corner >> 3;
+            int col = corner & 7;
+            for (int square = 0; square < 64; square++) {
+                int dr = Math.abs((square >> 3) - row);
+                int dc = Math.abs((square & 7) - col);
+                if (dr <= 1 && dc <= 1 && square != corner) {
+                    CORNER_OF[square] = corner;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parts switched on, a combination of STATIC, KILLERS, HISTORY and FASTEST_FIRST.
+     */
+    private final int features;
+    /**
+     * Two killer moves for each ply, the newest first. NO_MOVE where there is none yet.
+     */
+    private final int[] killers = new int[MAX_PLY * 2];
+    /**
+     * History score of each square for each side, index (isBlack ? 64 : 0) + square.
+     */
+    private final int[] history = new int[128];
+    /**
+     * Move list buffer for each ply, filled by order. A list can't be longer than the board.
+     */
+    private final int[][] moveBuffer = new int[MAX_PLY][64];
+    /**
+     * Sort keys matching moveBuffer.
+     */
+    private final int[][] keyBuffer = new int[MAX_PLY][64];
+
+    /**
+     * Constructor method.
+     *
+     * @param features Parts to switch on, a combination of STATIC, KILLERS, HISTORY and FASTEST_FIRST,
+     *                 or ALL or NONE.
+     * @throws IllegalArgumentException If an unknown part is asked for.
+     * @since 1.0
+     */
+    public MoveOrdering(int features) {
+        if ((features & ~ALL) != 0) {
+            throw new IllegalArgumentException("Unknown move ordering features: " + features);
+        }
+        this.features = features;
+        Arrays.fill(killers, TranspositionTable.NO_MOVE);
+    }
+
+    /**
+     * Accessor method for the parts switched on.
+     *
+     * @return Combination of STATIC, KILLERS, HISTORY and FASTEST_FIRST.
+     * @since 1.0
+     */
+    public int getFeatures() {
+        return features;
+    }
+
+    /**
+     * Method to get ready for a new search. Killers are forgotten, since the plies now mean different positions,
+     * and history is halved so it still helps but the new search's cutoffs soon outweigh it.
+     *
+     * @since 1.0
+     */
+    public void newSearch() {
+        Arrays.fill(killers, TranspositionTable.NO_MOVE);
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Method to forget everything learnt, e.g. before searching an unrelated position.
+     *
+     * @since 1.0
+     */
+    public void clear() {
+        Arrays.fill(killers, TranspositionTable.NO_MOVE);
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Method to sort the legal moves of a position into the buffer for a ply, best-looking first.
+     *
+     * @param own     Mask of the side to move.
+     * @param opp     Mask of the opponent.
+     * @param moves   Mask of legal moves.
+     * @param isBlack Boolean representing the side to move - true if black, false if white.
+     * @param ply     Plies from the root, which picks the buffer and the killers.
+     * @param depth   Remaining depth, which decides whether fastest-first is worth it.
+     * @param ttMove  Move from the transposition table, or TranspositionTable.NO_MOVE.
+     * @return Number of moves in the buffer, see moves.
+     * @since 1.0
+     */
+    public int order(long own, long opp, long moves, boolean isBlack, int ply, int depth, int ttMove) {
+        int[] list = moveBuffer[ply];
+        int[] keys = keyBuffer[ply];
+        boolean useStatic = (features & STATIC) != 0;
+        boolean useKillers = (features & KILLERS) != 0;
+        boolean useHistory = (features & HISTORY) != 0;
+        boolean fastestFirst = (features & FASTEST_FIRST) != 0 && depth >= FASTEST_FIRST_DEPTH;
+        int killer1 = killers[ply * 2];
+        int killer2 = killers[ply * 2 + 1];
+        int side = isBlack ? 64 : 0;
+        long empty = ~(own | opp);
+
+        int count = 0;
+        while (moves != 0) {
+            int move = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+
+            int key;
+            if (move == ttMove) {
+                key = TT_KEY;
+            } else if (useKillers && move == killer1) {
+                key = KILLER_KEY;
+            } else if (useKillers && move == killer2) {
+                key = KILLER_KEY >> 1;
+            } else {
+                key = 0;
+                if (useStatic) {
+                    // an X- or C-square is only a risk while the corner next to it is empty
+                    int corner = CORNER_OF[move];
+                    int priority = corner >= 0 && (empty & (1L << corner)) != 0 ? -1 : SQUARE_PRIORITY[move];
+                    key += priority * PRIORITY_KEY;
+                }
+                if (useHistory) {
+                    key += history[side + move];
+                }
+                if (fastestFirst) {
+                    long flipped = Bitboard.flips(own, opp, move);
+                    long replies = Bitboard.legalMoves(opp & ~flipped, own | flipped | (1L << move));
+                    key -= Long.bitCount(replies) * MOBILITY_KEY;
+                }
+            }
+
+            // insertion sort, lists are short
+            int i = count++;
+            while (i > 0 && keys[i - 1] < key) {
+                keys[i] = keys[i - 1];
+                list[i] = list[i - 1];
+                i--;
+            }
+            keys[i] = key;
+            list[i] = move;
+        }
+        return count;
+    }
+
+    /**
+     * Accessor method for the buffer order last filled for a ply.
+     *
+     * @param ply Plies from the root.
+     * @return Moves, best-looking first. Only the count returned by order are valid.
+     * @since 1.0
+     */
+    public int[] moves(int ply) {
+        return moveBuffer[ply];
+    }
+
+    /**
+     * Method to learn from a move that caused a beta cutoff, so it is tried earlier next time.
+     *
+     * @param move    Move that caused the cutoff.
+     * @param isBlack Boolean representing the side that played it - true if black, false if white.
+     * @param ply     Plies from the root.
+     * @param depth   Remaining depth. Cutoffs far from the leaves save more, so count for more.
+     * @since 1.0
+     */
+    public void cutoff(int move, boolean isBlack, int ply, int depth) {
+        if ((features & KILLERS) != 0 && killers[ply * 2] != move) {
+            killers[ply * 2 + 1] = killers[ply * 2];
+            killers[ply * 2] = move;
+        }
+        if ((features & HISTORY) != 0) {
+            int index = (isBlack ? 64 : 0) + move;
+            history[index] += depth * depth;
+            if (history[index] >= HISTORY_LIMIT) {
+                for (int i = 0; i < history.length; i++) {
+                    history[i] >>= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args Optional search depth.
+     * @since 1.0
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        List<Game> positions = SpeedupReport.positions();
+        int[] configs = {NONE, STATIC, STATIC | KILLERS, STATIC | KILLERS | HISTORY, ALL};
+        String[] names = {"tt move only", "+ static", "+ killers", "+ history (default)", "+ fastest-first"};
+
+        System.out.printf("%d positions, depth %d%n", positions.size(), depth);
+        System.out.printf("%-20s %16s %10s %12s %14s%n", "ordering", "nodes to depth", "vs none", "time (ms)",
+                "nodes/s");
+        long baseline = 0;
+        for (int c = 0; c < configs.length; c++) {
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (Game position : positions) {
+                // a fresh player and table per position, so only the ordering differs between runs
+                SearchPlayer player = new SearchPlayer(Long.MAX_VALUE / 2_000_000L, depth);
+                player.setMoveOrdering(configs[c]);
+                player.setEndgameEmpties(0);
+                player.chooseMove(position);
+                nodes += player.getNodes();
+            }
+            long nanos = Math.max(1, System.nanoTime() - start);
+            if (c == 0) {
+                baseline = nodes;
+            }
+            System.out.printf("%-20s %,16d %9.1f%% %12.1f %,14d%n", names[c], nodes, 100.0 * nodes / baseline,
+                    nanos / 1e6, (long) (nodes * 1e9 / nanos));
+        }
+    }
+}
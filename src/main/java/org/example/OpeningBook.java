@@ -0,0 +1,325 @@
+/**
+ * Opening book built from recorded games.
+ * The builder replays the first moves of every game in an archive and, for each position and move played,
+ * adds up how many games went that way and how well they turned out for the side that played it.
+ * Positions are stored in canonical form (see PositionDatabase), so games that mirror each other count together.
+ *
+ * The book file starts with a 16 byte header (the magic "URBK", a 2 byte version, 2 reserved bytes and the
+ * number of entries), followed by one 24 byte entry per position and move, sorted by position:
+ * the canonical mover's mask, the canonical opponent's mask and a data word.
+ * The whole book is read into three arrays and searched by binary search, so a lookup takes microseconds.
+ *
+ * Usage: OpeningBook book archive [maxPly] [minGames]
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OpeningBook {
+    /**
+     * Magic number at the start of every book, "URBK" in ASCII.
+     */
+    static final int MAGIC = 0x5552424B;
+    /**
+     * Format version written to the header.
+     */
+    static final short VERSION = 1;
+    /**
+     * Default number of moves from the start of each game to add to the book.
+     */
+    public static final int DEFAULT_MAX_PLY = 16;
+    /**
+     * Default number of games a move needs before it goes in the book.
+     */
+    public static final int DEFAULT_MIN_GAMES = 4;
+    /**
+     * Canonical mover's mask of each entry, sorted together with opps.
+     */
+    private final long[] owns;
+    /**
+     * Canonical opponent's mask of each entry.
+     */
+    private final long[] opps;
+    /**
+     * Data word of each entry.
+     */
+    private final long[] data;
+
+    // data word layout, low bits first:
+    // move 8 bits (canonical) | score 16 bits (average points for the mover, 0 to 65535) | games 32 bits
+
+    /**
+     * Private constructor used by build and load. Entries must already be sorted.
+     *
+     * @since 1.0
+     */
+    private OpeningBook(long[] owns, long[] opps, long[] data) {
+        this.owns = owns;
+        this.opps = opps;
+        this.data = data;
+    }
+
+    /**
+     * Main method. Builds a book from an archive and saves it.
+     *
+     * @param args Command-line arguments, see the class description.
+     * @throws IOException If the archive can't be read or the book can't be written.
+     * @since 1.0
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBook book archive [maxPly] [minGames]");
+            System.exit(2);
+        }
+        int maxPly = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_PLY;
+        int minGames = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MIN_GAMES;
+
+        long start = System.nanoTime();
+        OpeningBook book;
+        try (GameRecordReader reader = new GameRecordReader(Paths.get(args[1]))) {
+            book = build(reader, maxPly, minGames);
+        }
+        book.save(Paths.get(args[0]));
+        System.out.printf("%d book moves from %s in %.1f ms%n", book.size(), args[1], (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Method to build a book from every game in an archive.
+     *
+     * @param reader   Archive to read. Its cursor is moved to the end.
+     * @param maxPly   Number of moves from the start of each game to add, passes included.
+     * @param minGames Number of games a move needs before it goes in the book.
+     * @return New book.
+     * @since 1.0
+     */
+    public static OpeningBook build(GameRecordReader reader, int maxPly, int minGames) {
+        if (maxPly < 0 || minGames < 1) {
+            throw new IllegalArgumentException("Max ply can't be negative and min games must be positive");
+        }
+        // games and total points for each canonical position and move, 2 points for a win and 1 for a draw
+        Map<Line, long[]> tree = new HashMap<>();
+        while (reader.next()) {
+            int result = Integer.signum(reader.result());
+            Game game = new Game();
+            int moves = Math.min(maxPly, reader.moveCount());
+            for (int i = 0; i < moves; i++) {
+                int move = reader.move(i);
+                if (move == Game.PASS) {
+                    game.pass();
+                    continue;
+                }
+                boolean isBlack = game.isBlackTurn();
+                long own = game.getBoard().getBitboard(isBlack);
+                long opp = game.getBoard().getBitboard(!isBlack);
+                int symmetry = Symmetry.canonical(own, opp);
+                Line line = new Line(Symmetry.apply(own, symmetry),
+                        Symmetry.apply(opp, symmetry), Symmetry.square(move, symmetry));
+                long[] totals = tree.computeIfAbsent(line, key -> new long[2]);
+                totals[0]++;
+                totals[1] += 1 + (isBlack ? result : -result);
+                game.play(move);
+            }
+        }
+
+        List<Map.Entry<Line, long[]>> entries = new ArrayList<>();
+        for (Map.Entry<Line, long[]> entry : tree.entrySet()) {
+            if (entry.getValue()[0] >= minGames) {
+                entries.add(entry);
+            }
+        }
+        entries.sort((a, b) -> compare(a.getKey().own, a.getKey().opp, b.getKey().own, b.getKey().opp));
+
+        long[] owns = new long[entries.size()];
+        long[] opps = new long[entries.size()];
+        long[] data = new long[entries.size()];
+        for (int i = 0; i < data.length; i++) {
+            Line line = entries.get(i).getKey();
+            long[] totals = entries.get(i).getValue();
+            long score = totals[1] * 65535 / (2 * totals[0]);
+            owns[i] = line.own;
+            opps[i] = line.opp;
+            data[i] = line.move | (score << 8) | (Math.min(totals[0], 0xFFFFFFFFL) << 24);
+        }
+        return new OpeningBook(owns, opps, data);
+    }
+
+    /**
+     * Method to read a book saved by save.
+     *
+     * @param path Path of the book.
+     * @return Book.
+     * @throws IOException If the file can't be read or isn't a book.
+     * @since 1.0
+     */
+    public static OpeningBook load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            in.readShort();
+            in.readShort();
+            long size = in.readLong();
+            if (size < 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt opening book: " + path);
+            }
+            long[] owns = new long[(int) size];
+            long[] opps = new long[(int) size];
+            long[] data = new long[(int) size];
+            for (int i = 0; i < size; i++) {
+                owns[i] = in.readLong();
+                opps[i] = in.readLong();
+                data[i] = in.readLong();
+            }
+            return new OpeningBook(owns, opps, data);
+        }
+    }
+
+    /**
+     * Method to write the book to a file.
+     *
+     * @param path Path to write to. An existing file is replaced.
+     * @throws IOException If writing fails.
+     * @since 1.0
+     */
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeLong(data.length);
+            for (int i = 0; i < data.length; i++) {
+                out.writeLong(owns[i]);
+                out.writeLong(opps[i]);
+                out.writeLong(data[i]);
+            }
+        }
+    }
+
+    /**
+     * Method to find the book move for a position: the one with the best average result,
+     * or the most played one if results are level.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Move as row * 8 + col, or Game.PASS if the position isn't in the book.
+     * @since 1.0
+     */
+    public int lookup(long own, long opp) {
+        int symmetry = Symmetry.canonical(own, opp);
+        long canonicalOwn = Symmetry.apply(own, symmetry);
+        long canonicalOpp = Symmetry.apply(opp, symmetry);
+
+        // binary search for the first entry of the position
+        int low = 0;
+        int high = data.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(owns[mid], opps[mid], canonicalOwn, canonicalOpp) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        long best = -1;
+        for (int i = low; i < data.length && owns[i] == canonicalOwn && opps[i] == canonicalOpp; i++) {
+            if (best < 0 || rank(data[i]) > rank(best)) {
+                best = data[i];
+            }
+        }
+        if (best < 0) {
+            return Game.PASS;
+        }
+        return Symmetry.square((int) best & 0xFF, Symmetry.inverse(symmetry));
+    }
+
+    /**
+     * Accessor method for the number of moves in the book.
+     *
+     * @return Number of entries.
+     * @since 1.0
+     */
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * Method to turn a data word into a value that orders moves by score, then by number of games.
+     *
+     * @since 1.0
+     */
+    private static long rank(long data) {
+        return ((data >>> 8) & 0xFFFF) << 32 | (data >>> 24);
+    }
+
+    /**
+     * Method to order positions by mover's mask, then opponent's mask, both unsigned.
+     *
+     * @since 1.0
+     */
+    private static int compare(long ownA, long oppA, long ownB, long oppB) {
+        int compare = Long.compareUnsigned(ownA, ownB);
+        return compare != 0 ? compare : Long.compareUnsigned(oppA, oppB);
+    }
+
+    /**
+     * Key for one move from one canonical position, used while building.
+     *
+     * @since 1.0
+     */
+    private static final class Line {
+        /**
+         * Canonical mover's mask.
+         */
+        private final long own;
+        /**
+         * Canonical opponent's mask.
+         */
+        private final long opp;
+        /**
+         * Canonical move.
+         */
+        private final int move;
+
+        /**
+         * Constructor method.
+         *
+         * @since 1.0
+         */
+        private Line(long own, long opp, int move) {
+            this.own = own;
+            this.opp = opp;
+            this.move = move;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Line)) {
+                return false;
+            }
+            Line line = (Line) other;
+            return own == line.own && opp == line.opp && move == line.move;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(own * 31 + opp) * 64 + move;
+        }
+    }
+}
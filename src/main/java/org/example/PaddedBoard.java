@@ -0,0 +1,353 @@
+/**
+ * Board too big for a 64-bit mask, stored as one flat byte array with a border of sentinel cells.
+ * Each row is followed by one border cell, which also sits before the next row, and a row of border cells
+ * runs along the top and bottom. A step in any of the 8 directions is then just adding a fixed offset,
+ * and every line of opposing counters stops at a border cell without checking the row or column.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.Arrays;
+
+final class PaddedBoard extends SizedBoard {
+    /**
+     * Cell with no counter.
+     */
+    private static final byte EMPTY = 0;
+    /**
+     * Cell with a black counter.
+     */
+    private static final byte BLACK = 1;
+    /**
+     * Cell with a white counter.
+     */
+    private static final byte WHITE = 2;
+    /**
+     * Cell just off the board. Never matches either colour, so it ends every line.
+     */
+    private static final byte BORDER = 3;
+
+    /**
+     * Distance between the same column of two neighbouring rows, one more than the size for the border cell.
+     */
+    private final int stride;
+    /**
+     * Offset of one step in each of the 8 directions.
+     */
+    private final int[] directions;
+    /**
+     * Every cell, border included, indexed (row + 1) * stride + col + 1.
+     */
+    private final byte[] cells;
+    /**
+     * Number of black counters on the board.
+     */
+    private int blackCount;
+    /**
+     * Number of white counters on the board.
+     */
+    private int whiteCount;
+    /**
+     * Cells flipped by the moves being counted in perft, so they can be flipped back.
+     */
+    private int[] undo;
+    /**
+     * Number of cells in the undo stack.
+     */
+    private int undoCount;
+
+    /**
+     * Constructor method to place the starting counters in the middle of the board.
+     * Works for any size, though SizedBoard.create only uses it above 8x8.
+     *
+     * @param size Number of rows and columns, even.
+     * @since 1.0
+     */
+    PaddedBoard(int size) {
+        super(size);
+        stride = size + 1;
+        directions = new int[]{1, -1, stride, -stride, stride + 1, -stride - 1, stride - 1, -stride + 1};
+        // one extra cell so the last row's border cell has a row of border below it too
+        cells = new byte[(size + 2) * stride + 1];
+        Arrays.fill(cells, BORDER);
+        for (int row = 0; row < size; row++) {
+            Arrays.fill(cells, index(row, 0), index(row, size), EMPTY);
+        }
+
+        int mid = size / 2;
+        cells[index(mid - 1, mid - 1)] = WHITE;
+        cells[index(mid, mid)] = WHITE;
+        cells[index(mid - 1, mid)] = BLACK;
+        cells[index(mid, mid - 1)] = BLACK;
+        blackCount = 2;
+        whiteCount = 2;
+    }
+
+    /**
+     * Private constructor used by copy.
+     *
+     * @param other Board to copy.
+     * @since 1.0
+     */
+    private PaddedBoard(PaddedBoard other) {
+        super(other.getSize());
+        stride = other.stride;
+        directions = other.directions;
+        cells = other.cells.clone();
+        blackCount = other.blackCount;
+        whiteCount = other.whiteCount;
+    }
+
+    @Override
+    public int getState(int row, int col) {
+        if (!onBoard(row, col)) {
+            return -1;
+        }
+        return cells[index(row, col)];
+    }
+
+    @Override
+    public int countCapture(int row, int col, boolean isBlack) {
+        if (!onBoard(row, col)) {
+            return 0;
+        }
+        int cell = index(row, col);
+        if (cells[cell] != EMPTY) {
+            return 0;
+        }
+        byte own = isBlack ? BLACK : WHITE;
+        byte opp = isBlack ? WHITE : BLACK;
+        int total = 0;
+        for (int direction : directions) {
+            int p = cell + direction;
+            while (cells[p] == opp) {
+                p += direction;
+            }
+            if (cells[p] == own) {
+                total += (p - cell) / direction - 1;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public int legalMoves(boolean isBlack, int[] moves) {
+        int count = generate(isBlack ? BLACK : WHITE, isBlack ? WHITE : BLACK, moves);
+        for (int i = 0; i < count; i++) {
+            moves[i] = (moves[i] / stride - 1) * getSize() + moves[i] % stride - 1;
+        }
+        return count;
+    }
+
+    @Override
+    public int placeCounter(int row, int col, boolean isBlack) {
+        byte own = isBlack ? BLACK : WHITE;
+        byte opp = isBlack ? WHITE : BLACK;
+        int cell = onBoard(row, col) ? index(row, col) : -1;
+        if (cell < 0 || cells[cell] != EMPTY || !captures(cell, own, opp)) {
+            throw new IllegalArgumentException("Illegal move: " + row + ", " + col);
+        }
+        int start = undoCount;
+        flip(cell, own, opp);
+        int flipped = undoCount - start;
+        undoCount = start;
+        if (isBlack) {
+            blackCount += flipped + 1;
+            whiteCount -= flipped;
+        } else {
+            whiteCount += flipped + 1;
+            blackCount -= flipped;
+        }
+        return flipped;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return !hasMove(BLACK, WHITE) && !hasMove(WHITE, BLACK);
+    }
+
+    @Override
+    public int[] getScore() {
+        return new int[]{whiteCount, blackCount};
+    }
+
+    @Override
+    public long perft(boolean isBlack, int depth) {
+        int size = getSize();
+        int[][] moves = new int[depth + 1][size * size];
+        return isBlack ? count(BLACK, WHITE, depth, moves) : count(WHITE, BLACK, depth, moves);
+    }
+
+    @Override
+    public SizedBoard copy() {
+        return new PaddedBoard(this);
+    }
+
+    /**
+     * Method to count leaves below a position, playing and taking back moves in place.
+     *
+     * @param own   Colour to move.
+     * @param opp   Colour of the opponent.
+     * @param depth Depth to count to.
+     * @param moves Move list for each depth, so nothing is allocated while counting.
+     * @return Number of leaves.
+     * @since 1.0
+     */
+    private long count(byte own, byte opp, int depth, int[][] moves) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] list = moves[depth];
+        int n = generate(own, opp, list);
+        if (n == 0) {
+            if (!hasMove(opp, own)) {
+                return 1;
+            }
+            return count(opp, own, depth - 1, moves);
+        }
+        if (depth == 1) {
+            return n;
+        }
+
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            int cell = list[i];
+            int start = undoCount;
+            flip(cell, own, opp);
+            total += count(opp, own, depth - 1, moves);
+
+            // take the move back
+            cells[cell] = EMPTY;
+            while (undoCount > start) {
+                cells[undo[--undoCount]] = opp;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Method to list the cells one side can play. Border cells are never empty, so every cell can be scanned
+     * from the first row to the last without working out rows and columns.
+     *
+     * @param own   Colour to move.
+     * @param opp   Colour of the opponent.
+     * @param moves Array to write the cell indexes to.
+     * @return Number of moves written.
+     * @since 1.0
+     */
+    private int generate(byte own, byte opp, int[] moves) {
+        int count = 0;
+        int end = index(getSize() - 1, getSize());
+        for (int cell = stride + 1; cell < end; cell++) {
+            if (cells[cell] == EMPTY && captures(cell, own, opp)) {
+                moves[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Method for checking if one side has any legal move. Stops at the first one.
+     *
+     * @param own Colour to move.
+     * @param opp Colour of the opponent.
+     * @return True if there is a legal move.
+     * @since 1.0
+     */
+    private boolean hasMove(byte own, byte opp) {
+        int end = index(getSize() - 1, getSize());
+        for (int cell = stride + 1; cell < end; cell++) {
+            if (cells[cell] == EMPTY && captures(cell, own, opp)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method for checking if playing an empty cell captures anything.
+     *
+     * @param cell Cell to play.
+     * @param own  Colour playing.
+     * @param opp  Colour of the opponent.
+     * @return True if at least one line is captured.
+     * @since 1.0
+     */
+    private boolean captures(int cell, byte own, byte opp) {
+        // written out rather than looped over directions, so the JIT sees 8 constant-stride walks
+        int s = stride;
+        return captures(cell, 1, own, opp) || captures(cell, -1, own, opp)
+                || captures(cell, s, own, opp) || captures(cell, -s, own, opp)
+                || captures(cell, s + 1, own, opp) || captures(cell, -s - 1, own, opp)
+                || captures(cell, s - 1, own, opp) || captures(cell, -s + 1, own, opp);
+    }
+
+    /**
+     * Method for checking if playing an empty cell captures anything in one direction.
+     *
+     * @param cell      Cell to play.
+     * @param direction Offset of one step in the direction to check.
+     * @param own       Colour playing.
+     * @param opp       Colour of the opponent.
+     * @return True if the line in that direction is captured.
+     * @since 1.0
+     */
+    private boolean captures(int cell, int direction, byte own, byte opp) {
+        int p = cell + direction;
+        if (cells[p] != opp) {
+            return false;
+        }
+        do {
+            p += direction;
+        } while (cells[p] == opp);
+        return cells[p] == own;
+    }
+
+    /**
+     * Method to play a cell and flip every captured line, pushing each flipped cell onto the undo stack.
+     * The cell is expected to be a legal move.
+     *
+     * @param cell Cell to play.
+     * @param own  Colour playing.
+     * @param opp  Colour of the opponent.
+     * @since 1.0
+     */
+    private void flip(int cell, byte own, byte opp) {
+        // a move flips fewer than 8 * size cells, one line in each direction
+        if (undo == null) {
+            undo = new int[64 * getSize()];
+        } else if (undo.length - undoCount < 8 * getSize()) {
+            undo = Arrays.copyOf(undo, undo.length * 2);
+        }
+        cells[cell] = own;
+        for (int direction : directions) {
+            int p = cell + direction;
+            while (cells[p] == opp) {
+                p += direction;
+            }
+            if (cells[p] != own) {
+                continue;
+            }
+            for (int q = cell + direction; q != p; q += direction) {
+                cells[q] = own;
+                undo[undoCount++] = q;
+            }
+        }
+    }
+
+    /**
+     * Method to get the index of a space in the cell array.
+     *
+     * @param row Row of the space.
+     * @param col Column of the space.
+     * @return Cell index.
+     * @since 1.0
+     */
+    private int index(int row, int col) {
+        return (row + 1) * stride + col + 1;
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * Multi-threaded searching AI using Lazy SMP.
+ * Every thread runs its own iterative deepening search of the same position,
+ * and they all share one lock-free transposition table, so results found by one thread
+ * cut off work for the others. Helper threads start at staggered depths and try the root moves
+ * in different orders, so that no two of them search the same tree in the same order.
+ * The move played is always the one found by the main thread.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ParallelSearch implements Player {
+    /**
+     * Number of different first iteration depths the helpers are spread over.
+     */
+    private static final int HELPER_DEPTHS = 4;
+    /**
+     * One searcher per thread. Index 0 is the main searcher and runs on the calling thread.
+     */
+    private final SearchPlayer[] workers;
+    /**
+     * Pool running the helper searchers. Null if there is only one thread.
+     */
+    private final ExecutorService pool;
+    /**
+     * Future for each helper, index 0 is unused.
+     */
+    private final Future<?>[] running;
+    /**
+     * Table shared by every worker.
+     */
+    private final TranspositionTable table;
+    /**
+     * Total nodes visited by every worker in the last search.
+     */
+    private long lastNodes;
+    /**
+     * Time taken by the last search, in nanoseconds.
+     */
+    private long lastNanos;
+
+    /**
+     * Constructor method.
+     *
+     * @param threads   Number of threads to search with, including the calling thread.
+     * @param timeLimit Time allowed per move in milliseconds.
+     * @param maxDepth  Deepest iteration to search to, in plies.
+     * @param table     Transposition table shared by every thread.
+     * @since 1.0
+     */
+    public ParallelSearch(int threads, long timeLimit, int maxDepth, TranspositionTable table) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        if (table == null) {
+            throw new IllegalArgumentException("Parallel search needs a shared table");
+        }
+        this.table = table;
+        workers = new SearchPlayer[threads];
+        running = new Future<?>[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new SearchPlayer(timeLimit, maxDepth, table);
+            // helpers start up to HELPER_DEPTHS - 1 plies deeper than the main thread, and each rotates
+            // the root moves by its own index, so helpers on the same depth still part ways at the root
+            // the main thread counts as a helper too, since the table generation is started here instead
+            workers[i].makeHelper(1 + i % HELPER_DEPTHS, i);
+        }
+
+        if (threads > 1) {
+            pool = Executors.newFixedThreadPool(threads - 1, r -> {
+                Thread t = new Thread(r, "search-helper");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            pool = null;
+        }
+    }
+
+    /**
+     * Mutator method for the evaluation every thread uses at the leaves of the search.
+     *
+     * @param evaluator Evaluator to use.
+     * @since 1.0
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        for (SearchPlayer worker : workers) {
+            worker.setEvaluator(evaluator);
+        }
+    }
+
+    /**
+     * Method to choose a move with every thread searching at once.
+     *
+     * @param game Game to choose a move in.
+     * @return Square to play as row * 8 + col, or Game.PASS if there is no legal move.
+     * @since 1.0
+     */
+    @Override
+    public int chooseMove(Game game) {
+        long start = System.nanoTime();
+        if (game.legalMoves() == 0) {
+            lastNodes = 0;
+            lastNanos = System.nanoTime() - start;
+            return Game.PASS;
+        }
+
+        // the main thread is a helper too, so its search doesn't clear a stop left over from the last one
+        workers[0].clearStop();
+        // the main searcher starts the table generation, so do it here before any helper probes
+        table.newSearch();
+        for (int i = 1; i < workers.length; i++) {
+            SearchPlayer helper = workers[i];
+            Game copy = game.copy();
+            helper.clearStop();
+            running[i] = pool.submit(() -> helper.chooseMove(copy));
+        }
+
+        int move;
+        try {
+            move = workers[0].chooseMove(game);
+        } finally {
+            // helpers are only there to fill the table, once the main thread is done so are they
+            for (int i = 1; i < workers.length; i++) {
+                workers[i].stop();
+            }
+            for (int i = 1; i < workers.length; i++) {
+                waitFor(running[i]);
+            }
+        }
+
+        lastNanos = System.nanoTime() - start;
+        lastNodes = 0;
+        for (SearchPlayer worker : workers) {
+            lastNodes += worker.getNodes();
+        }
+        return move;
+    }
+
+    /**
+     * Method to wait for a helper to finish. Errors from helpers are passed on to the caller.
+     *
+     * @param future Future of the helper.
+     * @since 1.0
+     */
+    private static void waitFor(Future<?> future) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Method to end the current search early from another thread.
+     * Stopping the main thread is enough, since it stops the helpers when it returns.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void stop() {
+        workers[0].stop();
+    }
+
+    /**
+     * Mutator method for who hears about each iteration the main thread finishes.
+     *
+     * @param listener Listener, or null for none.
+     * @since 1.0
+     */
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+        workers[0].setProgressListener(listener);
+    }
+
+    /**
+     * Method to stop the helper threads. The player can't be used after this.
+     *
+     * @since 1.0
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Accessor method for the total nodes visited by every thread in the last search.
+     *
+     * @return Node count.
+     * @since 1.0
+     */
+    public long getNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Accessor method for the combined speed of every thread in the last search.
+     *
+     * @return Nodes visited per second.
+     * @since 1.0
+     */
+    public long getNodesPerSecond() {
+        if (lastNanos == 0) {
+            return 0;
+        }
+        return lastNodes * 1_000_000_000L / lastNanos;
+    }
+
+    /**
+     * Accessor method for the deepest iteration the main thread finished in the last search.
+     *
+     * @return Depth in plies.
+     * @since 1.0
+     */
+    public int getDepthReached() {
+        return workers[0].getDepthReached();
+    }
+
+    /**
+     * Accessor method for the score of the last move chosen.
+     *
+     * @return Score from the point of view of the side that played the move.
+     * @since 1.0
+     */
+    public int getScore() {
+        return workers[0].getScore();
+    }
+
+    /**
+     * Accessor method for the number of threads searching.
+     *
+     * @return Thread count.
+     * @since 1.0
+     */
+    public int getThreads() {
+        return workers.length;
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * Command-line tool that counts every line of play to a fixed depth.
+ * A pass counts as a ply, and a finished game counts as one leaf whatever depth it ends at.
+ * Used to check move generation and flipping against known counts, and to time them.
+ *
+ * Usage: Perft depth [--divide] [--threads N] [--position "squares side"] [--verify] [--size N]
+ *   --divide    print the count under each root move
+ *   --threads   count in parallel with N threads, and also single-threaded for comparison
+ *   --position  start from a position in Game.toString format instead of the starting position
+ *   --verify    check depths 1 to depth from the starting position against the known counts
+ *   --size      count from the starting position of an NxN board instead, with SizedBoard
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class Perft {
+    /**
+     * Known leaf counts from the starting position, indexed by depth.
+     */
+    static final long[] KNOWN = {
+            1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L,
+            212258800L, 1939886636L, 18429641748L, 184042084512L
+    };
+
+    /**
+     * Main method.
+     *
+     * @param args Command-line arguments, see the class description.
+     * @since 1.0
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: Perft depth [--divide] [--threads N] [--position \"squares side\"] [--verify]"
+                    + " [--size N]");
+            System.exit(2);
+        }
+
+        int depth = Integer.parseInt(args[0]);
+        boolean divide = false;
+        boolean verify = false;
+        int threads = 1;
+        int size = BoardState.SIZE;
+        Game game = new Game();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--divide":
+                    divide = true;
+                    break;
+                case "--verify":
+                    verify = true;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--position":
+                    game = Game.fromString(args[++i]);
+                    break;
+                case "--size":
+                    size = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        if (verify) {
+            System.exit(verify(depth, threads) ? 0 : 1);
+        }
+        if (size != BoardState.SIZE) {
+            runSized(size, depth);
+            return;
+        }
+
+        boolean isBlack = game.isBlackTurn();
+        long own = game.getBoard().getBitboard(isBlack);
+        long opp = game.getBoard().getBitboard(!isBlack);
+
+        if (divide) {
+            divide(own, opp, depth);
+        }
+        run("single", own, opp, depth, 1);
+        if (threads > 1) {
+            run("parallel x" + threads, own, opp, depth, threads);
+        }
+    }
+
+    /**
+     * Method to count leaves on the current thread.
+     *
+     * @param own   Mask of the side to move.
+     * @param opp   Mask of the opponent.
+     * @param depth Depth to count to.
+     * @return Number of leaves.
+     * @since 1.0
+     */
+    public static long count(long own, long opp, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long moves = Bitboard.legalMoves(own, opp);
+        if (moves == 0) {
+            if (Bitboard.legalMoves(opp, own) == 0) {
+                return 1;
+            }
+            return count(opp, own, depth - 1);
+        }
+
+        // the last ply only needs the number of moves, not the moves themselves
+        if (depth == 1) {
+            return Long.bitCount(moves);
+        }
+
+        long total = 0;
+        while (moves != 0) {
+            int move = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            long flipped = Bitboard.flips(own, opp, move);
+            total += count(opp & ~flipped, own | flipped | (1L << move), depth - 1);
+        }
+        return total;
+    }
+
+    /**
+     * Method to count leaves with several threads.
+     * The tree is expanded breadth-first until there are enough subtrees to keep every thread busy,
+     * then the subtrees are counted in parallel.
+     *
+     * @param own     Mask of the side to move.
+     * @param opp     Mask of the opponent.
+     * @param depth   Depth to count to.
+     * @param threads Number of threads.
+     * @return Number of leaves.
+     * @since 1.0
+     */
+    public static long countParallel(long own, long opp, int depth, int threads) {
+        // frontier holds own, opp pairs, finished holds leaves reached while expanding
+        List<long[]> frontier = new ArrayList<>();
+        frontier.add(new long[]{own, opp});
+        long finished = 0;
+        int remaining = depth;
+        while (remaining > 0 && frontier.size() < threads * 16) {
+            List<long[]> next = new ArrayList<>();
+            for (long[] node : frontier) {
+                long moves = Bitboard.legalMoves(node[0], node[1]);
+                if (moves == 0) {
+                    if (Bitboard.legalMoves(node[1], node[0]) == 0) {
+                        finished++;
+                    } else {
+                        next.add(new long[]{node[1], node[0]});
+                    }
+                    continue;
+                }
+                while (moves != 0) {
+                    int move = Long.numberOfTrailingZeros(moves);
+                    moves &= moves - 1;
+                    long flipped = Bitboard.flips(node[0], node[1], move);
+                    next.add(new long[]{node[1] & ~flipped, node[0] | flipped | (1L << move)});
+                }
+            }
+            frontier = next;
+            remaining--;
+        }
+
+        int leafDepth = remaining;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<long[]> subtrees = frontier;
+            long counted = pool.submit(() -> subtrees.parallelStream()
+                    .mapToLong(node -> count(node[0], node[1], leafDepth))
+                    .sum()).join();
+            return finished + counted;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Method to print the leaf count under each root move.
+     *
+     * @param own   Mask of the side to move.
+     * @param opp   Mask of the opponent.
+     * @param depth Depth to count to.
+     * @since 1.0
+     */
+    private static void divide(long own, long opp, int depth) {
+        long moves = Bitboard.legalMoves(own, opp);
+        if (moves == 0 || depth == 0) {
+            System.out.println("(no moves to divide)");
+            return;
+        }
+        while (moves != 0) {
+            int move = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            long flipped = Bitboard.flips(own, opp, move);
+            long leaves = count(opp & ~flipped, own | flipped | (1L << move), depth - 1);
+            System.out.printf("%s %d%n", squareName(move), leaves);
+        }
+    }
+
+    /**
+     * Method to time one count and print the result.
+     *
+     * @since 1.0
+     */
+    private static long run(String label, long own, long opp, int depth, int threads) {
+        long start = System.nanoTime();
+        long leaves = threads > 1 ? countParallel(own, opp, depth, threads) : count(own, opp, depth);
+        long nanos = Math.max(1, System.nanoTime() - start);
+        System.out.printf("%-12s depth %2d  leaves %,18d  %10.1f ms  %,15d leaves/s%n",
+                label, depth, leaves, nanos / 1e6, (long) (leaves * 1e9 / nanos));
+        return leaves;
+    }
+
+    /**
+     * Method to time one count on a board of another size and print the result.
+     *
+     * @param size  Number of rows and columns.
+     * @param depth Depth to count to.
+     * @since 1.0
+     */
+    private static void runSized(int size, int depth) {
+        SizedBoard board = SizedBoard.create(size);
+        long start = System.nanoTime();
+        long leaves = board.perft(false, depth);
+        long nanos = Math.max(1, System.nanoTime() - start);
+        System.out.printf("%-12s depth %2d  leaves %,18d  %10.1f ms  %,15d leaves/s%n",
+                size + "x" + size, depth, leaves, nanos / 1e6, (long) (leaves * 1e9 / nanos));
+    }
+
+    /**
+     * Method to check counts from the starting position against the known values.
+     *
+     * @param maxDepth Deepest depth to check.
+     * @param threads  Threads to count with.
+     * @return True if every count matched.
+     * @since 1.0
+     */
+    private static boolean verify(int maxDepth, int threads) {
+        if (maxDepth >= KNOWN.length) {
+            throw new IllegalArgumentException("Known counts only go up to depth " + (KNOWN.length - 1));
+        }
+        BoardState start = new BoardState();
+        long own = start.getBitboard(false);
+        long opp = start.getBitboard(true);
+
+        boolean ok = true;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long leaves = run(threads > 1 ? "parallel x" + threads : "single", own, opp, depth, threads);
+            if (leaves != KNOWN[depth]) {
+                System.out.printf("MISMATCH at depth %d: expected %d%n", depth, KNOWN[depth]);
+                ok = false;
+            }
+        }
+        System.out.println(ok ? "All counts match" : "Counts do not match");
+        return ok;
+    }
+
+    /**
+     * Method to name a square the usual way, column letter then row number.
+     *
+     * @param square Square as row * 8 + col.
+     * @return Name such as "d3".
+     * @since 1.0
+     */
+    static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (1 + (square >> 3));
+    }
+}
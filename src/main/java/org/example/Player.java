@@ -0,0 +1,40 @@
+/**
+ * Interface for anything that can choose a move, e.g. an AI.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public interface Player {
+    /**
+     * Method to choose a move for the side to move.
+     * Implementations must not change the game passed in.
+     *
+     * @param game Game to choose a move in.
+     * @return Square to play as row * 8 + col, or Game.PASS if there is no legal move.
+     * @since 1.0
+     */
+    int chooseMove(Game game);
+
+    /**
+     * Method to ask a move that is being chosen on another thread to finish early.
+     * Players that can stop return their best move so far; the rest just finish as normal.
+     *
+     * @since 1.0
+     */
+    default void stop() {
+    }
+
+    /**
+     * Mutator method for who hears how the search is getting on.
+     * Players that don't search in iterations never call it.
+     *
+     * @param listener Listener, or null for none.
+     * @since 1.0
+     */
+    default void setProgressListener(ProgressListener listener) {
+    }
+}
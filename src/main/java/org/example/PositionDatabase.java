@@ -0,0 +1,385 @@
+/**
+ * On-disk store of analysed positions, e.g. for an opening book.
+ * Each entry holds a score, best move, search depth and visit count for one position.
+ * Positions are stored in a canonical form, the smallest of the 8 rotations and reflections of the board,
+ * so a position and its mirror images share one entry. Best moves are turned back into the caller's
+ * orientation on lookup.
+ *
+ * The file is a hash table with linear probing. It starts with a 24 byte header (the magic "URPD",
+ * a 2 byte version, 2 reserved bytes, the capacity and the number of entries), followed by capacity entries of
+ * 24 bytes: the canonical mover's mask, the canonical opponent's mask and a data word.
+ * The file is memory-mapped in segments, so it is never read onto the heap and can be bigger than 2 GB.
+ * Lookups can run alongside each other and alongside stores. Stores are synchronized.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PositionDatabase implements Closeable {
+    /**
+     * Move value stored when an entry has no best move.
+     */
+    public static final int NO_MOVE = 127;
+    /**
+     * Magic number at the start of every database, "URPD" in ASCII.
+     */
+    static final int MAGIC = 0x55525044;
+    /**
+     * Format version written to the header.
+     */
+    static final short VERSION = 1;
+    /**
+     * Bytes used by the header and by each entry.
+     */
+    private static final int ENTRY_BYTES = 24;
+    /**
+     * Entries per mapped segment, as a power of two. 2^25 entries is 768 MB.
+     */
+    private static final int SEGMENT_SHIFT = 25;
+    /**
+     * Bit set in every stored data word, so a data word of 0 always means "not found".
+     */
+    private static final long PRESENT = 1L << 63;
+
+    // data word layout, low bits first:
+    // score 16 bits (signed) | depth 8 bits | move 8 bits | visits 31 bits | present 1 bit
+
+    /**
+     * Channel for the database file.
+     */
+    private final FileChannel channel;
+    /**
+     * Mapping of the header.
+     */
+    private final MappedByteBuffer header;
+    /**
+     * Mappings of the entries, 2^SEGMENT_SHIFT entries each.
+     */
+    private final MappedByteBuffer[] segments;
+    /**
+     * Number of entries the file has room for. Always a power of two.
+     */
+    private final long capacity;
+    /**
+     * Number of entries in use.
+     */
+    private long count;
+
+    /**
+     * Constructor method. Opens an existing database.
+     *
+     * @param path Path of the database.
+     * @throws IOException If the file doesn't exist, can't be mapped or isn't a position database.
+     * @since 1.0
+     */
+    public PositionDatabase(Path path) throws IOException {
+        this(path, 0);
+    }
+
+    /**
+     * Constructor method. Opens a database, creating it if it doesn't exist.
+     *
+     * @param path     Path of the database.
+     * @param capacity Number of positions a new database has room for, rounded up to a power of two.
+     *                 Ignored if the database already exists, and 0 means the database must already exist.
+     * @throws IOException If the file can't be opened or mapped, or isn't a position database.
+     * @since 1.0
+     */
+    public PositionDatabase(Path path, long capacity) throws IOException {
+        if (capacity < 0 || capacity > 1L << 40) {
+            throw new IllegalArgumentException("Capacity must be between 0 and 2^40");
+        }
+        channel = capacity > 0
+                ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            if (created && capacity == 0) {
+                throw new IOException("Not a position database: " + path);
+            }
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, ENTRY_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (created) {
+                this.capacity = Math.max(16, Long.highestOneBit(capacity - 1) << 1);
+                header.putInt(0, MAGIC).putShort(4, VERSION).putShort(6, (short) 0)
+                        .putLong(8, this.capacity).putLong(16, 0);
+            } else {
+                if (header.getInt(0) != MAGIC) {
+                    throw new IOException("Not a position database: " + path);
+                }
+                this.capacity = header.getLong(8);
+            }
+            count = header.getLong(16);
+
+            // mapping past the end of the file grows it, sparsely on most file systems
+            long segmentEntries = 1L << SEGMENT_SHIFT;
+            segments = new MappedByteBuffer[(int) ((this.capacity + segmentEntries - 1) >> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long entries = Math.min(segmentEntries, this.capacity - i * segmentEntries);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        ENTRY_BYTES + i * segmentEntries * ENTRY_BYTES, entries * ENTRY_BYTES);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Method to look up a position.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Data word of the entry, with its move turned to match the given board, or 0 if the position isn't stored.
+     * @since 1.0
+     */
+    public long probe(long own, long opp) {
+        int symmetry = Symmetry.canonical(own, opp);
+        long canonicalOwn = Symmetry.apply(own, symmetry);
+        long canonicalOpp = Symmetry.apply(opp, symmetry);
+        long slot = find(canonicalOwn, canonicalOpp);
+        if (slot < 0) {
+            return 0;
+        }
+        long data = segment(slot).getLong(offset(slot) + 16);
+        if (data == 0) {
+            // another thread has claimed the slot but not written it yet
+            return 0;
+        }
+        int move = move(data);
+        if (move != NO_MOVE) {
+            move = Symmetry.square(move, Symmetry.inverse(symmetry));
+        }
+        return (data & ~(0xFFL << 24)) | ((long) move << 24);
+    }
+
+    /**
+     * Method to store an analysed position.
+     * An entry that was already searched deeper keeps its score and move.
+     *
+     * @param own   Mask of the side to move.
+     * @param opp   Mask of the opponent.
+     * @param score Score from the side to move's point of view.
+     * @param move  Best move as row * 8 + col, or NO_MOVE.
+     * @param depth Depth the position was searched to.
+     * @throws IllegalStateException If the database is full.
+     * @since 1.0
+     */
+    public synchronized void store(long own, long opp, int score, int move, int depth) {
+        int symmetry = Symmetry.canonical(own, opp);
+        long slot = claim(Symmetry.apply(own, symmetry), Symmetry.apply(opp, symmetry));
+        MappedByteBuffer segment = segment(slot);
+        int offset = offset(slot) + 16;
+        long old = segment.getLong(offset);
+        if (old != 0 && depth(old) > depth) {
+            return;
+        }
+        int stored = move == NO_MOVE ? NO_MOVE : Symmetry.square(move, symmetry);
+        segment.putLong(offset, pack(score, depth, stored, old == 0 ? 0 : visits(old)));
+    }
+
+    /**
+     * Method to count visits to a position, e.g. once per game that reached it.
+     *
+     * @param own    Mask of the side to move.
+     * @param opp    Mask of the opponent.
+     * @param visits Number of visits to add.
+     * @throws IllegalStateException If the database is full.
+     * @since 1.0
+     */
+    public synchronized void addVisits(long own, long opp, int visits) {
+        int symmetry = Symmetry.canonical(own, opp);
+        long slot = claim(Symmetry.apply(own, symmetry), Symmetry.apply(opp, symmetry));
+        MappedByteBuffer segment = segment(slot);
+        int offset = offset(slot) + 16;
+        long old = segment.getLong(offset);
+        long total = Math.min(Integer.MAX_VALUE, (old == 0 ? 0L : visits(old)) + visits);
+        segment.putLong(offset, old == 0
+                ? pack(0, 0, NO_MOVE, (int) total)
+                : pack(score(old), depth(old), move(old), (int) total));
+    }
+
+    /**
+     * Method to make sure everything stored so far is on disk.
+     *
+     * @since 1.0
+     */
+    public synchronized void flush() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Method to close the database. Stored entries are flushed to disk first.
+     *
+     * @throws IOException If closing fails.
+     * @since 1.0
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Accessor method for the number of positions stored.
+     *
+     * @return Number of entries in use.
+     * @since 1.0
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Accessor method for the number of entries the database has room for.
+     *
+     * @return Number of entries.
+     * @since 1.0
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Decoder for the score of an entry.
+     *
+     * @param data Data word returned by probe.
+     * @return Score from the side to move's point of view.
+     * @since 1.0
+     */
+    public static int score(long data) {
+        return (short) data;
+    }
+
+    /**
+     * Decoder for the depth of an entry.
+     *
+     * @param data Data word returned by probe.
+     * @return Depth the entry was searched to.
+     * @since 1.0
+     */
+    public static int depth(long data) {
+        return (int) (data >>> 16) & 0xFF;
+    }
+
+    /**
+     * Decoder for the best move of an entry.
+     *
+     * @param data Data word returned by probe.
+     * @return Best move as row * 8 + col, or NO_MOVE.
+     * @since 1.0
+     */
+    public static int move(long data) {
+        return (int) (data >>> 24) & 0xFF;
+    }
+
+    /**
+     * Decoder for the visit count of an entry.
+     *
+     * @param data Data word returned by probe.
+     * @return Number of visits.
+     * @since 1.0
+     */
+    public static int visits(long data) {
+        return (int) (data >>> 32) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Method to pack the fields of an entry into a data word.
+     *
+     * @since 1.0
+     */
+    private static long pack(int score, int depth, int move, int visits) {
+        return (score & 0xFFFFL)
+                | ((long) (depth & 0xFF) << 16)
+                | ((long) (move & 0xFF) << 24)
+                | ((long) visits << 32)
+                | PRESENT;
+    }
+
+    /**
+     * Method to find the slot holding a canonical position.
+     *
+     * @return Slot index, or -1 if the position isn't stored.
+     * @since 1.0
+     */
+    private long find(long own, long opp) {
+        long mask = capacity - 1;
+        for (long slot = Zobrist.hash(own, opp) & mask; ; slot = (slot + 1) & mask) {
+            MappedByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            long storedOwn = segment.getLong(offset);
+            long storedOpp = segment.getLong(offset + 8);
+            if (storedOwn == own && storedOpp == opp) {
+                return slot;
+            }
+            // no real position has an empty board, so two zero masks mark an empty slot
+            if (storedOwn == 0 && storedOpp == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Method to find the slot for a canonical position, taking an empty one if it isn't stored yet.
+     *
+     * @return Slot index.
+     * @throws IllegalStateException If the database is full.
+     * @since 1.0
+     */
+    private long claim(long own, long opp) {
+        long slot = find(own, opp);
+        if (slot >= 0) {
+            return slot;
+        }
+        // keep a quarter of the slots empty so probe sequences stay short
+        if (count >= capacity - (capacity >> 2)) {
+            throw new IllegalStateException("Position database is full: " + count + " entries");
+        }
+        long mask = capacity - 1;
+        for (slot = Zobrist.hash(own, opp) & mask; ; slot = (slot + 1) & mask) {
+            MappedByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            if (segment.getLong(offset) == 0 && segment.getLong(offset + 8) == 0) {
+                segment.putLong(offset + 16, 0);
+                segment.putLong(offset + 8, opp);
+                segment.putLong(offset, own);
+                header.putLong(16, ++count);
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Accessor method for the segment holding a slot.
+     *
+     * @since 1.0
+     */
+    private MappedByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)];
+    }
+
+    /**
+     * Method to get the offset of a slot within its segment.
+     *
+     * @since 1.0
+     */
+    private static int offset(long slot) {
+        return (int) (slot & ((1L << SEGMENT_SHIFT) - 1)) * ENTRY_BYTES;
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Interface for anything that wants to hear how a search is getting on, e.g. to show it in the GUI.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public interface ProgressListener {
+    /**
+     * Method called each time a search finishes an iteration. Called on the searching thread.
+     *
+     * @param depth Depth just finished.
+     * @param move  Best move found so far, as row * 8 + col.
+     * @param score Score of that move for the side to move.
+     * @since 1.0
+     */
+    void progress(int depth, int move, int score);
+}
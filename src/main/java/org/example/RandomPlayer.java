@@ -0,0 +1,58 @@
+/**
+ * AI that plays a uniformly random legal move. Useful as a baseline opponent.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.SplittableRandom;
+
+public class RandomPlayer implements Player {
+    /**
+     * Random number generator. Not thread-safe, so neither is this player.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Constructor method.
+     *
+     * @param seed Seed for the random number generator, so games can be replayed.
+     * @since 1.0
+     */
+    public RandomPlayer(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Method to choose a random legal move.
+     *
+     * @param game Game to choose a move in.
+     * @return Square to play as row * 8 + col, or Game.PASS if there is no legal move.
+     * @since 1.0
+     */
+    @Override
+    public int chooseMove(Game game) {
+        return pick(game.legalMoves(), random);
+    }
+
+    /**
+     * Method to pick one move from a mask at random.
+     *
+     * @param moves  Mask of moves.
+     * @param random Random number generator to use.
+     * @return Chosen square, or Game.PASS if the mask is empty.
+     * @since 1.0
+     */
+    static int pick(long moves, SplittableRandom random) {
+        if (moves == 0) {
+            return Game.PASS;
+        }
+        for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+            moves &= moves - 1;
+        }
+        return Long.numberOfTrailingZeros(moves);
+    }
+}
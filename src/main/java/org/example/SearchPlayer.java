@@ -0,0 +1,537 @@
+/**
+ * Searching AI. Looks ahead with negamax and alpha-beta pruning,
+ * deepening one ply at a time until it runs out of time.
+ * An instance keeps statistics about its last search, so it should only be used by one thread at a time.
+ * Several instances can share one transposition table, see ParallelSearch.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public class SearchPlayer implements Player {
+    /**
+     * Score bigger than any real score, used as the initial search window.
+     */
+    public static final int INFINITY = 32000;
+    /**
+     * Score given to a won game, before adding the disc difference.
+     * Kept well above anything the evaluation can return so a sure win always beats a good-looking position.
+     */
+    public static final int WIN_SCORE = 10000;
+    /**
+     * How many nodes to search between checks of the clock.
+     */
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+    /**
+     * Size of the transposition table made by the shorter constructors, in MB.
+     */
+    public static final int DEFAULT_TABLE_SIZE = 16;
+    /**
+     * Default number of empty squares at which the exact endgame solver takes over.
+     * Kept low enough that the solver nearly always finishes well inside a normal time limit.
+     */
+    public static final int DEFAULT_ENDGAME_EMPTIES = 14;
+    /**
+     * Time allowed per move in milliseconds.
+     */
+    private final long timeLimit;
+    /**
+     * Deepest iteration to search to, in plies.
+     */
+    private final int maxDepth;
+    /**
+     * Transposition table shared by every search this player makes. Null if disabled.
+     */
+    private final TranspositionTable table;
+    /**
+     * Solver used once few enough squares are empty.
+     */
+    private final EndgameSolver solver = new EndgameSolver();
+    /**
+     * Orders the moves at each node, and learns from cutoffs as the search goes.
+     */
+    private MoveOrdering ordering = new MoveOrdering(MoveOrdering.DEFAULT);
+    /**
+     * Evaluation used at the leaves of the search.
+     */
+    private Evaluator evaluator = Evaluator.getDefault();
+    /**
+     * Number of empty squares at which the solver takes over from the search. 0 to never solve.
+     */
+    private int endgameEmpties = DEFAULT_ENDGAME_EMPTIES;
+    /**
+     * Time in System.nanoTime() at which the current search has to stop.
+     */
+    private long deadline;
+    /**
+     * Boolean set to true once the deadline has passed. Results from an interrupted iteration are thrown away.
+     */
+    private boolean timeUp;
+    /**
+     * Boolean set by another thread to end the current search early, e.g. when a parallel search finishes.
+     */
+    private volatile boolean stopped;
+    /**
+     * Told about each finished iteration, or null for nobody.
+     */
+    private ProgressListener progressListener;
+    /**
+     * First iteration depth. Helper threads in a parallel search start deeper so they don't all duplicate work.
+     */
+    private int firstDepth = 1;
+    /**
+     * How far to rotate the root moves after the first. Helpers use different amounts, so even two helpers
+     * on the same iteration start down different lines and fill the table with different positions.
+     */
+    private int rootShift;
+    /**
+     * Boolean set to true if this player starts a new table generation for each search.
+     * Helpers sharing a table leave that to the main searcher.
+     */
+    private boolean ownsTable = true;
+    /**
+     * Number of nodes visited by the current search.
+     */
+    private long nodes;
+    /**
+     * Number of transposition table probes made by the current search.
+     */
+    private long probes;
+    /**
+     * Number of those probes that found an entry.
+     */
+    private long hits;
+    /**
+     * Time taken by the last search, in nanoseconds.
+     */
+    private long lastNanos;
+    /**
+     * Deepest iteration that finished in the last search.
+     */
+    private int lastDepth;
+    /**
+     * Score of the last move chosen, from the point of view of the side that played it.
+     */
+    private int lastScore;
+
+    /**
+     * Constructor method. Searches as deep as the time limit allows.
+     *
+     * @param timeLimit Time allowed per move in milliseconds.
+     * @since 1.0
+     */
+    public SearchPlayer(long timeLimit) {
+        this(timeLimit, 60);
+    }
+
+    /**
+     * Constructor method.
+     *
+     * @param timeLimit Time allowed per move in milliseconds.
+     * @param maxDepth  Deepest iteration to search to, in plies.
+     * @since 1.0
+     */
+    public SearchPlayer(long timeLimit, int maxDepth) {
+        this(timeLimit, maxDepth, new TranspositionTable(DEFAULT_TABLE_SIZE));
+    }
+
+    /**
+     * Constructor method.
+     *
+     * @param timeLimit Time allowed per move in milliseconds.
+     * @param maxDepth  Deepest iteration to search to, in plies.
+     * @param table     Transposition table to use, or null to search without one.
+     * @since 1.0
+     */
+    public SearchPlayer(long timeLimit, int maxDepth, TranspositionTable table) {
+        if (timeLimit <= 0 || maxDepth <= 0) {
+            throw new IllegalArgumentException("Time limit and depth must be positive");
+        }
+        this.timeLimit = timeLimit;
+        this.maxDepth = maxDepth;
+        this.table = table;
+    }
+
+    /**
+     * Method to choose a move by iterative deepening.
+     * Each iteration searches one ply deeper than the last, starting with the previous best move.
+     * When the deadline is reached, the best move of the last finished iteration is played.
+     *
+     * @param game Game to choose a move in.
+     * @return Square to play as row * 8 + col, or Game.PASS if there is no legal move.
+     * @since 1.0
+     */
+    @Override
+    public int chooseMove(Game game) {
+        long start = System.nanoTime();
+        deadline = start + timeLimit * 1_000_000L;
+        timeUp = false;
+        // helpers are reset by the parallel search before they start, in case they get stopped before running
+        if (ownsTable) {
+            stopped = false;
+            solver.clearStop();
+        }
+        nodes = 0;
+        probes = 0;
+        hits = 0;
+        lastDepth = 0;
+        lastScore = 0;
+
+        boolean isBlack = game.isBlackTurn();
+        long own = game.getBoard().getBitboard(isBlack);
+        long opp = game.getBoard().getBitboard(!isBlack);
+        long moves = Bitboard.legalMoves(own, opp);
+        if (moves == 0) {
+            lastNanos = System.nanoTime() - start;
+            return Game.PASS;
+        }
+        long hash = game.getBoard().getHash() ^ (isBlack ? Zobrist.SIDE : 0);
+        if (table != null && ownsTable) {
+            table.newSearch();
+        }
+        ordering.newSearch();
+
+        // close to the end, play perfectly instead of guessing, given half the time
+        // so that if the solve can't finish the search below still has the rest
+        int empties = Long.bitCount(~(own | opp));
+        if (empties <= endgameEmpties) {
+            int result = solver.solveMove(own, opp, start + timeLimit * 500_000L);
+            nodes = solver.getNodes();
+            if (!solver.isAborted()) {
+                int diff = EndgameSolver.score(result);
+                lastDepth = empties;
+                lastScore = diff > 0 ? WIN_SCORE + diff : diff < 0 ? -WIN_SCORE + diff : 0;
+                lastNanos = System.nanoTime() - start;
+                Metrics.search(nodes, probes, hits);
+                return EndgameSolver.move(result);
+            }
+        }
+
+        // if time runs out before depth 1 finishes, any legal move is better than nothing
+        int best = Long.numberOfTrailingZeros(moves);
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+            int move = searchRoot(own, opp, hash, isBlack, moves, depth, best);
+            if (timeUp) {
+                break;
+            }
+            best = move;
+            lastDepth = depth;
+            if (progressListener != null) {
+                progressListener.progress(depth, best, lastScore);
+            }
+
+            // nothing more to find once the search reaches the end of the game
+            if (depth >= empties) {
+                break;
+            }
+        }
+
+        lastNanos = System.nanoTime() - start;
+        Metrics.search(nodes, probes, hits);
+        return best;
+    }
+
+    /**
+     * Method to search every root move to a fixed depth.
+     *
+     * @param own      Mask of the side to move.
+     * @param opp      Mask of the opponent.
+     * @param hash     Hash of the position, including the side to move.
+     * @param isBlack  Boolean representing the side to move - true if black, false if white.
+     * @param moves    Mask of legal moves.
+     * @param depth    Depth to search to.
+     * @param previous Best move of the previous iteration, searched first.
+     * @return Best move found.
+     * @since 1.0
+     */
+    private int searchRoot(long own, long opp, long hash, boolean isBlack, long moves, int depth, int previous) {
+        int alpha = -INFINITY;
+        int best = previous;
+
+        // search the previous best move first, it is most likely to still be the best
+        // and gives the tightest window for the rest
+        int count = ordering.order(own, opp, moves, isBlack, 0, depth, previous);
+        int[] list = ordering.moves(0);
+        int shift = count > 1 ? rootShift % (count - 1) : 0;
+        for (int i = 0; i < count; i++) {
+            // the first move stays first, the rest are rotated by the helper's shift
+            int move = i == 0 ? list[0] : list[1 + (i - 1 + shift) % (count - 1)];
+            long flipped = Bitboard.flips(own, opp, move);
+            long childHash = hash ^ Zobrist.SIDE ^ Zobrist.place(move, isBlack) ^ Zobrist.flips(flipped);
+            int score = -negamax(opp & ~flipped, own | flipped | (1L << move), childHash, !isBlack,
+                    depth - 1, 1, -INFINITY, -alpha);
+            if (timeUp) {
+                return best;
+            }
+            if (score > alpha) {
+                alpha = score;
+                best = move;
+            }
+        }
+
+        lastScore = alpha;
+        if (table != null) {
+            table.store(hash, depth, alpha, TranspositionTable.EXACT, best);
+        }
+        return best;
+    }
+
+    /**
+     * Negamax search with alpha-beta pruning.
+     * Scores are always from the point of view of the side to move.
+     * Results are stored in the transposition table, and the stored best move is searched first.
+     *
+     * @param own     Mask of the side to move.
+     * @param opp     Mask of the opponent.
+     * @param hash    Hash of the position, including the side to move.
+     * @param isBlack Boolean representing the side to move - true if black, false if white.
+     * @param depth   Remaining depth in plies.
+     * @param ply     Plies from the root, passes included.
+     * @param alpha   Lower bound of the search window.
+     * @param beta    Upper bound of the search window.
+     * @return Score of the position, or 0 if the deadline passed.
+     * @since 1.0
+     */
+    private int negamax(long own, long opp, long hash, boolean isBlack, int depth, int ply, int alpha, int beta) {
+        nodes++;
+        if ((nodes & (CLOCK_CHECK_INTERVAL - 1)) == 0 && (stopped || System.nanoTime() - deadline >= 0)) {
+            timeUp = true;
+        }
+        if (timeUp) {
+            return 0;
+        }
+
+        long moves = Bitboard.legalMoves(own, opp);
+        if (moves == 0) {
+            if (Bitboard.legalMoves(opp, own) == 0) {
+                return finalScore(own, opp);
+            }
+            // pass - the opponent moves from the same position
+            return -negamax(opp, own, hash ^ Zobrist.SIDE, !isBlack, depth, ply + 1, -beta, -alpha);
+        }
+        if (depth == 0) {
+            return evaluator.evaluate(own, opp);
+        }
+
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (table != null) {
+            long entry = table.probe(hash);
+            probes++;
+            if (entry != 0) {
+                hits++;
+                ttMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int flag = TranspositionTable.flag(entry);
+                    int score = TranspositionTable.score(entry);
+                    if (flag == TranspositionTable.EXACT
+                            || (flag == TranspositionTable.LOWER && score >= beta)
+                            || (flag == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = TranspositionTable.NO_MOVE;
+
+        // the stored move goes first, then the rest as the move ordering sees fit
+        int count = ordering.order(own, opp, moves, isBlack, ply, depth, ttMove);
+        int[] list = ordering.moves(ply);
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            long flipped = Bitboard.flips(own, opp, move);
+            long childHash = hash ^ Zobrist.SIDE ^ Zobrist.place(move, isBlack) ^ Zobrist.flips(flipped);
+            int score = -negamax(opp & ~flipped, own | flipped | (1L << move), childHash, !isBlack,
+                    depth - 1, ply + 1, -beta, -alpha);
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        // a cutoff cut short by the deadline proves nothing
+                        if (!timeUp) {
+                            ordering.cutoff(move, isBlack, ply, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        // a search cut short by the deadline has a meaningless score, so don't keep it
+        if (table != null && !timeUp) {
+            int flag;
+            if (best <= originalAlpha) {
+                flag = TranspositionTable.UPPER;
+            } else if (best >= beta) {
+                flag = TranspositionTable.LOWER;
+            } else {
+                flag = TranspositionTable.EXACT;
+            }
+            table.store(hash, depth, best, flag, bestMove);
+        }
+
+        return best;
+    }
+
+    /**
+     * Method to score a finished game.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return WIN_SCORE plus the disc difference for a win, minus that for a loss, 0 for a draw.
+     * @since 1.0
+     */
+    static int finalScore(long own, long opp) {
+        int diff = Long.bitCount(own) - Long.bitCount(opp);
+        if (diff > 0) {
+            return WIN_SCORE + diff;
+        } else if (diff < 0) {
+            return -WIN_SCORE + diff;
+        }
+        return 0;
+    }
+
+    /**
+     * Accessor method for the number of nodes visited by the last search.
+     *
+     * @return Node count.
+     * @since 1.0
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Accessor method for the speed of the last search.
+     *
+     * @return Nodes visited per second.
+     * @since 1.0
+     */
+    public long getNodesPerSecond() {
+        if (lastNanos == 0) {
+            return 0;
+        }
+        return nodes * 1_000_000_000L / lastNanos;
+    }
+
+    /**
+     * Accessor method for the transposition table hit rate of the last search.
+     *
+     * @return Hit rate between 0 and 1, or 0 if there is no table.
+     * @since 1.0
+     */
+    public double getTableHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Mutator method for the evaluation used at the leaves of the search.
+     *
+     * @param evaluator Evaluator to use.
+     * @since 1.0
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Mutator method for how moves are ordered. Anything learnt by the old ordering is thrown away.
+     *
+     * @param features Parts of MoveOrdering to switch on, e.g. MoveOrdering.DEFAULT or MoveOrdering.ALL.
+     * @since 1.0
+     */
+    public void setMoveOrdering(int features) {
+        ordering = new MoveOrdering(features);
+    }
+
+    /**
+     * Mutator method for when the exact endgame solver takes over from the search.
+     * The solver gets half the time limit, and if it can't finish the search plays on with the rest,
+     * so values too high for the time limit waste half of it.
+     *
+     * @param endgameEmpties Number of empty squares at which to solve, at most EndgameSolver.MAX_EMPTIES.
+     *                       0 to never solve.
+     * @since 1.0
+     */
+    public void setEndgameEmpties(int endgameEmpties) {
+        if (endgameEmpties < 0 || endgameEmpties > EndgameSolver.MAX_EMPTIES) {
+            throw new IllegalArgumentException("Endgame empties must be between 0 and " + EndgameSolver.MAX_EMPTIES);
+        }
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    /**
+     * Method to end the current search early from another thread.
+     * The search returns its best move so far, as if the deadline had passed.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+        solver.stop();
+    }
+
+    /**
+     * Mutator method for who hears about each finished iteration.
+     *
+     * @param listener Listener, or null for none.
+     * @since 1.0
+     */
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+        progressListener = listener;
+    }
+
+    /**
+     * Method to turn this player into a helper for a parallel search.
+     * Helpers start at a deeper iteration, try the root moves in a different order,
+     * and leave the shared table's generation alone.
+     *
+     * @param firstDepth First iteration depth to search.
+     * @param rootShift  How far to rotate the root moves after the first, 0 for the usual order.
+     * @since 1.0
+     */
+    void makeHelper(int firstDepth, int rootShift) {
+        this.firstDepth = firstDepth;
+        this.rootShift = rootShift;
+        this.ownsTable = false;
+    }
+
+    /**
+     * Method to clear a stop request on a helper, before handing it a new search.
+     *
+     * @since 1.0
+     */
+    void clearStop() {
+        stopped = false;
+        solver.clearStop();
+    }
+
+    /**
+     * Accessor method for the deepest iteration that finished in the last search.
+     *
+     * @return Depth in plies.
+     * @since 1.0
+     */
+    public int getDepthReached() {
+        return lastDepth;
+    }
+
+    /**
+     * Accessor method for the score of the last move chosen.
+     *
+     * @return Score from the point of view of the side that played the move.
+     * @since 1.0
+     */
+    public int getScore() {
+        return lastScore;
+    }
+}
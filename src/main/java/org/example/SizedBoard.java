@@ -0,0 +1,157 @@
+/**
+ * Board for the larger and smaller variants, from 6x6 up to 16x16. Played through SizedGame and SizedModel,
+ * and counted and timed by Perft --size and SizedBoardBenchmark.
+ * Squares are numbered row * size + col, and the side to move is passed in, as with BoardState.
+ * Use create to get one: boards up to 8x8 fit in a pair of 64-bit masks and reuse Bitboard,
+ * anything bigger is kept in a flat array with a border of sentinel cells around it,
+ * so walking off the edge just meets a cell that is neither colour and no square needs a bounds check.
+ *
+ * The standard game and its search AIs stay on BoardState, which is fixed at 8x8.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public abstract class SizedBoard {
+    /**
+     * Smallest board size supported.
+     */
+    public static final int MIN_SIZE = 6;
+    /**
+     * Largest board size supported.
+     */
+    public static final int MAX_SIZE = 16;
+
+    /**
+     * Number of rows, which is also the number of columns.
+     */
+    private final int size;
+
+    /**
+     * Constructor method.
+     *
+     * @param size Number of rows and columns.
+     * @since 1.0
+     */
+    SizedBoard(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Method to make a board with the usual four counters in the middle, white to move.
+     *
+     * @param size Number of rows and columns. Must be even, so the starting counters can sit in the middle.
+     * @return New board, using whichever layout is fastest for the size.
+     * @throws IllegalArgumentException If the size is odd or out of range.
+     * @since 1.0
+     */
+    public static SizedBoard create(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE || (size & 1) != 0) {
+            throw new IllegalArgumentException("Board size must be even and between " + MIN_SIZE + " and "
+                    + MAX_SIZE + ": " + size);
+        }
+        return size <= 8 ? new SmallBoard(size) : new PaddedBoard(size);
+    }
+
+    /**
+     * Accessor method for the board size.
+     *
+     * @return Number of rows, which is also the number of columns.
+     * @since 1.0
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Accessor method for the state of a given space.
+     *
+     * @param row Row of the queried space.
+     * @param col Column of the queried space.
+     * @return 1 for black, 2 for white, 0 for empty, or -1 if the space is off the board.
+     * @since 1.0
+     */
+    public abstract int getState(int row, int col);
+
+    /**
+     * Method to count how many pieces can be captured if a space is played.
+     *
+     * @param row     Row of the space.
+     * @param col     Column of the space.
+     * @param isBlack Boolean representing which side would play - true if black, false if white.
+     * @return Number of counters captured, 0 if the space is not a legal move.
+     * @since 1.0
+     */
+    public abstract int countCapture(int row, int col, boolean isBlack);
+
+    /**
+     * Method to list every legal move for one side.
+     *
+     * @param isBlack Boolean representing which side to list - true if black, false if white.
+     * @param moves   Array to write the moves to, as row * size + col. Must have room for size * size moves.
+     * @return Number of moves written.
+     * @since 1.0
+     */
+    public abstract int legalMoves(boolean isBlack, int[] moves);
+
+    /**
+     * Method to play a counter and capture everything it outflanks.
+     *
+     * @param row     Row of the space.
+     * @param col     Column of the space.
+     * @param isBlack Boolean representing which side is playing - true if black, false if white.
+     * @return Number of counters captured.
+     * @throws IllegalArgumentException If the move is not legal.
+     * @since 1.0
+     */
+    public abstract int placeCounter(int row, int col, boolean isBlack);
+
+    /**
+     * Method for checking if the game is over, i.e. neither side can move.
+     *
+     * @return True if the game is over, false if not.
+     * @since 1.0
+     */
+    public abstract boolean isGameOver();
+
+    /**
+     * Accessor method for the current disc counts.
+     *
+     * @return An array of integers containing white score and black score.
+     * @since 1.0
+     */
+    public abstract int[] getScore();
+
+    /**
+     * Method to count every line of play to a fixed depth, the same way Perft does for the standard board.
+     *
+     * @param isBlack Boolean representing the side to move - true if black, false if white.
+     * @param depth   Depth to count to.
+     * @return Number of leaves.
+     * @since 1.0
+     */
+    public abstract long perft(boolean isBlack, int depth);
+
+    /**
+     * Method to copy this board.
+     *
+     * @return Independent copy.
+     * @since 1.0
+     */
+    public abstract SizedBoard copy();
+
+    /**
+     * Method to check a space is on the board before using it in one of the public methods.
+     *
+     * @param row Row of the space.
+     * @param col Column of the space.
+     * @return True if the space is on the board.
+     * @since 1.0
+     */
+    boolean onBoard(int row, int col) {
+        return row >= 0 && col >= 0 && row < size && col < size;
+    }
+}
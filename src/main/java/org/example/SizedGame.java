@@ -0,0 +1,258 @@
+/**
+ * Class to run a single game on a SizedBoard, for the board sizes other than 8x8.
+ * Keeps track of the board, whose turn it is, passing, and the moves that can be undone and redone,
+ * the same way Game does for the standard board.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.Arrays;
+
+public class SizedGame {
+    /**
+     * Board being played on.
+     */
+    private SizedBoard board;
+    /**
+     * Boolean set to true if it is black's turn. White goes first, as in Game.
+     */
+    private boolean isBlackTurn;
+    /**
+     * Every move played as row * size + col, PASS included, followed by any moves that can be redone.
+     */
+    private int[] history = new int[128];
+    /**
+     * Board before each move in the history, so undo doesn't have to take captures back one by one.
+     */
+    private SizedBoard[] before = new SizedBoard[128];
+    /**
+     * Number of moves played and not undone.
+     */
+    private int played;
+    /**
+     * Number of moves in the history, the ones that can be redone included.
+     */
+    private int recorded;
+    /**
+     * Move list buffer, big enough for any size.
+     */
+    private final int[] moveBuffer = new int[SizedBoard.MAX_SIZE * SizedBoard.MAX_SIZE];
+
+    /**
+     * Constructor method. Starts a new game from the usual starting position.
+     *
+     * @param size Number of rows and columns, see SizedBoard.create.
+     * @throws IllegalArgumentException If the size is odd or out of range.
+     * @since 1.0
+     */
+    public SizedGame(int size) {
+        board = SizedBoard.create(size);
+        isBlackTurn = false;
+    }
+
+    /**
+     * Accessor method for the board size.
+     *
+     * @return Number of rows, which is also the number of columns.
+     * @since 1.0
+     */
+    public int getSize() {
+        return board.getSize();
+    }
+
+    /**
+     * Accessor method for the board.
+     *
+     * @return Board being played on. Replaced by undo, so don't hold on to it.
+     * @since 1.0
+     */
+    public SizedBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Accessor method for whose turn it is.
+     *
+     * @return True if black is to move.
+     * @since 1.0
+     */
+    public boolean isBlackTurn() {
+        return isBlackTurn;
+    }
+
+    /**
+     * Method for checking if a space is a legal move for the side to move.
+     *
+     * @param row Row of the space.
+     * @param col Column of the space.
+     * @return True if playing there captures at least one counter.
+     * @since 1.0
+     */
+    public boolean isLegal(int row, int col) {
+        return board.countCapture(row, col, isBlackTurn) > 0;
+    }
+
+    /**
+     * Method for checking if the side to move has anything to play.
+     *
+     * @return True if there is at least one legal move, false if the side to move has to pass.
+     * @since 1.0
+     */
+    public boolean hasMoves() {
+        return board.legalMoves(isBlackTurn, moveBuffer) > 0;
+    }
+
+    /**
+     * Method to play a move for the side to move, then hand the turn over.
+     *
+     * @param row Row of the space.
+     * @param col Column of the space.
+     * @throws IllegalArgumentException If the move is not legal.
+     * @since 1.0
+     */
+    public void play(int row, int col) {
+        SizedBoard previous = board.copy();
+        board.placeCounter(row, col, isBlackTurn);
+        isBlackTurn = !isBlackTurn;
+        record(row * getSize() + col, previous);
+    }
+
+    /**
+     * Method to pass the turn. Only allowed when the side to move has no legal moves.
+     *
+     * @throws IllegalStateException If the side to move could still play.
+     * @since 1.0
+     */
+    public void pass() {
+        if (hasMoves()) {
+            throw new IllegalStateException("Cannot pass while a move is available");
+        }
+        isBlackTurn = !isBlackTurn;
+        record(Game.PASS, null);
+    }
+
+    /**
+     * Method to choose the move that captures most, the same rule GreedyPlayer starts from.
+     * Ties go to the first in row order.
+     *
+     * @return Square as row * size + col, or Game.PASS if the side to move has no legal move.
+     * @since 1.0
+     */
+    public int greedyMove() {
+        int count = board.legalMoves(isBlackTurn, moveBuffer);
+        int size = getSize();
+        int best = Game.PASS;
+        int bestCaptures = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffer[i];
+            int captures = board.countCapture(move / size, move % size, isBlackTurn);
+            if (captures > bestCaptures) {
+                bestCaptures = captures;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Method for checking if there is a move to undo.
+     *
+     * @return True if a move has been played and not undone.
+     * @since 1.0
+     */
+    public boolean canUndo() {
+        return played > 0;
+    }
+
+    /**
+     * Method for checking if there is a move to redo.
+     *
+     * @return True if a move has been undone and nothing new played since.
+     * @since 1.0
+     */
+    public boolean canRedo() {
+        return played < recorded;
+    }
+
+    /**
+     * Method to take back the last move or pass.
+     *
+     * @return Move taken back as row * size + col, or Game.PASS.
+     * @throws IllegalStateException If there is nothing to undo.
+     * @since 1.0
+     */
+    public int undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int move = history[--played];
+        if (move != Game.PASS) {
+            // the saved board stays as it is, in case the move is redone
+            board = before[played].copy();
+        }
+        isBlackTurn = !isBlackTurn;
+        return move;
+    }
+
+    /**
+     * Method to play the last move undone again.
+     *
+     * @return Move played again as row * size + col, or Game.PASS.
+     * @throws IllegalStateException If there is nothing to redo.
+     * @since 1.0
+     */
+    public int redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int move = history[played++];
+        if (move != Game.PASS) {
+            board.placeCounter(move / getSize(), move % getSize(), isBlackTurn);
+        }
+        isBlackTurn = !isBlackTurn;
+        return move;
+    }
+
+    /**
+     * Method for checking if the game is over, i.e. neither side can move.
+     *
+     * @return True if the game is over, false if not.
+     * @since 1.0
+     */
+    public boolean isTerminal() {
+        return board.isGameOver();
+    }
+
+    /**
+     * Accessor method for the current disc counts.
+     *
+     * @return An array of integers containing white score and black score.
+     * @since 1.0
+     */
+    public int[] score() {
+        return board.getScore();
+    }
+
+    /**
+     * Method to add a move to the history. Playing anything new throws away the moves that could be redone.
+     *
+     * @param move     Move played, or Game.PASS.
+     * @param previous Board before the move, or null for a pass.
+     * @since 1.0
+     */
+    private void record(int move, SizedBoard previous) {
+        // every move fills a square and a pass comes between at most every two, so this rarely grows
+        if (played == history.length) {
+            history = Arrays.copyOf(history, history.length * 2);
+            before = Arrays.copyOf(before, before.length * 2);
+        }
+        Arrays.fill(before, played, recorded, null);
+        before[played] = previous;
+        history[played++] = move;
+        recorded = played;
+    }
+}
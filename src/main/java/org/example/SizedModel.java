@@ -0,0 +1,159 @@
+/**
+ * Model for a game on one of the board sizes other than 8x8, see SizedBoard.
+ * Views use it the same way as Model. The search AIs only know the standard board, so the AI button
+ * plays the move that captures most, straight away on the event thread.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public class SizedModel extends Model {
+    /**
+     * Game object being displayed.
+     */
+    private final SizedGame game;
+    /**
+     * Boolean set to true once the game is over.
+     */
+    private boolean gameOver;
+
+    /**
+     * Constructor method. Starts a new game.
+     *
+     * @param size Number of rows and columns, see SizedBoard.create.
+     * @throws IllegalArgumentException If the size is odd or out of range.
+     * @since 1.0
+     */
+    public SizedModel(int size) {
+        game = new SizedGame(size);
+    }
+
+    /**
+     * Accessor method for the game.
+     *
+     * @return Game being displayed.
+     * @since 1.0
+     */
+    public SizedGame getSizedGame() {
+        return game;
+    }
+
+    @Override
+    public int getSize() {
+        return game.getSize();
+    }
+
+    @Override
+    public int getState(int row, int col) {
+        return game.getBoard().getState(row, col);
+    }
+
+    @Override
+    public boolean isPlayable(int row, int col) {
+        return game.isLegal(row, col);
+    }
+
+    @Override
+    public boolean isBlackTurn() {
+        return game.isBlackTurn();
+    }
+
+    @Override
+    public boolean canUndo() {
+        return game.canUndo();
+    }
+
+    @Override
+    public boolean canRedo() {
+        return game.canRedo();
+    }
+
+    @Override
+    public int[] score() {
+        return game.score();
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public boolean isThinking() {
+        return false;
+    }
+
+    @Override
+    public int getProgressDepth() {
+        return 0;
+    }
+
+    @Override
+    public void playSpace(int row, int col, boolean isBlack) {
+        // black view is upside-down, the game uses board coordinates
+        int last = game.getSize() - 1;
+        if (isBlack) {
+            row = last - row;
+            col = last - col;
+        }
+        game.play(row, col);
+        afterMove();
+    }
+
+    @Override
+    public void playGreedy() {
+        if (gameOver) {
+            return;
+        }
+        int move = game.greedyMove();
+        if (move == Game.PASS) {
+            updateAllTitles();
+            return;
+        }
+        game.play(move / game.getSize(), move % game.getSize());
+        afterMove();
+    }
+
+    @Override
+    public void undo() {
+        if (!game.canUndo()) {
+            return;
+        }
+        // passes are played for the user, so they are taken back along with the move before them
+        int move;
+        do {
+            move = game.undo();
+        } while (move == Game.PASS && game.canUndo());
+        gameOver = game.isTerminal();
+        updateAllViews();
+    }
+
+    @Override
+    public void redo() {
+        if (!game.canRedo()) {
+            return;
+        }
+        game.redo();
+        gameOver = game.isTerminal();
+        if (!game.hasMoves() && !gameOver && game.canRedo()) {
+            game.redo();
+        }
+        updateAllViews();
+    }
+
+    /**
+     * Method to skip the next player if they are stuck, then update the views.
+     *
+     * @since 1.0
+     */
+    private void afterMove() {
+        gameOver = game.isTerminal();
+        if (!game.hasMoves() && !gameOver) {
+            game.pass();
+        }
+        updateAllViews();
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Board of up to 8x8, stored as a pair of 64-bit masks laid out exactly like BoardState's, bit (row * 8 + col).
+ * Squares beyond the board's size are simply never occupied, and since Bitboard only captures along
+ * unbroken lines of opposing counters ending in one of the mover's own, no capture can pass through them.
+ * The only extra work over the 8x8 board is masking empty off-board squares out of the legal moves.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+final class SmallBoard extends SizedBoard {
+    /**
+     * Mask of every square that is on the board.
+     */
+    private final long valid;
+    /**
+     * Mask of every square holding a black counter, bit (row * 8 + col).
+     */
+    private long blackBoard;
+    /**
+     * Mask of every square holding a white counter, bit (row * 8 + col).
+     */
+    private long whiteBoard;
+
+    /**
+     * Constructor method to place the starting counters in the middle of the board.
+     *
+     * @param size Number of rows and columns, even and at most 8.
+     * @since 1.0
+     */
+    SmallBoard(int size) {
+        super(size);
+        long row = (1L << size) - 1;
+        long mask = 0;
+        for (int i = 0; i < size; i++) {
+            mask |= row << (i * 8);
+        }
+        valid = mask;
+
+        int mid = size / 2;
+        whiteBoard = bit(mid - 1, mid - 1) | bit(mid, mid);
+        blackBoard = bit(mid - 1, mid) | bit(mid, mid - 1);
+    }
+
+    /**
+     * Private constructor used by copy.
+     *
+     * @param other Board to copy.
+     * @since 1.0
+     */
+    private SmallBoard(SmallBoard other) {
+        super(other.getSize());
+        valid = other.valid;
+        blackBoard = other.blackBoard;
+        whiteBoard = other.whiteBoard;
+    }
+
+    @Override
+    public int getState(int row, int col) {
+        if (!onBoard(row, col)) {
+            return -1;
+        }
+        long square = bit(row, col);
+        if ((blackBoard & square) != 0) {
+            return 1;
+        } else if ((whiteBoard & square) != 0) {
+            return 2;
+        }
+        return 0;
+    }
+
+    @Override
+    public int countCapture(int row, int col, boolean isBlack) {
+        if (!onBoard(row, col) || ((blackBoard | whiteBoard) & bit(row, col)) != 0) {
+            return 0;
+        }
+        long own = isBlack ? blackBoard : whiteBoard;
+        long opp = isBlack ? whiteBoard : blackBoard;
+        return Long.bitCount(Bitboard.flips(own, opp, row * 8 + col));
+    }
+
+    @Override
+    public int legalMoves(boolean isBlack, int[] moves) {
+        long mask = isBlack ? legal(blackBoard, whiteBoard) : legal(whiteBoard, blackBoard);
+        int size = getSize();
+        int count = 0;
+        while (mask != 0) {
+            int square = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            moves[count++] = (square >> 3) * size + (square & 7);
+        }
+        return count;
+    }
+
+    @Override
+    public int placeCounter(int row, int col, boolean isBlack) {
+        long own = isBlack ? blackBoard : whiteBoard;
+        long opp = isBlack ? whiteBoard : blackBoard;
+        if (!onBoard(row, col) || (legal(own, opp) & bit(row, col)) == 0) {
+            throw new IllegalArgumentException("Illegal move: " + row + ", " + col);
+        }
+        long flipped = Bitboard.flips(own, opp, row * 8 + col);
+        own |= flipped | bit(row, col);
+        opp &= ~flipped;
+        if (isBlack) {
+            blackBoard = own;
+            whiteBoard = opp;
+        } else {
+            whiteBoard = own;
+            blackBoard = opp;
+        }
+        return Long.bitCount(flipped);
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return legal(blackBoard, whiteBoard) == 0 && legal(whiteBoard, blackBoard) == 0;
+    }
+
+    @Override
+    public int[] getScore() {
+        return new int[]{Long.bitCount(whiteBoard), Long.bitCount(blackBoard)};
+    }
+
+    @Override
+    public long perft(boolean isBlack, int depth) {
+        return isBlack ? count(blackBoard, whiteBoard, depth) : count(whiteBoard, blackBoard, depth);
+    }
+
+    @Override
+    public SizedBoard copy() {
+        return new SmallBoard(this);
+    }
+
+    /**
+     * Method to count leaves below a position, as Perft.count but kept to the board.
+     *
+     * @param own   Mask of the side to move.
+     * @param opp   Mask of the opponent.
+     * @param depth Depth to count to.
+     * @return Number of leaves.
+     * @since 1.0
+     */
+    private long count(long own, long opp, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long moves = legal(own, opp);
+        if (moves == 0) {
+            if (legal(opp, own) == 0) {
+                return 1;
+            }
+            return count(opp, own, depth - 1);
+        }
+        if (depth == 1) {
+            return Long.bitCount(moves);
+        }
+
+        long total = 0;
+        while (moves != 0) {
+            int move = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            long flipped = Bitboard.flips(own, opp, move);
+            total += count(opp & ~flipped, own | flipped | (1L << move), depth - 1);
+        }
+        return total;
+    }
+
+    /**
+     * Method to find the legal moves for one side, leaving out the empty squares beyond the board.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Mask of legal squares.
+     * @since 1.0
+     */
+    private long legal(long own, long opp) {
+        return Bitboard.legalMoves(own, opp) & valid;
+    }
+
+    /**
+     * Method to get the mask bit of a space.
+     *
+     * @param row Row of the space.
+     * @param col Column of the space.
+     * @return Mask with only that space set.
+     * @since 1.0
+     */
+    private static long bit(int row, int col) {
+        return 1L << (row * 8 + col);
+    }
+}
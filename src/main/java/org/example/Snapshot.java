@@ -0,0 +1,187 @@
+/**
+ * Class for writing and reading the snapshot files long-running jobs save their progress to, so a job that is
+ * killed can carry on from its last snapshot instead of starting again.
+ *
+ * A snapshot file starts with a 16 byte header: the magic "URSN", a 2 byte version, 2 reserved bytes,
+ * the kind of job that wrote it and the length of the job's parameters. The parameters follow as UTF-8 text,
+ * and then whatever state the job writes. A snapshot is only resumed by the same kind of job with the same
+ * parameters, so a changed command line can't pick up results that don't belong to it.
+ *
+ * Snapshots are written to a temporary file next to the real one, forced to disk, then renamed over it
+ * in one atomic step. A crash at any point leaves either the old snapshot or the new one, never half of one.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public final class Snapshot {
+    /**
+     * Magic number at the start of every snapshot, "URSN" in ASCII.
+     */
+    static final int MAGIC = 0x5552534E;
+    /**
+     * Format version written to the header.
+     */
+    static final short VERSION = 1;
+    /**
+     * Size of the header in bytes.
+     */
+    static final int HEADER = 16;
+    /**
+     * Seconds between snapshots for the command-line jobs, set with -Dreversi.snapshot.interval, default 60.
+     */
+    public static final long INTERVAL = Long.getLong("reversi.snapshot.interval", 60);
+    /**
+     * Kind written by Tournament.
+     */
+    public static final int TOURNAMENT = 1;
+    /**
+     * Kind written by AnalysisJob.
+     */
+    public static final int ANALYSIS = 2;
+
+    /**
+     * Private constructor, the class only has static methods.
+     *
+     * @since 1.0
+     */
+    private Snapshot() {
+    }
+
+    /**
+     * Method to start writing a snapshot. The header and parameters are written straight away.
+     * Write the job's state to the returned channel, then pass it to commit.
+     *
+     * @param path   Path of the snapshot. Nothing is written there until commit.
+     * @param kind   Kind of job, e.g. TOURNAMENT.
+     * @param params Job parameters, checked when the snapshot is opened.
+     * @return Channel to write the state to.
+     * @throws IOException If the temporary file can't be written.
+     * @since 1.0
+     */
+    public static FileChannel create(Path path, int kind, String params) throws IOException {
+        FileChannel channel = FileChannel.open(tempPath(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        byte[] text = params.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(HEADER + text.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(kind).putInt(text.length).put(text).flip();
+        try {
+            writeFully(channel, header);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Method to finish writing a snapshot: force it to disk, close it and move it into place atomically.
+     *
+     * @param channel Channel from create, with the state written to it.
+     * @param path    Path given to create.
+     * @throws IOException If the snapshot can't be written or moved.
+     * @since 1.0
+     */
+    public static void commit(FileChannel channel, Path path) throws IOException {
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+        Files.move(tempPath(path), path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Method to open a snapshot to resume from.
+     *
+     * @param path   Path of the snapshot.
+     * @param kind   Kind of job resuming.
+     * @param params Parameters of the job resuming.
+     * @return Channel positioned at the job's state, or null if there is no snapshot yet.
+     * @throws IOException If the file isn't a snapshot, or was written by a different job.
+     * @since 1.0
+     */
+    public static FileChannel open(Path path, int kind, String params) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            if (header.getInt(0) != MAGIC || header.getShort(4) != VERSION) {
+                throw new IOException("Not a snapshot: " + path);
+            }
+            int length = header.getInt(12);
+            if (length < 0 || length > channel.size()) {
+                throw new IOException("Corrupt snapshot: " + path);
+            }
+            ByteBuffer text = ByteBuffer.allocate(length);
+            readFully(channel, text);
+            String saved = new String(text.array(), StandardCharsets.UTF_8);
+            if (header.getInt(8) != kind || !saved.equals(params)) {
+                throw new IOException("Snapshot " + path + " belongs to a different job: " + saved);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Method to write all of a buffer, however many calls the channel needs.
+     *
+     * @param channel Channel to write to.
+     * @param buffer  Buffer to write, from its position to its limit.
+     * @throws IOException If writing fails.
+     * @since 1.0
+     */
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Method to fill a buffer from a channel, then flip it ready for reading.
+     *
+     * @param channel Channel to read from.
+     * @param buffer  Buffer to fill, from its position to its limit.
+     * @throws IOException If reading fails or the file ends first.
+     * @since 1.0
+     */
+    static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Snapshot ends early");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Method to get the temporary file a snapshot is written to before it is moved into place.
+     *
+     * @param path Path of the snapshot.
+     * @return Path of its temporary file.
+     * @since 1.0
+     */
+    private static Path tempPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Command-line report of how parallel search scales with thread count.
+ * Searches a fixed set of positions to a fixed depth with 1, 2, 4, ... N threads
+ * and prints the time taken, speedup over one thread, and node rate for each.
+ *
+ * Usage: SpeedupReport [maxThreads] [depth] [tableMB]
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class SpeedupReport {
+    /**
+     * Number of test positions.
+     */
+    private static final int POSITIONS = 12;
+    /**
+     * Seed for the random moves used to reach the test positions, fixed so every run uses the same set.
+     */
+    private static final long SEED = 20240101L;
+
+    /**
+     * Main method.
+     *
+     * @param args Optional max thread count, search depth and table size in MB.
+     * @since 1.0
+     */
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int tableSize = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        List<Game> positions = positions();
+        TranspositionTable table = new TranspositionTable(tableSize);
+
+        System.out.printf("%d positions, depth %d, %d MB table%n", positions.size(), depth, tableSize);
+        System.out.printf("%8s %12s %8s %14s %14s%n", "threads", "time (ms)", "speedup", "nodes", "nodes/s");
+
+        double baseline = 0;
+        for (int threads : threadCounts(maxThreads)) {
+            ParallelSearch search = new ParallelSearch(threads, Long.MAX_VALUE / 2_000_000L, depth, table);
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (Game position : positions) {
+                // every position starts from an empty table, so runs don't help each other
+                table.clear();
+                search.chooseMove(position);
+                nodes += search.getNodes();
+            }
+            long nanos = System.nanoTime() - start;
+            search.shutdown();
+
+            double millis = nanos / 1e6;
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.printf("%8d %12.1f %8.2f %14d %14d%n",
+                    threads, millis, baseline / millis, nodes, nodes * 1_000_000_000L / nanos);
+        }
+    }
+
+    /**
+     * Method to list the thread counts to test: powers of two up to the maximum, and the maximum itself.
+     *
+     * @param maxThreads Largest thread count.
+     * @return Thread counts in increasing order.
+     * @since 1.0
+     */
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(maxThreads);
+        return counts;
+    }
+
+    /**
+     * Method to make the test positions by playing random moves from the start.
+     * Positions range from early to late midgame.
+     *
+     * @return Test positions.
+     * @since 1.0
+     */
+    static List<Game> positions() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Game> positions = new ArrayList<>();
+        while (positions.size() < POSITIONS) {
+            Game game = new Game();
+            int plies = 10 + positions.size() * 2;
+            for (int i = 0; i < plies && !game.isTerminal(); i++) {
+                long moves = game.legalMoves();
+                if (moves == 0) {
+                    game.pass();
+                    continue;
+                }
+                // pick the nth set bit
+                for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                game.play(Long.numberOfTrailingZeros(moves));
+            }
+            if (!game.isTerminal()) {
+                positions.add(game);
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * The 8 symmetries of the board (rotations and reflections), done on whole masks with bit tricks.
+ * A symmetry is numbered 0 to 7: bit 2 transposes the board (swaps rows and columns) first,
+ * then bit 1 flips it top to bottom and bit 0 flips it left to right. So 0 leaves the board alone,
+ * ROTATE_180 is the flip the black view uses, and ROTATE_90 and ROTATE_270 turn it a quarter each way.
+ *
+ * Two positions that are symmetric to each other play the same, so books, tables and training data
+ * can store just one of them: the canonical form, whichever of the 8 has the smallest masks.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public final class Symmetry {
+    /**
+     * Symmetry that leaves the board as it is.
+     */
+    public static final int IDENTITY = 0;
+    /**
+     * Symmetry that flips the board left to right.
+     */
+    public static final int MIRROR = 1;
+    /**
+     * Symmetry that flips the board top to bottom.
+     */
+    public static final int FLIP = 2;
+    /**
+     * Symmetry that turns the board half way round, i.e. (row, col) to (7 - row, 7 - col).
+     */
+    public static final int ROTATE_180 = 3;
+    /**
+     * Symmetry that flips the board about the a1-h8 diagonal.
+     */
+    public static final int TRANSPOSE = 4;
+    /**
+     * Symmetry that turns the board a quarter turn clockwise, as drawn with row 0 at the top.
+     */
+    public static final int ROTATE_90 = 5;
+    /**
+     * Symmetry that turns the board a quarter turn anticlockwise.
+     */
+    public static final int ROTATE_270 = 6;
+    /**
+     * Symmetry that flips the board about the h1-a8 diagonal.
+     */
+    public static final int ANTI_TRANSPOSE = 7;
+
+    /**
+     * Private constructor. This class only holds static methods.
+     *
+     * @since 1.0
+     */
+    private Symmetry() {
+    }
+
+    /**
+     * Method to flip a mask left to right, reversing the bits within each row.
+     *
+     * @param x Mask to flip.
+     * @return Flipped mask.
+     * @since 1.0
+     */
+    public static long mirror(long x) {
+        x = ((x >>> 1) & 0x5555555555555555L) | ((x & 0x5555555555555555L) << 1);
+        x = ((x >>> 2) & 0x3333333333333333L) | ((x & 0x3333333333333333L) << 2);
+        return ((x >>> 4) & 0x0F0F0F0F0F0F0F0FL) | ((x & 0x0F0F0F0F0F0F0F0FL) << 4);
+    }
+
+    /**
+     * Method to flip a mask top to bottom. Each row is one byte, so this just reverses the bytes.
+     *
+     * @param x Mask to flip.
+     * @return Flipped mask.
+     * @since 1.0
+     */
+    public static long flip(long x) {
+        return Long.reverseBytes(x);
+    }
+
+    /**
+     * Method to flip a mask about the a1-h8 diagonal, swapping rows and columns.
+     * Swaps 4x4 blocks, then 2x2 blocks, then single squares.
+     *
+     * @param x Mask to transpose.
+     * @return Transposed mask.
+     * @since 1.0
+     */
+    public static long transpose(long x) {
+        long t = 0x0F0F0F0F00000000L & (x ^ (x << 28));
+        x ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (x ^ (x << 14));
+        x ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (x ^ (x << 7));
+        return x ^ t ^ (t >>> 7);
+    }
+
+    /**
+     * Method to turn a mask half way round. Reversing all 64 bits does both flips at once.
+     *
+     * @param x Mask to turn.
+     * @return Turned mask.
+     * @since 1.0
+     */
+    public static long rotate180(long x) {
+        return Long.reverse(x);
+    }
+
+    /**
+     * Method to turn a mask a quarter turn clockwise.
+     *
+     * @param x Mask to turn.
+     * @return Turned mask.
+     * @since 1.0
+     */
+    public static long rotate90(long x) {
+        return mirror(transpose(x));
+    }
+
+    /**
+     * Method to turn a mask a quarter turn anticlockwise.
+     *
+     * @param x Mask to turn.
+     * @return Turned mask.
+     * @since 1.0
+     */
+    public static long rotate270(long x) {
+        return flip(transpose(x));
+    }
+
+    /**
+     * Method to apply any of the 8 symmetries to a mask.
+     *
+     * @param x        Mask to transform.
+     * @param symmetry Symmetry, from 0 to 7.
+     * @return Transformed mask.
+     * @since 1.0
+     */
+    public static long apply(long x, int symmetry) {
+        if ((symmetry & 4) != 0) {
+            x = transpose(x);
+        }
+        switch (symmetry & 3) {
+            case MIRROR:
+                return mirror(x);
+            case FLIP:
+                return flip(x);
+            case ROTATE_180:
+                return rotate180(x);
+            default:
+                return x;
+        }
+    }
+
+    /**
+     * Method to apply a symmetry to a single square.
+     *
+     * @param square   Square as row * 8 + col.
+     * @param symmetry Symmetry, from 0 to 7.
+     * @return Square it moves to.
+     * @since 1.0
+     */
+    public static int square(int square, int symmetry) {
+        if ((symmetry & 4) != 0) {
+            square = ((square & 7) << 3) | (square >> 3);
+        }
+        // flipping top to bottom is 7 - row, left to right is 7 - col, both are XORs on the square index
+        return square ^ ((symmetry & 2) != 0 ? 0x38 : 0) ^ ((symmetry & 1) != 0 ? 0x07 : 0);
+    }
+
+    /**
+     * Method to get the symmetry that undoes another.
+     * Flips undo themselves, but after a transpose, flipping top to bottom and left to right trade places.
+     *
+     * @param symmetry Symmetry, from 0 to 7.
+     * @return Inverse symmetry.
+     * @since 1.0
+     */
+    public static int inverse(int symmetry) {
+        if ((symmetry & 4) == 0) {
+            return symmetry;
+        }
+        return 4 | ((symmetry & 1) << 1) | ((symmetry & 2) >> 1);
+    }
+
+    /**
+     * Method to find which symmetry turns a position into its canonical form.
+     * The canonical form is the one with the smallest mover's mask, then the smallest opponent's mask, both unsigned.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Symmetry, from 0 to 7. Apply it to both masks, and to moves, to get the canonical position.
+     * @since 1.0
+     */
+    public static int canonical(long own, long opp) {
+        long ownT = transpose(own);
+        long oppT = transpose(opp);
+
+        int best = IDENTITY;
+        long bestOwn = own;
+        long bestOpp = opp;
+        for (int symmetry = 1; symmetry < 8; symmetry++) {
+            long candidateOwn;
+            long candidateOpp;
+            long baseOwn = (symmetry & 4) != 0 ? ownT : own;
+            long baseOpp = (symmetry & 4) != 0 ? oppT : opp;
+            switch (symmetry & 3) {
+                case MIRROR:
+                    candidateOwn = mirror(baseOwn);
+                    break;
+                case FLIP:
+                    candidateOwn = flip(baseOwn);
+                    break;
+                case ROTATE_180:
+                    candidateOwn = rotate180(baseOwn);
+                    break;
+                default:
+                    candidateOwn = baseOwn;
+            }
+            int compare = Long.compareUnsigned(candidateOwn, bestOwn);
+            if (compare > 0) {
+                continue;
+            }
+            // the opponent's mask only matters when the mover's masks tie, which is rare
+            candidateOpp = apply(baseOpp, symmetry & 3);
+            if (compare < 0 || Long.compareUnsigned(candidateOpp, bestOpp) < 0) {
+                best = symmetry;
+                bestOwn = candidateOwn;
+                bestOpp = candidateOpp;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,501 @@
+/**
+ * Headless runner that plays many games between two AIs and reports the result.
+ * Games run in parallel on a fork-join pool. Each game starts with a few random moves
+ * from a seeded generator, and games are played in pairs from the same opening with colours swapped,
+ * so neither player gets luckier openings than the other.
+ *
+ * Usage: Tournament playerA playerB [games] [threads] [seed] [openingMoves] [archive|-] [snapshot]
+ * Players are "greedy", "random", "search:ms" (search with a time limit per move) or "mcts:ms".
+ * If an archive path is given, every game is appended to it with GameRecordWriter.
+ * If a snapshot path is given, progress is saved there every Snapshot.INTERVAL seconds,
+ * and running the same command again after a crash carries on from the last snapshot.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+public class Tournament {
+    /**
+     * Games each thread plays between snapshots are considered. Only whole batches are saved,
+     * so a snapshot never counts a game that was still being played.
+     */
+    private static final int GAMES_PER_THREAD = 8;
+    /**
+     * Bytes of state in a snapshot: next game, wins, losses, draws, time taken and games archived.
+     */
+    private static final int SNAPSHOT_BYTES = 32;
+    /**
+     * Makes player A. Called once per worker thread, since players keep state between moves.
+     */
+    private final Supplier<Player> playerA;
+    /**
+     * Makes player B.
+     */
+    private final Supplier<Player> playerB;
+    /**
+     * Number of games to play. Rounded up to an even number so every opening is played both ways round.
+     */
+    private final int games;
+    /**
+     * Number of threads to play on.
+     */
+    private final int threads;
+    /**
+     * Seed for the random openings.
+     */
+    private final long seed;
+    /**
+     * Number of random moves at the start of each game.
+     */
+    private final int openingMoves;
+    /**
+     * Archive to record games to, or null to not record them.
+     */
+    private GameRecordWriter recorder;
+    /**
+     * File progress is saved to, or null to not save it.
+     */
+    private Path snapshot;
+    /**
+     * Names of the players, saved with the snapshot so it is only resumed by the same match.
+     */
+    private String players;
+    /**
+     * Minimum time between snapshots, in nanoseconds.
+     */
+    private long snapshotInterval;
+    /**
+     * Number of games already played when the last run resumed from a snapshot, 0 if it started afresh.
+     */
+    private int resumedGames;
+
+    /**
+     * Constructor method.
+     *
+     * @param playerA      Makes player A.
+     * @param playerB      Makes player B.
+     * @param games        Number of games to play.
+     * @param threads      Number of threads to play on.
+     * @param seed         Seed for the random openings.
+     * @param openingMoves Number of random moves at the start of each game.
+     * @since 1.0
+     */
+    public Tournament(Supplier<Player> playerA, Supplier<Player> playerB, int games, int threads, long seed,
+                      int openingMoves) {
+        if (games <= 0 || threads <= 0 || openingMoves < 0) {
+            throw new IllegalArgumentException("Games and threads must be positive, opening moves can't be negative");
+        }
+        this.playerA = playerA;
+        this.playerB = playerB;
+        this.games = games + (games & 1);
+        this.threads = threads;
+        this.seed = seed;
+        this.openingMoves = openingMoves;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args Command-line arguments, see the class description.
+     * @since 1.0
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: Tournament playerA playerB [games] [threads] [seed] [openingMoves]"
+                    + " [archive|-] [snapshot]");
+            System.exit(2);
+        }
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1L;
+        int openingMoves = args.length > 5 ? Integer.parseInt(args[5]) : 6;
+
+        Tournament tournament = new Tournament(strategy(args[0], seed), strategy(args[1], seed + 1),
+                games, threads, seed, openingMoves);
+        if (args.length > 7) {
+            tournament.setSnapshot(Paths.get(args[7]), args[0] + " vs " + args[1], Snapshot.INTERVAL * 1000);
+        }
+        Result result;
+        if (args.length > 6 && !args[6].equals("-")) {
+            try (GameRecordWriter recorder = new GameRecordWriter(Paths.get(args[6]))) {
+                tournament.setRecorder(recorder);
+                result = tournament.run();
+            }
+        } else {
+            result = tournament.run();
+        }
+        if (tournament.getResumedGames() > 0) {
+            System.out.printf("resumed after %d games%n", tournament.getResumedGames());
+        }
+        System.out.printf("%s vs %s%n%s%n", args[0], args[1], result);
+    }
+
+    /**
+     * Method to turn a player name into something that makes that player.
+     *
+     * @param spec "greedy", "random", "search:ms" or "mcts:ms".
+     * @param seed Seed for random players. Each thread's player gets a different seed.
+     * @return Supplier of new players.
+     * @since 1.0
+     */
+    public static Supplier<Player> strategy(String spec, long seed) {
+        if (spec.equals("greedy")) {
+            return GreedyPlayer::new;
+        } else if (spec.equals("random")) {
+            SplittableRandom seeds = new SplittableRandom(seed);
+            return () -> {
+                synchronized (seeds) {
+                    return new RandomPlayer(seeds.nextLong());
+                }
+            };
+        } else if (spec.startsWith("search:")) {
+            long millis = Long.parseLong(spec.substring("search:".length()));
+            return () -> new SearchPlayer(millis);
+        } else if (spec.startsWith("mcts:")) {
+            long millis = Long.parseLong(spec.substring("mcts:".length()));
+            SplittableRandom seeds = new SplittableRandom(seed);
+            return () -> {
+                synchronized (seeds) {
+                    return new MctsPlayer(millis, 1, MctsPlayer.DEFAULT_NODES, seeds.nextLong());
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unknown player: " + spec);
+    }
+
+    /**
+     * Mutator method for the archive games are recorded to.
+     *
+     * @param recorder Archive to append every game to, or null to not record them.
+     * @since 1.0
+     */
+    public void setRecorder(GameRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Mutator method for where progress is saved.
+     * If the file already holds a snapshot of the same match, run carries on from it.
+     *
+     * @param path           File to save progress to, or null to not save it.
+     * @param players        Names of the players, e.g. "greedy vs random". A snapshot is only resumed by
+     *                       a tournament with the same names, games, seed and opening moves.
+     * @param intervalMillis Minimum time between snapshots in milliseconds.
+     * @since 1.0
+     */
+    public void setSnapshot(Path path, String players, long intervalMillis) {
+        this.snapshot = path;
+        this.players = players;
+        this.snapshotInterval = intervalMillis * 1_000_000L;
+    }
+
+    /**
+     * Accessor method for how much of the last run came from a snapshot.
+     *
+     * @return Number of games already played when it resumed, 0 if it started afresh.
+     * @since 1.0
+     */
+    public int getResumedGames() {
+        return resumedGames;
+    }
+
+    /**
+     * Method to play every game, or every game the last snapshot hadn't got to.
+     *
+     * @return Results from player A's point of view, snapshotted games included.
+     * @throws UncheckedIOException If a snapshot can't be read or written.
+     * @since 1.0
+     */
+    public Result run() {
+        // one pair of players per worker thread, reused for every game that thread plays
+        ThreadLocal<Player> localA = ThreadLocal.withInitial(playerA);
+        ThreadLocal<Player> localB = ThreadLocal.withInitial(playerB);
+        int[] outcomes = new int[games];
+
+        // wins, losses, draws and time carried over from the snapshot
+        int[] tally = new int[3];
+        long savedNanos = 0;
+        int next = 0;
+        resumedGames = 0;
+        if (snapshot != null) {
+            try (FileChannel channel = Snapshot.open(snapshot, Snapshot.TOURNAMENT, params())) {
+                if (channel != null) {
+                    ByteBuffer state = ByteBuffer.allocate(SNAPSHOT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                    Snapshot.readFully(channel, state);
+                    next = state.getInt();
+                    tally[0] = state.getInt();
+                    tally[1] = state.getInt();
+                    tally[2] = state.getInt();
+                    savedNanos = state.getLong();
+                    long archived = state.getLong();
+                    // games recorded after the snapshot will be played again, so they come out of the archive
+                    if (recorder != null && archived >= 0) {
+                        recorder.truncate(archived);
+                    }
+                    resumedGames = next;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // without a snapshot every game is one batch, with one the games go in batches that can be saved between
+        int batch = snapshot == null ? games : threads * GAMES_PER_THREAD;
+        long start = System.nanoTime();
+        long lastSave = start;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (next < games) {
+                int from = next;
+                int to = Math.min(games, from + batch);
+                pool.submit(() -> IntStream.range(from, to).parallel()
+                        .forEach(i -> outcomes[i] = playGame(i, localA.get(), localB.get()))).join();
+                for (int i = from; i < to; i++) {
+                    tally[outcomes[i] > 0 ? 0 : outcomes[i] < 0 ? 1 : 2]++;
+                }
+                next = to;
+
+                long now = System.nanoTime();
+                if (snapshot != null && (next == games || now - lastSave >= snapshotInterval)) {
+                    saveSnapshot(next, tally, savedNanos + now - start);
+                    lastSave = now;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long nanos = savedNanos + System.nanoTime() - start;
+        return new Result(tally[0], tally[1], tally[2], nanos);
+    }
+
+    /**
+     * Method to save progress to the snapshot file.
+     *
+     * @param next  Index of the next game to play.
+     * @param tally Wins, losses and draws so far.
+     * @param nanos Time taken so far, in nanoseconds.
+     * @throws UncheckedIOException If the snapshot can't be written.
+     * @since 1.0
+     */
+    private void saveSnapshot(int next, int[] tally, long nanos) {
+        try {
+            // the archive has to hold every game the snapshot counts before the snapshot says so
+            long archived = -1;
+            if (recorder != null) {
+                recorder.flush();
+                archived = recorder.size();
+            }
+            ByteBuffer state = ByteBuffer.allocate(SNAPSHOT_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            state.putInt(next).putInt(tally[0]).putInt(tally[1]).putInt(tally[2]).putLong(nanos).putLong(archived)
+                    .flip();
+            FileChannel channel = Snapshot.create(snapshot, Snapshot.TOURNAMENT, params());
+            try {
+                Snapshot.writeFully(channel, state);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            Snapshot.commit(channel, snapshot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method to describe the tournament for its snapshot.
+     *
+     * @return Players, games, seed and opening moves.
+     * @since 1.0
+     */
+    private String params() {
+        return players + " games=" + games + " seed=" + seed + " openingMoves=" + openingMoves;
+    }
+
+    /**
+     * Method to play one game.
+     * Games 2k and 2k + 1 use the same opening, with player A taking black in the odd one.
+     *
+     * @param index   Index of the game.
+     * @param playerA Player A.
+     * @param playerB Player B.
+     * @return 1 if player A won, -1 if player B won, 0 for a draw.
+     * @since 1.0
+     */
+    private int playGame(int index, Player playerA, Player playerB) {
+        Game game = new Game();
+        int[] moves = new int[GameRecordWriter.MAX_MOVES];
+        int count = 0;
+        SplittableRandom random = new SplittableRandom(seed ^ ((index >> 1) * 0x9E3779B97F4A7C15L));
+        for (int i = 0; i < openingMoves && !game.isTerminal(); i++) {
+            int move = RandomPlayer.pick(game.legalMoves(), random);
+            if (move == Game.PASS) {
+                game.pass();
+            } else {
+                game.play(move);
+            }
+            moves[count++] = move;
+        }
+
+        boolean aIsBlack = (index & 1) == 1;
+        while (!game.isTerminal()) {
+            Player player = game.isBlackTurn() == aIsBlack ? playerA : playerB;
+            long start = Metrics.ENABLED ? System.nanoTime() : 0;
+            int move = player.chooseMove(game);
+            if (Metrics.ENABLED) {
+                Metrics.think(System.nanoTime() - start);
+            }
+            if (move == Game.PASS) {
+                game.pass();
+            } else {
+                game.play(move);
+            }
+            moves[count++] = move;
+        }
+
+        Metrics.game();
+        int[] scores = game.score();
+        if (recorder != null) {
+            try {
+                recorder.append(moves, count, scores[1] - scores[0]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int diff = aIsBlack ? scores[1] - scores[0] : scores[0] - scores[1];
+        return Integer.signum(diff);
+    }
+
+    /**
+     * Class holding the outcome of a tournament, from player A's point of view.
+     *
+     * @since 1.0
+     */
+    public static class Result {
+        /**
+         * Games won by player A.
+         */
+        public final int wins;
+        /**
+         * Games lost by player A.
+         */
+        public final int losses;
+        /**
+         * Games drawn.
+         */
+        public final int draws;
+        /**
+         * Time taken to play every game, in nanoseconds.
+         */
+        public final long nanos;
+
+        /**
+         * Constructor method.
+         *
+         * @param wins   Games won by player A.
+         * @param losses Games lost by player A.
+         * @param draws  Games drawn.
+         * @param nanos  Time taken in nanoseconds.
+         * @since 1.0
+         */
+        public Result(int wins, int losses, int draws, long nanos) {
+            this.wins = wins;
+            this.losses = losses;
+            this.draws = draws;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Accessor method for the number of games played.
+         *
+         * @return Number of games.
+         * @since 1.0
+         */
+        public int games() {
+            return wins + losses + draws;
+        }
+
+        /**
+         * Accessor method for player A's score, counting a draw as half a win.
+         *
+         * @return Score between 0 and 1.
+         * @since 1.0
+         */
+        public double score() {
+            return (wins + 0.5 * draws) / games();
+        }
+
+        /**
+         * Method to estimate the Elo difference between the players.
+         *
+         * @return Elo of player A minus Elo of player B.
+         * @since 1.0
+         */
+        public double elo() {
+            return elo(score());
+        }
+
+        /**
+         * Method to estimate the 95% confidence margin on the Elo difference.
+         *
+         * @return Margin, so the difference lies within elo() +/- this.
+         * @since 1.0
+         */
+        public double eloError() {
+            int n = games();
+            double mean = score();
+            // variance of a single game's score (1, 0.5 or 0)
+            double variance = (wins * Math.pow(1 - mean, 2) + draws * Math.pow(0.5 - mean, 2)
+                    + losses * Math.pow(mean, 2)) / n;
+            double margin = 1.96 * Math.sqrt(variance / n);
+            return (elo(mean + margin) - elo(mean - margin)) / 2;
+        }
+
+        /**
+         * Accessor method for how fast the games were played.
+         *
+         * @return Games per second.
+         * @since 1.0
+         */
+        public double gamesPerSecond() {
+            return games() * 1e9 / nanos;
+        }
+
+        /**
+         * Method to convert a score into an Elo difference.
+         * Scores of 0 or 1 would be infinite, so they are clamped just inside.
+         *
+         * @since 1.0
+         */
+        private static double elo(double score) {
+            double clamped = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+            return -400 * Math.log10(1 / clamped - 1);
+        }
+
+        /**
+         * Method to format the results for printing.
+         *
+         * @return Results as text.
+         * @since 1.0
+         */
+        @Override
+        public String toString() {
+            return String.format("W %d / L %d / D %d  score %.3f  Elo %+.1f +/- %.1f  %.1f games/s",
+                    wins, losses, draws, score(), elo(), eloError(), gamesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/**
+ * Headless trainer that fits the evaluation weights to recorded games.
+ * Every position of every game in an archive is replayed, and the weights are fitted by least squares
+ * so the evaluation predicts the final disc difference from the side to move's point of view.
+ *
+ * Games are streamed from the archive one minibatch of positions at a time, so the corpus never has to fit in memory.
+ * Within a batch, feature extraction and prediction are split across threads, then the batch's gradient is applied.
+ * Each weight's step is its gradient divided by the sum of its squared feature values in the batch,
+ * so rare pattern configurations and features that show up in every position learn at the same pace.
+ * One game in every HOLDOUT is kept out of training and only used to measure the error.
+ *
+ * Usage: Trainer archive weights [epochs] [threads] [batchSize] [learningRate]
+ * Training starts from the default evaluator, so running it again on new games refines the last weights file.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Trainer {
+    /**
+     * Default number of positions per minibatch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 8192;
+    /**
+     * Default fraction of each normalised gradient step to take.
+     * Every position moves Evaluator.SLOTS weights at once, so this has to stay well below 1 / SLOTS.
+     */
+    public static final double DEFAULT_LEARNING_RATE = 0.02;
+    /**
+     * One game in this many is held out to measure the error instead of being trained on.
+     */
+    public static final int HOLDOUT = 16;
+    /**
+     * Weights being fitted, in hundredths of a disc, indexed by [phase][feature].
+     */
+    private final float[][] weights;
+    /**
+     * Sum of error times feature value for each weight over the current batch.
+     */
+    private final float[][] gradient;
+    /**
+     * Sum of squared feature values for each weight over the current batch.
+     */
+    private final float[][] scale;
+    /**
+     * Fraction of each normalised step to take.
+     */
+    private final double learningRate;
+    /**
+     * Threads the batch is split across.
+     */
+    private final ExecutorService pool;
+    /**
+     * One task per thread, each handling its own slice of the batch.
+     */
+    private final List<Callable<Void>> tasks = new ArrayList<>();
+    /**
+     * Mask of the side to move in each position of the batch.
+     */
+    private final long[] owns;
+    /**
+     * Mask of the opponent in each position of the batch.
+     */
+    private final long[] opps;
+    /**
+     * Final disc difference in hundredths of a disc, from the side to move's point of view.
+     */
+    private final int[] targets;
+    /**
+     * Boolean set to true for positions from held-out games.
+     */
+    private final boolean[] heldOut;
+    /**
+     * Features of each position, Evaluator.SLOTS per position.
+     */
+    private final int[] slots;
+    /**
+     * Game phase of each position.
+     */
+    private final int[] phases;
+    /**
+     * Target minus prediction for each position.
+     */
+    private final float[] errors;
+    /**
+     * Number of positions in the current batch.
+     */
+    private int size;
+    /**
+     * Sum of squared errors on trained positions over the current epoch.
+     */
+    private double trainingSquares;
+    /**
+     * Number of trained positions in the current epoch.
+     */
+    private long trainingCount;
+    /**
+     * Sum of squared errors on held-out positions over the current epoch.
+     */
+    private double validationSquares;
+    /**
+     * Number of held-out positions in the current epoch.
+     */
+    private long validationCount;
+
+    /**
+     * Constructor method.
+     *
+     * @param start        Evaluator whose weights training starts from.
+     * @param threads      Number of threads to split each batch across.
+     * @param batchSize    Number of positions per minibatch.
+     * @param learningRate Fraction of each normalised step to take, between 0 and 1, e.g. DEFAULT_LEARNING_RATE.
+     * @since 1.0
+     */
+    public Trainer(Evaluator start, int threads, int batchSize, double learningRate) {
+        if (threads <= 0 || batchSize <= 0 || learningRate <= 0 || learningRate > 1) {
+            throw new IllegalArgumentException("Threads and batch size must be positive, learning rate in (0, 1]");
+        }
+        weights = new float[Evaluator.PHASES][Evaluator.FEATURES];
+        gradient = new float[Evaluator.PHASES][Evaluator.FEATURES];
+        scale = new float[Evaluator.PHASES][Evaluator.FEATURES];
+        for (int phase = 0; phase < Evaluator.PHASES; phase++) {
+            for (int feature = 0; feature < Evaluator.FEATURES; feature++) {
+                weights[phase][feature] = start.getWeight(phase, feature);
+            }
+        }
+        this.learningRate = learningRate;
+
+        owns = new long[batchSize];
+        opps = new long[batchSize];
+        targets = new int[batchSize];
+        heldOut = new boolean[batchSize];
+        slots = new int[batchSize * Evaluator.SLOTS];
+        phases = new int[batchSize];
+        errors = new float[batchSize];
+
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "trainer");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            tasks.add(() -> {
+                // slices are recomputed every batch, since the last batch of an epoch is usually short
+                int from = (int) ((long) size * thread / threads);
+                int to = (int) ((long) size * (thread + 1) / threads);
+                predict(from, to);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args Command-line arguments, see the class description.
+     * @throws IOException If the archive can't be read or the weights can't be written.
+     * @since 1.0
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: Trainer archive weights [epochs] [threads] [batchSize] [learningRate]");
+            System.exit(2);
+        }
+        Path archive = Paths.get(args[0]);
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_BATCH_SIZE;
+        double learningRate = args.length > 5 ? Double.parseDouble(args[5]) : DEFAULT_LEARNING_RATE;
+
+        Trainer trainer = new Trainer(Evaluator.getDefault(), threads, batchSize, learningRate);
+        try {
+            for (int epoch = 1; epoch <= epochs; epoch++) {
+                long start = System.nanoTime();
+                try (GameRecordReader reader = new GameRecordReader(archive)) {
+                    trainer.train(reader);
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("epoch %d  training error %.2f discs  held-out error %.2f discs"
+                                + "  %.1f s  %,d positions/s%n", epoch, trainer.getTrainingError(),
+                        trainer.getValidationError(), seconds, (long) (trainer.getPositions() / seconds));
+            }
+        } finally {
+            trainer.shutdown();
+        }
+        trainer.toEvaluator().save(Paths.get(args[1]));
+    }
+
+    /**
+     * Method to train on every game in an archive once.
+     *
+     * @param reader Archive to read. Its cursor is moved to the end.
+     * @throws IllegalArgumentException If a record holds an illegal move.
+     * @since 1.0
+     */
+    public void train(GameRecordReader reader) {
+        trainingSquares = 0;
+        trainingCount = 0;
+        validationSquares = 0;
+        validationCount = 0;
+        size = 0;
+
+        long games = 0;
+        while (reader.next()) {
+            boolean holdout = games++ % HOLDOUT == 0;
+            int result = reader.result() * 100;
+            Game game = new Game();
+            for (int i = 0; i < reader.moveCount(); i++) {
+                int move = reader.move(i);
+                if (move == Game.PASS) {
+                    game.pass();
+                    continue;
+                }
+                boolean isBlack = game.isBlackTurn();
+                owns[size] = game.getBoard().getBitboard(isBlack);
+                opps[size] = game.getBoard().getBitboard(!isBlack);
+                targets[size] = isBlack ? result : -result;
+                heldOut[size] = holdout;
+                if (++size == owns.length) {
+                    step();
+                }
+                game.play(move);
+            }
+        }
+        if (size > 0) {
+            step();
+        }
+    }
+
+    /**
+     * Method to fit the weights to the current batch, then empty it.
+     *
+     * @since 1.0
+     */
+    private void step() {
+        try {
+            for (Future<Void> done : pool.invokeAll(tasks)) {
+                done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Training interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Training failed", e.getCause());
+        }
+
+        for (int i = 0; i < size; i++) {
+            float error = errors[i];
+            if (heldOut[i]) {
+                validationSquares += (double) error * error;
+                validationCount++;
+                continue;
+            }
+            trainingSquares += (double) error * error;
+            trainingCount++;
+
+            float[] g = gradient[phases[i]];
+            float[] s = scale[phases[i]];
+            int base = i * Evaluator.SLOTS;
+            for (int k = 0; k < 14; k++) {
+                g[slots[base + k]] += error;
+                s[slots[base + k]] += 1;
+            }
+            for (int k = 0; k < 3; k++) {
+                int value = slots[base + 14 + k];
+                g[Evaluator.MOBILITY + k] += error * value;
+                s[Evaluator.MOBILITY + k] += value * value;
+            }
+        }
+
+        // only weights touched by this batch have anything to apply, so walk the batch again rather than every weight
+        for (int i = 0; i < size; i++) {
+            if (heldOut[i]) {
+                continue;
+            }
+            int phase = phases[i];
+            int base = i * Evaluator.SLOTS;
+            for (int k = 0; k < Evaluator.SLOTS; k++) {
+                int feature = k < 14 ? slots[base + k] : Evaluator.MOBILITY + k - 14;
+                float s = scale[phase][feature];
+                if (s != 0) {
+                    weights[phase][feature] += (float) (learningRate * gradient[phase][feature] / (s + 1));
+                    gradient[phase][feature] = 0;
+                    scale[phase][feature] = 0;
+                }
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Method to extract features and predict a slice of the batch. Run by the worker threads.
+     *
+     * @param from First position of the slice.
+     * @param to   Position after the last one in the slice.
+     * @since 1.0
+     */
+    private void predict(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int phase = Evaluator.phase(owns[i], opps[i]);
+            int base = i * Evaluator.SLOTS;
+            Evaluator.features(owns[i], opps[i], slots, base);
+            float[] w = weights[phase];
+            float prediction = 0;
+            for (int k = 0; k < 14; k++) {
+                prediction += w[slots[base + k]];
+            }
+            prediction += w[Evaluator.MOBILITY] * slots[base + 14]
+                    + w[Evaluator.POTENTIAL_MOBILITY] * slots[base + 15]
+                    + w[Evaluator.STABLE] * slots[base + 16];
+            phases[i] = phase;
+            errors[i] = targets[i] - prediction;
+        }
+    }
+
+    /**
+     * Method to round the fitted weights into an evaluator.
+     *
+     * @return Evaluator using the current weights.
+     * @since 1.0
+     */
+    public Evaluator toEvaluator() {
+        int[][] rounded = new int[Evaluator.PHASES][Evaluator.FEATURES];
+        for (int phase = 0; phase < Evaluator.PHASES; phase++) {
+            for (int feature = 0; feature < Evaluator.FEATURES; feature++) {
+                rounded[phase][feature] = Math.round(weights[phase][feature]);
+            }
+        }
+        return new Evaluator(rounded);
+    }
+
+    /**
+     * Accessor method for the error on positions trained on in the last epoch.
+     *
+     * @return Root mean square error in discs, measured before each batch's update.
+     * @since 1.0
+     */
+    public double getTrainingError() {
+        return trainingCount == 0 ? 0 : Math.sqrt(trainingSquares / trainingCount) / 100;
+    }
+
+    /**
+     * Accessor method for the error on held-out positions in the last epoch.
+     *
+     * @return Root mean square error in discs.
+     * @since 1.0
+     */
+    public double getValidationError() {
+        return validationCount == 0 ? 0 : Math.sqrt(validationSquares / validationCount) / 100;
+    }
+
+    /**
+     * Accessor method for the number of positions seen in the last epoch.
+     *
+     * @return Position count, training and held out.
+     * @since 1.0
+     */
+    public long getPositions() {
+        return trainingCount + validationCount;
+    }
+
+    /**
+     * Method to stop the worker threads. The trainer can't be used afterwards.
+     *
+     * @since 1.0
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Fixed-size hash table of search results, keyed by Zobrist hash.
+ * Entries are packed into a single preallocated long array (one key word and one data word each),
+ * so storing and probing never allocates.
+ * The table can be shared by several searching threads without locks:
+ * the key word is stored XORed with the data word, so an entry torn by two threads writing at once
+ * no longer matches its hash and is treated as a miss.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+public class TranspositionTable {
+    /**
+     * Flag for an entry whose score is exact.
+     */
+    public static final int EXACT = 1;
+    /**
+     * Flag for an entry whose score is a lower bound (the search failed high).
+     */
+    public static final int LOWER = 2;
+    /**
+     * Flag for an entry whose score is an upper bound (the search failed low).
+     */
+    public static final int UPPER = 3;
+    /**
+     * Move value stored when an entry has no best move.
+     */
+    public static final int NO_MOVE = 127;
+    /**
+     * Bytes used by one entry.
+     */
+    private static final int ENTRY_BYTES = 16;
+    /**
+     * Size of the buffer entries are written and read through by writeTo and readFrom.
+     */
+    private static final int TRANSFER_BYTES = 1 << 20;
+    /**
+     * Mask for the generation stored in an entry. It has every bit left in the data word, so it takes
+     * 2^31 searches to wrap, and an entry from an old search can't pass for one from the current search.
+     */
+    private static final int GENERATION_MASK = 0x7FFFFFFF;
+    /**
+     * Array holding all entries. Entry i uses table[2 * i] for the key XOR data and table[2 * i + 1] for the data.
+     */
+    private final long[] table;
+    /**
+     * Mask to turn a hash into an entry index. The number of entries is always a power of two.
+     */
+    private final int indexMask;
+    /**
+     * Search generation, so entries from earlier moves can be replaced even if they are deeper.
+     */
+    private volatile int generation = 0;
+
+    // data word layout, low bits first:
+    // score 16 bits (signed) | depth 8 bits | flag 2 bits | move 7 bits | generation 31 bits
+
+    /**
+     * Constructor method. Allocates the whole table up front.
+     *
+     * @param megabytes Size cap of the table in MB. The table uses the largest power of two entries that fits.
+     * @since 1.0
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes <= 0) {
+            throw new IllegalArgumentException("Table size must be positive");
+        }
+        long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        // a Java array holds at most 2^30 entry pairs
+        entries = Math.min(entries, 1L << 30);
+        table = new long[(int) (entries * 2)];
+        indexMask = (int) entries - 1;
+    }
+
+    /**
+     * Method to look up a position.
+     *
+     * @param hash Hash of the position, including the side to move.
+     * @return Data word of the entry, or 0 if the position is not in the table.
+     * @since 1.0
+     */
+    public long probe(long hash) {
+        int index = (int) hash & indexMask;
+        long data = table[2 * index + 1];
+        if (data != 0 && (table[2 * index] ^ data) == hash) {
+            return data;
+        }
+        return 0;
+    }
+
+    /**
+     * Method to store a search result.
+     * Depth-preferred: an entry from the current search is only replaced by an equal or deeper result.
+     *
+     * @param hash  Hash of the position, including the side to move.
+     * @param depth Depth the position was searched to.
+     * @param score Score of the position.
+     * @param flag  EXACT, LOWER or UPPER.
+     * @param move  Best move found as row * 8 + col, or NO_MOVE.
+     * @since 1.0
+     */
+    public void store(long hash, int depth, int score, int flag, int move) {
+        int index = (int) hash & indexMask;
+        long old = table[2 * index + 1];
+        int currentGeneration = generation & GENERATION_MASK;
+        if (old != 0 && (table[2 * index] ^ old) != hash
+                && generation(old) == currentGeneration && depth(old) > depth) {
+            return;
+        }
+        long data = (score & 0xFFFFL)
+                | ((long) (depth & 0xFF) << 16)
+                | ((long) flag << 24)
+                | ((long) (move & 0x7F) << 26)
+                | ((long) currentGeneration << 33);
+        table[2 * index] = hash ^ data;
+        table[2 * index + 1] = data;
+    }
+
+    /**
+     * Method to call at the start of every new search, so older entries become replaceable.
+     * When the table is shared, only the thread starting the search should call this.
+     *
+     * @since 1.0
+     */
+    public void newSearch() {
+        generation++;
+    }
+
+    /**
+     * Method to empty the table. Must not be called while a search is using it.
+     *
+     * @since 1.0
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    /**
+     * Method to write every entry to a channel, e.g. for a job snapshot.
+     * Entries go through one reusable buffer, so the table is never copied onto the heap.
+     * Must not be called while a search is using the table.
+     *
+     * @param channel Channel to write to, at its position.
+     * @throws IOException If writing fails.
+     * @since 1.0
+     */
+    public void writeTo(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(getCapacity()).putInt(generation).flip();
+        Snapshot.writeFully(channel, header);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TRANSFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        LongBuffer longs = buffer.asLongBuffer();
+        for (int i = 0; i < table.length; i += longs.capacity()) {
+            int count = Math.min(longs.capacity(), table.length - i);
+            longs.clear();
+            longs.put(table, i, count);
+            buffer.clear().limit(count * 8);
+            Snapshot.writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * Method to replace every entry with ones written by writeTo.
+     * Must not be called while a search is using the table.
+     *
+     * @param channel Channel to read from, at its position.
+     * @throws IOException If reading fails, or the entries were written by a table of a different size.
+     * @since 1.0
+     */
+    public void readFrom(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        Snapshot.readFully(channel, header);
+        int capacity = header.getInt();
+        if (capacity != getCapacity()) {
+            throw new IOException("Saved table has " + capacity + " entries, this one has " + getCapacity());
+        }
+        generation = header.getInt();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(TRANSFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        LongBuffer longs = buffer.asLongBuffer();
+        for (int i = 0; i < table.length; i += longs.capacity()) {
+            int count = Math.min(longs.capacity(), table.length - i);
+            buffer.clear().limit(count * 8);
+            Snapshot.readFully(channel, buffer);
+            longs.clear();
+            longs.get(table, i, count);
+        }
+    }
+
+    /**
+     * Accessor method for the number of entries the table can hold.
+     *
+     * @return Number of entries.
+     * @since 1.0
+     */
+    public int getCapacity() {
+        return indexMask + 1;
+    }
+
+    /**
+     * Decoder for the score of an entry.
+     *
+     * @param data Data word returned by probe.
+     * @return Score stored in the entry.
+     * @since 1.0
+     */
+    public static int score(long data) {
+        return (short) data;
+    }
+
+    /**
+     * Decoder for the depth of an entry.
+     *
+     * @param data Data word returned by probe.
+     * @return Depth the entry was searched to.
+     * @since 1.0
+     */
+    public static int depth(long data) {
+        return (int) (data >>> 16) & 0xFF;
+    }
+
+    /**
+     * Decoder for the flag of an entry.
+     *
+     * @param data Data word returned by probe.
+     * @return EXACT, LOWER or UPPER.
+     * @since 1.0
+     */
+    public static int flag(long data) {
+        return (int) (data >>> 24) & 0x3;
+    }
+
+    /**
+     * Decoder for the best move of an entry.
+     *
+     * @param data Data word returned by probe.
+     * @return Best move as row * 8 + col, or NO_MOVE.
+     * @since 1.0
+     */
+    public static int move(long data) {
+        return (int) (data >>> 26) & 0x7F;
+    }
+
+    /**
+     * Decoder for the search generation of an entry.
+     *
+     * @since 1.0
+     */
+    private static int generation(long data) {
+        return (int) (data >>> 33) & GENERATION_MASK;
+    }
+}
@@ -22,14 +22,22 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 public class View {
+    /**
+     * Number of rows and columns on the board.
+     */
+    private final int size;
     /**
      * Array containing all spaces on the board, as drawn from this view.
      */
-    private GridButton[][] arrayButt = new GridButton[8][8];
+    private final GridButton[][] arrayButt;
     /**
      * JFrame containing the view.
      */
     private JFrame guiFrame = new JFrame();
+    /**
+     * Model of the game this view belongs to.
+     */
+    private final Model model;
     /**
      * Boolean representing the colour of this view's player - true if black, false if white.
      */
@@ -42,26 +50,48 @@ public class View {
      * Title of the screen of this view.
      */
     private JLabel screenTitle;
+    /**
+     * Button that starts or cancels the greedy AI move.
+     */
+    private JButton aiButton;
+    /**
+     * Button that takes back the last move.
+     */
+    private JButton undoButton;
+    /**
+     * Button that plays the last move taken back again.
+     */
+    private JButton redoButton;
+    /**
+     * Black counters as the buttons currently show them, in board coordinates. Only kept on the 8x8 board.
+     */
+    private long drawnBlack;
+    /**
+     * White counters as the buttons currently show them, in board coordinates.
+     */
+    private long drawnWhite;
+    /**
+     * Spaces whose buttons are currently enabled, in board coordinates.
+     */
+    private long drawnPlayable;
 
     /**
      * Constructor method.
      *
+     * @param model   Model of the game to display.
      * @param isBlack sets member variable isBlack
      * @since 1.0
      */
-    public View(boolean isBlack) {
-        Model.get().storeView(this);
+    public View(Model model, boolean isBlack) {
+        this.model = model;
+        model.storeView(this);
         this.isBlack = isBlack;
+        size = model.getSize();
+        arrayButt = new GridButton[size][size];
 
-        // when update is called, the current turn will switch
-        // the requirements state white must go first, hence when initialised the roles
-        // must be switched
+        // whose turn it is is decided by the game, it gets read in on every update
         guiFrame.setTitle("Reversi");
-        if (isBlack) {
-            isTurn = true;
-        } else {
-            isTurn = false;
-        }
+        isTurn = false;
     }
 
     /**
@@ -75,18 +105,19 @@ public class View {
         guiFrame.setLayout(new BorderLayout());
         guiFrame.setPreferredSize(new Dimension(600, 700)); // this is a good size
 
-        // panel for the 8x8 grid of spaces
+        // panel for the grid of spaces
         JPanel panel = new JPanel();
-        panel.setLayout(new GridLayout(8, 8));
+        panel.setLayout(new GridLayout(size, size));
 
         // loop through each arrayButt index and instantiate them
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
+        int last = size - 1;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
                 // need to access black in reverse since view is upside down
                 if (isBlack) {
-                    arrayButt[i][j] = new GridButton(i, j, Model.get().bState.getState(7 - i, 7 - j));
+                    arrayButt[i][j] = new GridButton(i, j, model.getState(last - i, last - j));
                 } else {
-                    arrayButt[i][j] = new GridButton(i, j, Model.get().bState.getState(i, j));
+                    arrayButt[i][j] = new GridButton(i, j, model.getState(i, j));
                 }
 
                 // implementing button functionality with lambda expression
@@ -96,12 +127,9 @@ public class View {
                         int row = b.getRow();
                         int col = b.getCol();
 
-                        // no need to handle different inputs since the method does that for us
-                        Model.get().bState.setState(row, col, isBlack);
-                        Model.get().bState.captureCounters(row, col, isBlack);
-
-                        // update both views so they're kept consistent
-                        Model.get().updateAllViews();
+                        // no need to handle different inputs since the model does that for us
+                        // the model also updates both views so they're kept consistent
+                        model.playSpace(row, col, isBlack);
                     }
                 });
 
@@ -109,42 +137,38 @@ public class View {
             }
         }
 
+        // buttons start out showing the board and all enabled, update only touches what differs from that
+        if (size == BoardState.SIZE) {
+            drawnBlack = model.getGame().getBoard().getBitboard(true);
+            drawnWhite = model.getGame().getBoard().getBitboard(false);
+            drawnPlayable = -1L;
+        }
+
         // code for greedy ai button
         // no need to subclass jbutton, this is a normal button
-        JButton button = new JButton("Make greedy AI move");
-        button.setFont(new Font("Ariel", Font.BOLD, 20));
+        aiButton = new JButton("Make greedy AI move");
+        aiButton.setFont(new Font("Ariel", Font.BOLD, 20));
 
         // implementing functionality with lambda expression
-        button.addActionListener((e) -> {
+        aiButton.addActionListener((e) -> {
             if (isTurn) {
-                GridButton highest = arrayButt[0][0];
-
-                // algorithm will find the highest value on the board
-                // and ignore subsequent spaces of equal value
-                // hence the first occurence of the highest value will always be played
-                for (int i = 0; i < 8; i++) {
-                    for (int j = 0; j < 8; j++) {
-                        int curr;
-                        curr = Model.get().bState.countCapture(i, j, isBlack);
-                        if (curr > highest.getState()) {
-                            highest = arrayButt[i][j];
-                        }
-                    }
-                }
-
-                // playing the piece, this is almost identical to the code
-                // for manually playing a piece
-                int row = highest.getRow();
-                int col = highest.getCol();
-
-                // no need to differentiate parameters since methods handle that
-                Model.get().bState.setState(row, col, isBlack);
-                Model.get().bState.captureCounters(row, col, isBlack);
-
-                Model.get().updateAllViews();
+                // the greedy algorithm lives in GreedyPlayer, the model thinks in the background and plays it for us
+                // pressing again while it thinks cancels it
+                model.playGreedy();
             }
         });
 
+        // undo and redo work from either view, the model keeps both views in step
+        undoButton = new JButton("Undo");
+        undoButton.addActionListener((e) -> model.undo());
+        redoButton = new JButton("Redo");
+        redoButton.addActionListener((e) -> model.redo());
+
+        JPanel controls = new JPanel(new BorderLayout());
+        controls.add(undoButton, BorderLayout.WEST);
+        controls.add(aiButton, BorderLayout.CENTER);
+        controls.add(redoButton, BorderLayout.EAST);
+
         if (isBlack) {
             screenTitle = new JLabel("Black player");
         } else {
@@ -153,7 +177,7 @@ public class View {
 
         // add everything to the jframe
         guiFrame.add(panel, BorderLayout.CENTER);
-        guiFrame.add(button, BorderLayout.SOUTH);
+        guiFrame.add(controls, BorderLayout.SOUTH);
         guiFrame.add(screenTitle, BorderLayout.NORTH);
 
         guiFrame.pack();
@@ -164,6 +188,25 @@ public class View {
 
     }
 
+    /**
+     * Method to update the title and the AI, undo and redo buttons, e.g. while the AI is thinking.
+     *
+     * @since 1.0
+     */
+    public void updateTitle() {
+        String newTitle = isBlack ? "Black player" : "White player";
+        if (isTurn && model.isThinking()) {
+            int depth = model.getProgressDepth();
+            newTitle = newTitle.concat(depth > 0 ? " (AI thinking, depth " + depth + ")" : " (AI thinking)");
+        } else if (isTurn) {
+            newTitle = newTitle.concat(" (your turn)");
+        }
+        screenTitle.setText(newTitle);
+        aiButton.setText(model.isThinking() ? "Stop AI" : "Make greedy AI move");
+        undoButton.setEnabled(model.canUndo());
+        redoButton.setEnabled(model.canRedo());
+    }
+
     /**
      * Update method. Called every time a piece is played, for both views.
      *
@@ -171,49 +214,25 @@ public class View {
      */
     // called every time a piece is played, for both views
     public void update() {
-        String newTitle;
-        if (isTurn) {
-            isTurn = false;
-            newTitle = screenTitle.getText().replace(" (your turn)", "");
-            screenTitle.setText(newTitle);
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        isTurn = model.isBlackTurn() == isBlack;
+        updateTitle();
+        if (size == BoardState.SIZE) {
+            drawChanged();
         } else {
-            isTurn = true;
-            newTitle = screenTitle.getText().concat(" (your turn)");
-            screenTitle.setText(newTitle);
+            drawEvery();
         }
 
-        // loop through the entire button array
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                // code for updating button array states depending on external state array
-                // again the black player's board must be accessed in reverse
-                if (isBlack) {
-                    arrayButt[i][j].setState(Model.get().bState.getState(7 - i, 7 - j));
-                } else {
-                    arrayButt[i][j].setState(Model.get().bState.getState(i, j));
-                }
-
-                // code for enabling/disabling buttons
-                // a button will be enabled if it is the current view's turn, and
-                // the space will capture at least 1 opposing piece
-                if (isTurn && Model.get().bState.countCapture(i, j, isBlack) > 0) {
-                    arrayButt[i][j].setEnabled(true);
-                } else {
-                    // if neither of these cases are fulfiled, the button is disabled
-                    // i.e. the space is not playable
-                    arrayButt[i][j].setEnabled(false);
-                }
-            }
+        // the end of game dialog waits for the user, so it isn't counted
+        if (Metrics.ENABLED) {
+            Metrics.viewUpdate(System.nanoTime() - start);
         }
 
-        // repaint the guiframe to reflect the changes
-        guiFrame.repaint();
-
         // game will end if the entire board is full, or both players are in a stalemate
         // i.e. neither player can place a single piece
-        if (Model.get().bState.isGameOver()) {
+        if (model.isGameOver()) {
             String outDialog;
-            int[] scores = Model.get().bState.getScore();
+            int[] scores = model.score();
             if (scores[0] > scores[1]) {
                 outDialog = "White wins: " + scores[0] + " : " + scores[1];
             } else {
@@ -223,4 +242,57 @@ public class View {
             System.exit(0);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Method to redraw the spaces that changed since the last update, on the 8x8 board.
+     *
+     * @since 1.0
+     */
+    private void drawChanged() {
+        BoardState bState = model.getGame().getBoard();
+
+        // one mask of every playable space, rather than asking countCapture about each space
+        long playable = isTurn ? bState.getLegalMoves(isBlack) : 0;
+        long black = bState.getBitboard(true);
+        long white = bState.getBitboard(false);
+
+        // only the spaces whose counter or playability changed are touched, and each repaints just itself
+        long changed = (black ^ drawnBlack) | (white ^ drawnWhite) | (playable ^ drawnPlayable);
+        while (changed != 0) {
+            int square = Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+
+            // the masks are in board coordinates, the black player's view is upside-down
+            int drawn = isBlack ? Symmetry.square(square, Symmetry.ROTATE_180) : square;
+            GridButton button = arrayButt[drawn / BoardState.SIZE][drawn % BoardState.SIZE];
+            long bit = 1L << square;
+            button.setState((black & bit) != 0 ? 1 : (white & bit) != 0 ? 2 : 0);
+
+            // a button will be enabled if it is the current view's turn, and
+            // the space will capture at least 1 opposing piece
+            button.setEnabled((playable & bit) != 0);
+        }
+        drawnBlack = black;
+        drawnWhite = white;
+        drawnPlayable = playable;
+    }
+
+    /**
+     * Method to redraw every space, on the other board sizes. Buttons only repaint if their state changed.
+     *
+     * @since 1.0
+     */
+    private void drawEvery() {
+        int last = size - 1;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                // the black player's view is upside-down
+                int boardRow = isBlack ? last - row : row;
+                int boardCol = isBlack ? last - col : col;
+                GridButton button = arrayButt[row][col];
+                button.setState(model.getState(boardRow, boardCol));
+                button.setEnabled(isTurn && model.isPlayable(boardRow, boardCol));
+            }
+        }
+    }
+}
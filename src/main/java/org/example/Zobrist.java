@@ -0,0 +1,110 @@
+/**
+ * Random keys for Zobrist hashing of board positions.
+ * A position's hash is the XOR of one key per occupied square, plus SIDE if black is to move,
+ * so it can be updated one square at a time as counters are placed and captured.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+public final class Zobrist {
+    /**
+     * Keys for a black counter on each square, indexed by row * 8 + col.
+     */
+    static final long[] BLACK = new long[64];
+    /**
+     * Keys for a white counter on each square, indexed by row * 8 + col.
+     */
+    static final long[] WHITE = new long[64];
+    /**
+     * Keys for a counter changing colour on each square, i.e. BLACK[i] ^ WHITE[i].
+     */
+    static final long[] FLIP = new long[64];
+    /**
+     * Key added when black is to move.
+     */
+    public static final long SIDE;
+
+    // fixed seed so hashes are the same between runs, e.g. for positions saved to disk
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < 64; i++) {
+            BLACK[i] = seed = splitMix(seed);
+            WHITE[i] = seed = splitMix(seed);
+            FLIP[i] = BLACK[i] ^ WHITE[i];
+        }
+        SIDE = splitMix(seed);
+    }
+
+    /**
+     * Private constructor. This class only holds static methods.
+     *
+     * @since 1.0
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Method to hash a whole board from scratch.
+     *
+     * @param black Mask of black counters.
+     * @param white Mask of white counters.
+     * @return Hash of the board, without the side to move.
+     * @since 1.0
+     */
+    public static long hash(long black, long white) {
+        long hash = 0;
+        while (black != 0) {
+            hash ^= BLACK[Long.numberOfTrailingZeros(black)];
+            black &= black - 1;
+        }
+        while (white != 0) {
+            hash ^= WHITE[Long.numberOfTrailingZeros(white)];
+            white &= white - 1;
+        }
+        return hash;
+    }
+
+    /**
+     * Method to get the change in hash when counters are captured.
+     *
+     * @param flipped Mask of counters that changed colour.
+     * @return Value to XOR into the hash.
+     * @since 1.0
+     */
+    public static long flips(long flipped) {
+        long delta = 0;
+        while (flipped != 0) {
+            delta ^= FLIP[Long.numberOfTrailingZeros(flipped)];
+            flipped &= flipped - 1;
+        }
+        return delta;
+    }
+
+    /**
+     * Method to get the key for placing a counter.
+     *
+     * @param square  Square the counter is placed on, as row * 8 + col.
+     * @param isBlack Boolean representing the colour of the counter - true if black, false if white.
+     * @return Value to XOR into the hash.
+     * @since 1.0
+     */
+    public static long place(int square, boolean isBlack) {
+        return isBlack ? BLACK[square] : WHITE[square];
+    }
+
+    /**
+     * SplitMix64 step, used to generate the keys.
+     *
+     * @since 1.0
+     */
+    private static long splitMix(long x) {
+        x += 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Tests for BoardState.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class BoardStateTest {
+    /**
+     * Number of random games played through and taken back.
+     */
+    private static final int GAMES = 200;
+
+    /**
+     * Unmaking every move of random games restores the masks, hash, playable spaces and scores exactly,
+     * at every step on the way back.
+     *
+     * @since 1.0
+     */
+    @Test
+    void unmakeMoveRestoresEverything() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int g = 0; g < GAMES; g++) {
+            BoardState board = new BoardState();
+            long[][] before = new long[64][];
+            int[] squares = new int[64];
+            int made = 0;
+            boolean isBlack = false;
+            while (!board.isGameOver()) {
+                long moves = board.getLegalMoves(isBlack);
+                if (moves != 0) {
+                    int pick = random.nextInt(Long.bitCount(moves));
+                    for (int i = 0; i < pick; i++) {
+                        moves &= moves - 1;
+                    }
+                    int square = Long.numberOfTrailingZeros(moves);
+                    before[made] = state(board);
+                    squares[made] = square;
+                    made++;
+                    board.makeMove(square, isBlack);
+                    // what was updated along the way matches working it all out from the masks
+                    BoardState fresh = new BoardState(board.getBitboard(true), board.getBitboard(false));
+                    assertArrayEquals(state(fresh), state(board), "game " + g + " move " + made);
+                }
+                isBlack = !isBlack;
+            }
+
+            assertEquals(made, board.getUndoCount());
+            while (made > 0) {
+                made--;
+                assertEquals(squares[made], board.unmakeMove());
+                assertArrayEquals(before[made], state(board), "game " + g + " unmaking move " + (made + 1));
+            }
+            assertEquals(0, board.getUndoCount());
+            assertArrayEquals(state(new BoardState()), state(board));
+        }
+    }
+
+    /**
+     * The undo stack holds 64 moves: one more is refused, as is unmaking with nothing left.
+     *
+     * @since 1.0
+     */
+    @Test
+    void undoStackHoldsSixtyFourMoves() {
+        // on an empty board nothing is ever captured, so every square can be played in turn
+        BoardState board = new BoardState(0, 0);
+        long[] empty = state(board);
+        assertThrows(IllegalStateException.class, board::unmakeMove);
+        for (int square = 0; square < 64; square++) {
+            board.makeMove(square, (square & 1) != 0);
+        }
+        assertEquals(64, board.getUndoCount());
+        assertThrows(IllegalStateException.class, () -> board.makeMove(0, false));
+        assertEquals(64, board.getUndoCount());
+
+        for (int square = 63; square >= 0; square--) {
+            assertEquals(square, board.unmakeMove());
+        }
+        assertThrows(IllegalStateException.class, board::unmakeMove);
+        assertArrayEquals(empty, state(board));
+    }
+
+    /**
+     * Method to capture everything makeMove changes.
+     *
+     * @param board Board to look at.
+     * @return Masks, hash, playable spaces and scores.
+     * @since 1.0
+     */
+    private static long[] state(BoardState board) {
+        int[] score = board.getScore();
+        return new long[]{board.getBitboard(true), board.getBitboard(false), board.getHash(),
+                board.getLegalMoves(true), board.getLegalMoves(false), score[0], score[1]};
+    }
+}
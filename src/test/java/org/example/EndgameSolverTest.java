@@ -0,0 +1,193 @@
+/**
+ * Tests for EndgameSolver.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class EndgameSolverTest {
+    /**
+     * Number of random positions checked against plain minimax.
+     */
+    private static final int POSITIONS = 300;
+
+    /**
+     * The solver's score matches an unpruned minimax on random positions with 6 to 10 empty squares,
+     * and the move it picks gets that score.
+     *
+     * @since 1.0
+     */
+    @Test
+    void matchesUnprunedMinimax() {
+        SplittableRandom random = new SplittableRandom(6);
+        EndgameSolver solver = new EndgameSolver();
+        for (int i = 0; i < POSITIONS; i++) {
+            Game game = randomPosition(random, 6 + i % 5);
+            boolean isBlack = game.isBlackTurn();
+            long own = game.getBoard().getBitboard(isBlack);
+            long opp = game.getBoard().getBitboard(!isBlack);
+
+            int expected = minimax(own, opp);
+            assertEquals(expected, solver.solve(own, opp), game.toString());
+            int result = solver.solveMove(own, opp);
+            assertEquals(expected, EndgameSolver.score(result), game.toString());
+            int move = EndgameSolver.move(result);
+            long flipped = Bitboard.flips(own, opp, move);
+            assertEquals(expected, -minimax(opp & ~flipped, own | flipped | (1L << move)), game.toString());
+        }
+    }
+
+    /**
+     * A 20-empty position, reached by legal play, with lines that pass on every other ply.
+     * Plies count passes, so these go deeper than the empties.
+     *
+     * @since 1.0
+     */
+    @Test
+    void passHeavyPositionSolves() {
+        Game game = new Game(new BoardState(0xf25a4afe7f7a7f80L, 0x0120340000000000L), false);
+        EndgameSolver solver = new EndgameSolver();
+        int result = solver.solveMove(game.getBoard().getBitboard(false), game.getBoard().getBitboard(true));
+        assertFalse(solver.isAborted());
+        assertTrue((game.legalMoves() & (1L << EndgameSolver.move(result))) != 0);
+
+        // the search hands the same position to its solver, which stops at the time limit
+        SearchPlayer player = new SearchPlayer(1000);
+        player.setEndgameEmpties(EndgameSolver.MAX_EMPTIES);
+        int move = player.chooseMove(game);
+        assertTrue((game.legalMoves() & (1L << move)) != 0);
+    }
+
+    /**
+     * A solve whose deadline has already passed gives up, and the next one without a deadline finishes.
+     *
+     * @since 1.0
+     */
+    @Test
+    void solveGivesUpAtDeadline() {
+        Game game = randomPosition(new SplittableRandom(1), 18);
+        boolean isBlack = game.isBlackTurn();
+        long own = game.getBoard().getBitboard(isBlack);
+        long opp = game.getBoard().getBitboard(!isBlack);
+        EndgameSolver solver = new EndgameSolver();
+
+        solver.solveMove(own, opp, System.nanoTime() - 1);
+        assertTrue(solver.isAborted());
+        int result = solver.solveMove(own, opp);
+        assertFalse(solver.isAborted());
+        assertEquals(solver.solve(own, opp), EndgameSolver.score(result));
+    }
+
+    /**
+     * A stopped solve gives up, and clearing the stop lets the next one finish.
+     *
+     * @since 1.0
+     */
+    @Test
+    void stopMakesSolveGiveUp() {
+        Game game = randomPosition(new SplittableRandom(2), 18);
+        EndgameSolver solver = new EndgameSolver();
+
+        solver.stop();
+        solver.solve(game);
+        assertTrue(solver.isAborted());
+        solver.clearStop();
+        solver.solve(game);
+        assertFalse(solver.isAborted());
+    }
+
+    /**
+     * A solve too big for the time limit falls back to the search, and still plays a legal move in time.
+     *
+     * @since 1.0
+     */
+    @Test
+    void searchPlayerFallsBackWhenSolveRunsOut() {
+        Game game = randomPosition(new SplittableRandom(3), EndgameSolver.MAX_EMPTIES);
+        SearchPlayer player = new SearchPlayer(20);
+        player.setEndgameEmpties(EndgameSolver.MAX_EMPTIES);
+
+        long start = System.nanoTime();
+        int move = player.chooseMove(game);
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        assertTrue((game.legalMoves() & (1L << move)) != 0, "move " + move + " in " + game);
+        assertTrue(millis < 1000, "took " + millis + " ms");
+    }
+
+    /**
+     * Plain minimax to the end of the game, with no pruning or ordering to get wrong.
+     *
+     * @param own Mask of the side to move.
+     * @param opp Mask of the opponent.
+     * @return Final disc difference from the side to move's point of view.
+     * @since 1.0
+     */
+    private static int minimax(long own, long opp) {
+        long moves = Bitboard.legalMoves(own, opp);
+        if (moves == 0) {
+            if (Bitboard.legalMoves(opp, own) == 0) {
+                return Long.bitCount(own) - Long.bitCount(opp);
+            }
+            return -minimax(opp, own);
+        }
+        int best = -65;
+        while (moves != 0) {
+            int move = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            long flipped = Bitboard.flips(own, opp, move);
+            best = Math.max(best, -minimax(opp & ~flipped, own | flipped | (1L << move)));
+        }
+        return best;
+    }
+
+    /**
+     * Method to play random moves from the start until a position with some empty squares and a legal move.
+     *
+     * @param random  Source of the moves.
+     * @param empties Number of empty squares wanted.
+     * @return Position reached.
+     * @since 1.0
+     */
+    static Game randomPosition(SplittableRandom random, int empties) {
+        while (true) {
+            Game game = new Game();
+            while (!game.isTerminal() && 64 - Long.bitCount(occupied(game)) > empties) {
+                long moves = game.legalMoves();
+                if (moves == 0) {
+                    game.pass();
+                    continue;
+                }
+                int pick = random.nextInt(Long.bitCount(moves));
+                for (int i = 0; i < pick; i++) {
+                    moves &= moves - 1;
+                }
+                game.play(Long.numberOfTrailingZeros(moves));
+            }
+            if (!game.isTerminal() && game.legalMoves() != 0) {
+                return game;
+            }
+        }
+    }
+
+    /**
+     * Method to get every occupied square of a position.
+     *
+     * @param game Game to look at.
+     * @return Mask of both sides' discs.
+     * @since 1.0
+     */
+    private static long occupied(Game game) {
+        return game.getBoard().getBitboard(true) | game.getBoard().getBitboard(false);
+    }
+}
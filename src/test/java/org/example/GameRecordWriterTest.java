@@ -0,0 +1,122 @@
+/**
+ * Tests for GameRecordWriter.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GameRecordWriterTest {
+    /**
+     * Directory the archives are written to.
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * Reopening after a crash that tore both files carries on after the last whole game.
+     *
+     * @throws IOException If the archive can't be written or read.
+     * @since 1.0
+     */
+    @Test
+    void reopenDropsTornRecordAndIndexEntry() throws IOException {
+        Path path = dir.resolve("games.bin");
+        writeGames(path, 0, 3);
+        // half a record, and three bytes of its index entry
+        Files.write(path, new byte[]{10, 0, 0, 0, 19, 26}, StandardOpenOption.APPEND);
+        Files.write(GameRecordWriter.indexPath(path), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        writeGames(path, 3, 2);
+        checkGames(path, 5);
+    }
+
+    /**
+     * Reopening after a crash between writing a record and its index entry indexes the record.
+     *
+     * @throws IOException If the archive can't be written or read.
+     * @since 1.0
+     */
+    @Test
+    void reopenIndexesWholeRecordsTheIndexMissed() throws IOException {
+        Path path = dir.resolve("games.bin");
+        writeGames(path, 0, 4);
+        Path indexPath = GameRecordWriter.indexPath(path);
+        byte[] index = Files.readAllBytes(indexPath);
+        // the last entry lost entirely, the one before it torn
+        Files.write(indexPath, Arrays.copyOf(index, index.length - 13));
+
+        writeGames(path, 4, 1);
+        checkGames(path, 5);
+    }
+
+    /**
+     * Method to append games whose moves are made from their number, so they can be told apart.
+     *
+     * @param path  Path of the archive.
+     * @param first Number of the first game.
+     * @param count Number of games.
+     * @throws IOException If the archive can't be written.
+     * @since 1.0
+     */
+    private static void writeGames(Path path, int first, int count) throws IOException {
+        try (GameRecordWriter writer = new GameRecordWriter(path)) {
+            for (int game = first; game < first + count; game++) {
+                writer.append(moves(game), game + 1, game);
+            }
+        }
+    }
+
+    /**
+     * Method to check an archive holds exactly the games writeGames wrote.
+     *
+     * @param path  Path of the archive.
+     * @param count Number of games expected.
+     * @throws IOException If the archive can't be read.
+     * @since 1.0
+     */
+    private static void checkGames(Path path, int count) throws IOException {
+        try (GameRecordReader reader = new GameRecordReader(path)) {
+            assertEquals(count, reader.size());
+            for (int game = 0; game < count; game++) {
+                reader.seek(game);
+                assertEquals(game + 1, reader.moveCount());
+                assertEquals(game, reader.result());
+                for (int i = 0; i <= game; i++) {
+                    assertEquals(moves(game)[i], reader.move(i));
+                }
+            }
+            reader.seek(count - 1);
+            assertFalse(reader.next());
+        }
+    }
+
+    /**
+     * Method to make the moves of a game.
+     *
+     * @param game Number of the game.
+     * @return Moves, one more than the game number of them.
+     * @since 1.0
+     */
+    private static int[] moves(int game) {
+        int[] moves = new int[game + 1];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (game * 7 + i) % 64;
+        }
+        return moves;
+    }
+}
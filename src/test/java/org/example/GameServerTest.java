@@ -0,0 +1,198 @@
+/**
+ * Tests for GameServer, driving it over a loopback connection the way a client would.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+class GameServerTest {
+    /**
+     * Longest a test waits for a reply, in milliseconds.
+     */
+    private static final int TIMEOUT = 10_000;
+
+    /**
+     * New games, malformed and illegal moves, legal moves for both sides, and refused passes.
+     *
+     * @throws IOException If the connection fails.
+     * @since 1.0
+     */
+    @Test
+    void validatesMovesAndPasses() throws IOException {
+        try (GameServer server = start(GreedyPlayer::new); Client client = new Client(server)) {
+            Game game = new Game();
+            assertEquals("OK " + game, client.send("NEW"));
+            assertEquals("ERR usage: MOVE square", client.send("MOVE"));
+            assertEquals("ERR not a square: x", client.send("MOVE x"));
+            assertEquals("ERR not a square: 64", client.send("MOVE 64"));
+            assertEquals("ERR not a square: -1", client.send("MOVE -1"));
+            assertEquals("ERR unknown command: JUMP", client.send("JUMP"));
+            assertEquals("ERR cannot pass while a move is available", client.send("PASS"));
+
+            // every square is tried for both sides, so the black side's turned-round check is covered
+            for (int turn = 0; turn < 2; turn++) {
+                long legal = game.legalMoves();
+                for (int square = 0; square < 64; square++) {
+                    if ((legal & (1L << square)) == 0) {
+                        assertEquals("ERR illegal move: " + square, client.send("MOVE " + square));
+                    }
+                }
+                assertEquals("OK " + game, client.send("BOARD"), "an illegal move left the game changed");
+                int move = Long.numberOfTrailingZeros(legal);
+                game.play(move);
+                assertEquals("OK " + game, client.send("move " + move));
+            }
+            assertTrue(game.legalMoves() != 0);
+            assertEquals("ERR cannot pass while a move is available", client.send("PASS"));
+
+            assertEquals("OK " + new Game(), client.send("NEW"));
+        }
+    }
+
+    /**
+     * An AI move comes back with the position after it, and the move is one the side to move could play.
+     *
+     * @throws IOException If the connection fails.
+     * @since 1.0
+     */
+    @Test
+    void aiRoundTrip() throws IOException {
+        try (GameServer server = start(GreedyPlayer::new); Client client = new Client(server)) {
+            Game game = new Game();
+            client.send("NEW");
+            for (int i = 0; i < 4; i++) {
+                String reply = client.send("AI");
+                assertTrue(reply.startsWith("OK "), reply);
+                int move = Integer.parseInt(reply.substring(reply.lastIndexOf(' ') + 1));
+                assertTrue((game.legalMoves() & (1L << move)) != 0, "AI played " + move + " in " + game);
+                game.play(move);
+                assertEquals("OK " + game + " " + move, reply);
+                assertEquals("OK " + game, client.send("BOARD"));
+            }
+        }
+    }
+
+    /**
+     * A player that throws gets the client an error instead of a session stuck waiting, and QUIT closes it.
+     *
+     * @throws IOException If the connection fails.
+     * @since 1.0
+     */
+    @Test
+    void failedAiMoveIsReported() throws IOException {
+        Supplier<Player> broken = () -> game -> {
+            throw new IllegalStateException("broken");
+        };
+        try (GameServer server = start(broken); Client client = new Client(server)) {
+            client.send("NEW");
+            assertEquals("ERR AI move failed: IllegalStateException", client.send("AI"));
+            // the session isn't left waiting for the move
+            assertEquals("OK " + new Game(), client.send("NEW"));
+            client.write("QUIT");
+            assertNull(client.reader.readLine());
+        }
+    }
+
+    /**
+     * Method to start a server on a free loopback port, serving on its own thread until closed.
+     *
+     * @param player Makes the AI player for each worker thread.
+     * @return Running server.
+     * @throws IOException If the socket can't be opened.
+     * @since 1.0
+     */
+    private static GameServer start(Supplier<Player> player) throws IOException {
+        GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 4, player);
+        Thread thread = new Thread(server, "test-server");
+        thread.setDaemon(true);
+        thread.start();
+        return server;
+    }
+
+    /**
+     * Class holding a blocking client connection, one command and one reply at a time.
+     */
+    private static final class Client implements AutoCloseable {
+        /**
+         * Connection to the server.
+         */
+        private final Socket socket;
+        /**
+         * Reply lines from the server.
+         */
+        private final BufferedReader reader;
+        /**
+         * Commands to the server.
+         */
+        private final OutputStream writer;
+
+        /**
+         * Constructor method. Connects straight away, the server is already listening.
+         *
+         * @param server Server to connect to.
+         * @throws IOException If the connection fails.
+         * @since 1.0
+         */
+        Client(GameServer server) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            socket.setSoTimeout(TIMEOUT);
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            writer = socket.getOutputStream();
+        }
+
+        /**
+         * Method to send a command and wait for its reply.
+         *
+         * @param command Command, without the line ending.
+         * @return Reply, without the line ending.
+         * @throws IOException If the connection fails or times out.
+         * @since 1.0
+         */
+        String send(String command) throws IOException {
+            write(command);
+            return reader.readLine();
+        }
+
+        /**
+         * Method to send a command without waiting for a reply.
+         *
+         * @param command Command, without the line ending.
+         * @throws IOException If the connection fails.
+         * @since 1.0
+         */
+        void write(String command) throws IOException {
+            writer.write((command + "\n").getBytes(StandardCharsets.US_ASCII));
+            writer.flush();
+        }
+
+        /**
+         * Method to close the connection.
+         *
+         * @throws IOException If closing fails.
+         * @since 1.0
+         */
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
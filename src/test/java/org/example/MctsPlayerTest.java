@@ -0,0 +1,44 @@
+/**
+ * Tests for MctsPlayer.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MctsPlayerTest {
+    /**
+     * A pool too small to expand the root is refused up front.
+     *
+     * @since 1.0
+     */
+    @Test
+    void poolTooSmallForTheRootIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MctsPlayer(50, 1, 4, 1));
+    }
+
+    /**
+     * The smallest pool allowed still gives a legal move, even though it fills up at once.
+     *
+     * @since 1.0
+     */
+    @Test
+    void smallestPoolChoosesLegalMove() {
+        MctsPlayer player = new MctsPlayer(50, 1, MctsPlayer.MIN_NODES, 1);
+        try {
+            for (Game position : SpeedupReport.positions()) {
+                int move = player.chooseMove(position);
+                assertTrue((position.legalMoves() & (1L << move)) != 0, "move " + move + " in " + position);
+            }
+        } finally {
+            player.shutdown();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Tests for ParallelSearch.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelSearchTest {
+    /**
+     * Depth every search in these tests goes to.
+     */
+    private static final int DEPTH = 6;
+
+    /**
+     * A stop only ends the search it was meant for, the next one still reaches full depth.
+     *
+     * @since 1.0
+     */
+    @Test
+    void searchAfterStopReachesFullDepth() {
+        for (int threads : new int[]{1, 2, 5}) {
+            ParallelSearch search = new ParallelSearch(threads, 60_000, DEPTH, new TranspositionTable(4));
+            try {
+                search.stop();
+                for (Game position : SpeedupReport.positions()) {
+                    search.chooseMove(position);
+                    assertEquals(DEPTH, search.getDepthReached(), "threads " + threads + ", position " + position);
+                }
+            } finally {
+                search.shutdown();
+            }
+        }
+    }
+}
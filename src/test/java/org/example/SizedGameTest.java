@@ -0,0 +1,176 @@
+/**
+ * Tests for SizedGame.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class SizedGameTest {
+    /**
+     * Number of random games played on each size.
+     */
+    private static final int GAMES = 20;
+
+    /**
+     * Random games on every size play to the end, then undo back to the start and redo to the end again,
+     * matching the board at every step.
+     *
+     * @since 1.0
+     */
+    @Test
+    void randomGamesUndoAndRedo() {
+        SplittableRandom random = new SplittableRandom(21);
+        for (int size = SizedBoard.MIN_SIZE; size <= SizedBoard.MAX_SIZE; size += 2) {
+            for (int g = 0; g < GAMES; g++) {
+                SizedGame game = new SizedGame(size);
+                String[] seen = new String[2 * size * size + 2];
+                int played = 0;
+                seen[played] = describe(game);
+                while (!game.isTerminal()) {
+                    if (game.hasMoves()) {
+                        int move = randomMove(game, random);
+                        game.play(move / size, move % size);
+                    } else {
+                        game.pass();
+                    }
+                    seen[++played] = describe(game);
+                }
+                int[] score = game.score();
+                assertTrue(score[0] + score[1] <= size * size);
+
+                for (int i = played; i > 0; i--) {
+                    game.undo();
+                    assertEquals(seen[i - 1], describe(game), "size " + size + " undoing to move " + (i - 1));
+                }
+                assertFalse(game.canUndo());
+                for (int i = 1; i <= played; i++) {
+                    game.redo();
+                    assertEquals(seen[i], describe(game), "size " + size + " redoing move " + i);
+                }
+                assertFalse(game.canRedo());
+            }
+        }
+    }
+
+    /**
+     * On 8x8 the same moves give the same boards as Game.
+     *
+     * @since 1.0
+     */
+    @Test
+    void matchesGameOnStandardBoard() {
+        SplittableRandom random = new SplittableRandom(8);
+        for (int g = 0; g < GAMES; g++) {
+            SizedGame sized = new SizedGame(BoardState.SIZE);
+            Game game = new Game();
+            while (!game.isTerminal()) {
+                assertEquals(game.isTerminal(), sized.isTerminal());
+                assertEquals(game.isBlackTurn(), sized.isBlackTurn());
+                if (game.legalMoves() == 0) {
+                    assertFalse(sized.hasMoves());
+                    game.pass();
+                    sized.pass();
+                    continue;
+                }
+                int move = randomMove(sized, random);
+                assertTrue((game.legalMoves() & (1L << move)) != 0);
+                game.play(move);
+                sized.play(move / BoardState.SIZE, move % BoardState.SIZE);
+                assertArrayEquals(game.score(), sized.score());
+            }
+            assertTrue(sized.isTerminal());
+        }
+    }
+
+    /**
+     * Illegal moves and passes are refused, and the greedy move captures most.
+     *
+     * @since 1.0
+     */
+    @Test
+    void refusesIllegalPlay() {
+        SizedGame game = new SizedGame(10);
+        assertThrows(IllegalArgumentException.class, () -> game.play(0, 0));
+        assertThrows(IllegalStateException.class, game::pass);
+        assertThrows(IllegalStateException.class, game::undo);
+
+        int move = game.greedyMove();
+        int captures = game.getBoard().countCapture(move / 10, move % 10, game.isBlackTurn());
+        for (int row = 0; row < 10; row++) {
+            for (int col = 0; col < 10; col++) {
+                assertTrue(game.getBoard().countCapture(row, col, game.isBlackTurn()) <= captures);
+            }
+        }
+    }
+
+    /**
+     * The model behind the GUI plays a whole game with the AI button, passing for a stuck player,
+     * and undo takes it all back.
+     *
+     * @since 1.0
+     */
+    @Test
+    void sizedModelPlaysToTheEnd() {
+        SizedModel model = new SizedModel(12);
+        assertEquals(12, model.getSize());
+        assertEquals(2, model.getState(5, 5));
+        assertTrue(model.isPlayable(4, 6) || model.isPlayable(6, 4) || model.isPlayable(4, 5));
+        int moves = 0;
+        while (!model.isGameOver()) {
+            model.playGreedy();
+            moves++;
+            assertTrue(moves <= 144, "game didn't end");
+        }
+        while (model.canUndo()) {
+            model.undo();
+        }
+        assertFalse(model.isGameOver());
+        assertFalse(model.isBlackTurn());
+        assertArrayEquals(new int[]{2, 2}, model.score());
+    }
+
+    /**
+     * Method to pick a random legal move.
+     *
+     * @param game   Game with at least one legal move.
+     * @param random Source of the choice.
+     * @return Square as row * size + col.
+     * @since 1.0
+     */
+    private static int randomMove(SizedGame game, SplittableRandom random) {
+        int size = game.getSize();
+        int[] moves = new int[size * size];
+        int count = game.getBoard().legalMoves(game.isBlackTurn(), moves);
+        return moves[random.nextInt(count)];
+    }
+
+    /**
+     * Method to write out a position, to compare positions.
+     *
+     * @param game Game to describe.
+     * @return Every space's state, then the side to move.
+     * @since 1.0
+     */
+    private static String describe(SizedGame game) {
+        StringBuilder text = new StringBuilder();
+        for (int row = 0; row < game.getSize(); row++) {
+            for (int col = 0; col < game.getSize(); col++) {
+                text.append(game.getBoard().getState(row, col));
+            }
+        }
+        return text.append(game.isBlackTurn() ? 'X' : 'O').toString();
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Tests for TranspositionTable.
+ *
+ * @Project Ultimate Reversi
+ * @Author Medusa Dempsey
+ * @Version 1.0
+ * @since 1.0
+ */
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+    /**
+     * Two hashes that land on the same entry of a 1 MB table.
+     */
+    private static final long FIRST = 5;
+    /**
+     * See FIRST.
+     */
+    private static final long SECOND = 5 + (1L << 40);
+
+    /**
+     * A deep entry from the current search isn't replaced by a shallower one.
+     *
+     * @since 1.0
+     */
+    @Test
+    void currentDeepEntryIsKept() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.newSearch();
+        table.store(FIRST, 10, 7, TranspositionTable.EXACT, 19);
+        table.store(SECOND, 2, 3, TranspositionTable.EXACT, 20);
+        assertEquals(10, TranspositionTable.depth(table.probe(FIRST)));
+        assertEquals(0, table.probe(SECOND));
+    }
+
+    /**
+     * A deep entry from an old search is replaced, however many searches ago it was,
+     * including exactly a multiple of 256 ago.
+     *
+     * @since 1.0
+     */
+    @Test
+    void oldDeepEntryIsReplacedAfterManySearches() {
+        for (int searches : new int[]{1, 255, 256, 512, 70_000}) {
+            TranspositionTable table = new TranspositionTable(1);
+            table.newSearch();
+            table.store(FIRST, 10, 7, TranspositionTable.EXACT, 19);
+            for (int i = 0; i < searches; i++) {
+                table.newSearch();
+            }
+            table.store(SECOND, 2, 3, TranspositionTable.EXACT, 20);
+            assertEquals(0, table.probe(FIRST), searches + " searches later");
+            assertEquals(2, TranspositionTable.depth(table.probe(SECOND)), searches + " searches later");
+        }
+    }
+}